@@ -0,0 +1,46 @@
+#!/bin/sh
+# Builds a trimmed runtime image of the GUI with an AppCDS archive, so a cold
+# start to the first frame skips most class loading and verification:
+#
+#   ./build-image.sh
+#   build/image/bin/flowstate
+#
+# Needs a full JDK 17+ (javac, jar, jlink and its jmods) from JAVA_HOME or the
+# PATH, and a display: the archive comes from a training run that starts the
+# GUI and closes it once it has painted and loaded the tasks (see
+# StartupTrainingRun). To compare start times, run both with the timeline on:
+#
+#   JDK_JAVA_OPTIONS=-Dflowstate.startupTimeline=true build/image/bin/flowstate
+#   JDK_JAVA_OPTIONS=-Dflowstate.startupTimeline=true java -p build/mods -m Flowstate
+set -e
+cd "$(dirname "$0")"
+BIN=${JAVA_HOME:+$JAVA_HOME/bin/}
+
+rm -rf build
+mkdir -p build/classes build/mods
+"${BIN}javac" -d build/classes $(find src -name '*.java')
+# Resources (the font) live next to the classes that load them
+(cd src && find . -type f ! -name '*.java' | while read -r file; do
+    mkdir -p "../build/classes/$(dirname "$file")"
+    cp "$file" "../build/classes/$file"
+done)
+"${BIN}jar" --create --file build/mods/flowstate.jar --main-class flowstate.FlowStateGUI -C build/classes .
+
+"${BIN}jlink" --module-path build/mods --add-modules Flowstate \
+    --launcher flowstate=Flowstate/flowstate.FlowStateGUI \
+    --strip-debug --no-header-files --no-man-pages --output build/image
+
+# CDS archive of the image's own JDK classes, then one on top of it for the
+# app's classes, recorded from a real start
+build/image/bin/java -Xshare:dump > /dev/null
+if build/image/bin/java -XX:ArchiveClassesAtExit=build/image/lib/flowstate.jsa -Xlog:cds=off \
+        -Dflowstate.startupTimeline=true -m Flowstate/flowstate.StartupTrainingRun | grep -q "first paint"; then
+    # The launcher runs with the archive; the path is relative to the image
+    sed -i 's|\$DIR/java \$JLINK_VM_OPTIONS|$DIR/java -XX:SharedArchiveFile=$DIR/../lib/flowstate.jsa $JLINK_VM_OPTIONS|' \
+        build/image/bin/flowstate
+    echo "Built build/image with an AppCDS archive (run build/image/bin/flowstate)"
+else
+    # No display: the GUI never painted, so the archive would miss most of it
+    rm -f build/image/lib/flowstate.jsa
+    echo "Built build/image without an AppCDS archive: the training run needs a display"
+fi
@@ -0,0 +1,32 @@
+#!/bin/sh
+# Compiles the app with the tests under test/ and runs every *Test class, each
+# in a fresh empty directory because the storage backends work on files in
+# the current directory:
+#
+#   ./run-tests.sh
+#
+# Needs a JDK 17+ from JAVA_HOME or the PATH. The tests use no framework: each
+# is a main() that throws on the first failed check (see Checks).
+set -e
+cd "$(dirname "$0")"
+BIN=${JAVA_HOME:+$JAVA_HOME/bin/}
+CLASSES=$(pwd)/build/test-classes
+
+rm -rf build/test-classes
+mkdir -p build/test-classes
+# On the class path rather than as a module, so tests can sit in package flowstate
+"${BIN}javac" -d build/test-classes $(find src test -name '*.java' ! -name module-info.java)
+
+failed=0
+for test in $(cd test && find . -name '*Test.java' | sort | sed 's|^\./||; s|\.java$||; s|/|.|g'); do
+    dir=$(mktemp -d)
+    if (cd "$dir" && "${BIN}java" -ea -Djava.awt.headless=true -cp "$CLASSES" "$test" > output.txt 2>&1); then
+        echo "ok      $test"
+        rm -rf "$dir"
+    else
+        echo "FAILED  $test (output and files in $dir)"
+        tail -20 "$dir/output.txt"
+        failed=1
+    fi
+done
+exit $failed
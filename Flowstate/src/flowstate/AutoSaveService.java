@@ -0,0 +1,110 @@
+package flowstate;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Debounced background writer. Edits are queued from the event thread and run
+// together on a dedicated thread once no new edit has come in for quietMillis,
+// so a burst of focusLost/priority/checkbox commits becomes a single write.
+// Whatever is queued must already be a snapshot (e.g. a formatted record),
+// never a live Task that the UI might still be changing.
+public class AutoSaveService {
+    public static final long DEFAULT_QUIET_MILLIS = 400;
+    // Even while edits keep coming, nothing waits longer than this
+    private static final long MAX_DELAY_FACTOR = 5;
+
+    private final ScheduledExecutorService writer;
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Runnable afterBatch;
+    private final long quietMillis;
+
+    private ScheduledFuture<?> scheduled;
+    private long dirtySince;
+    private volatile long lastSaveNanos = -1;
+
+    public AutoSaveService(String threadName, long quietMillis, Runnable afterBatch) {
+        this.quietMillis = quietMillis;
+        this.afterBatch = afterBatch;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, threadName);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Marks the state dirty and (re)starts the quiet period
+    public void submit(Runnable write) {
+        pending.add(write);
+        pendingCount.incrementAndGet();
+        synchronized (this) {
+            long now = System.nanoTime();
+            boolean waiting = scheduled != null && !scheduled.isDone();
+            if (!waiting) {
+                dirtySince = now;
+            } else if (now - dirtySince < TimeUnit.MILLISECONDS.toNanos(quietMillis * MAX_DELAY_FACTOR)) {
+                scheduled.cancel(false);
+            } else {
+                return; // already overdue, let the scheduled write go ahead
+            }
+            scheduled = writer.schedule(this::drain, quietMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Writes everything still queued, then runs task on the writer thread and
+    // waits for it. Used for the synchronous save in windowClosing.
+    public <T> T flushAndRun(Callable<T> task) {
+        try {
+            return writer.submit(() -> {
+                drain();
+                return task.call();
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Error saving tasks: " + e.getCause());
+        }
+        return null;
+    }
+
+    public void flush() {
+        flushAndRun(() -> null);
+    }
+
+    public void shutdown() {
+        flush();
+        writer.shutdown();
+    }
+
+    public int getPendingWrites() {
+        return pendingCount.get();
+    }
+
+    // -1 until the first batch has been written
+    public long getLastSaveMillis() {
+        return lastSaveNanos < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(lastSaveNanos);
+    }
+
+    public String getStatus() {
+        long last = getLastSaveMillis();
+        return "Last save: " + (last < 0 ? "n/a" : last + " ms") + ", pending writes: " + getPendingWrites();
+    }
+
+    private void drain() {
+        if (pending.isEmpty()) return;
+        long start = System.nanoTime();
+        int count = 0;
+        Runnable write;
+        while ((write = pending.poll()) != null) {
+            try {
+                write.run();
+            } catch (RuntimeException e) {
+                System.out.println("Error saving tasks: " + e.getMessage());
+            }
+            count++;
+        }
+        afterBatch.run();
+        pendingCount.addAndGet(-count);
+        lastSaveNanos = System.nanoTime() - start;
+    }
+}
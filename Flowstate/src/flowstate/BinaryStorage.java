@@ -0,0 +1,325 @@
+package flowstate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Binary snapshot backend (tasks.bin). Layout, all big-endian:
+//
+//   int magic 'FLST', short version
+//   int stringCount, then per string: int length + UTF-8 bytes
+//       (tab names and priorities, each stored once)
+//   int tabCount, then per tab:
+//       int tabNameIndex, int taskCount, then per task:
+//           int titleLength + UTF-8, int descriptionLength + UTF-8,
+//           int dueEpochDay, short priorityIndex, byte flags
+//           [int rawDateLength + UTF-8 when FLAG_RAW_DATE is set]
+//
+// Dates that aren't MM/dd/yyyy (the CLI accepts anything) are kept as raw text
+// so nothing is lost. Empty tabs are stored too, unlike the text format.
+public class BinaryStorage implements Storage {
+    static final String FILE_NAME = "tasks.bin";
+    private static final int MAGIC = 0x464C5354; // "FLST"
+    private static final short VERSION = 1;
+
+    private static final int NO_DATE = DueDates.NO_DATE;
+    private static final byte FLAG_COMPLETED = 1;
+    private static final byte FLAG_RAW_DATE = 2;
+
+    private final String fileName;
+    private final String textFileName;
+
+    // The caller's tab map; the format has no partial updates, so any change
+    // rewrites the whole file from it
+    private Map<String, ArrayList<Task>> model;
+    private boolean dirty;
+    private int batchDepth;
+
+    public BinaryStorage() {
+        this(FILE_NAME, FileStorage.FILE_NAME);
+    }
+
+    public BinaryStorage(String fileName, String textFileName) {
+        this.fileName = fileName;
+        this.textFileName = textFileName;
+    }
+
+    // The CLI works on the General tab; other tabs are kept as they are
+    @Override
+    public void saveData(ArrayList<Task> tasks) {
+        Map<String, ArrayList<Task>> tabTasks = model != null ? model : readOrMigrate();
+        tabTasks.put("General", tasks);
+        saveDataByTabs(tabTasks);
+    }
+
+    @Override
+    public ArrayList<Task> loadData() {
+        return readOrMigrate().getOrDefault("General", new ArrayList<>());
+    }
+
+    @Override
+    public Map<String, ArrayList<Task>> loadDataByTabs() {
+        model = null;
+        model = readOrMigrate();
+        return model;
+    }
+
+    // Throws if tasks.bin is there but can't be read: starting empty instead
+    // would write the empty tabs over it on the next change
+    private Map<String, ArrayList<Task>> readOrMigrate() {
+        Path path = Paths.get(fileName);
+        if (!Files.exists(path)) {
+            return migrateFromText();
+        }
+        try {
+            Map<String, ArrayList<Task>> tabTasks = read(path);
+            System.out.println("Tasks loaded successfully by tabs!");
+            return tabTasks;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error loading tasks: " + e.getMessage());
+            throw new UncheckedIOException("Could not read " + path,
+                    e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public void saveDataByTabs(Map<String, ArrayList<Task>> tabTasks) {
+        model = tabTasks;
+        dirty = false;
+        Path target = Paths.get(fileName).toAbsolutePath();
+        Path temp = Paths.get(target + ".tmp");
+        try {
+            write(temp, tabTasks);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            System.out.println("Tasks saved successfully!");
+        } catch (IOException e) {
+            System.out.println("Error saving tasks: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void insertTask(String tab, int index, Task task) {
+        changed();
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        changed();
+    }
+
+    @Override
+    public void deleteTask(Task task) {
+        changed();
+    }
+
+    @Override
+    public void moveTask(Task task, String toTab, int toIndex) {
+        changed();
+    }
+
+    @Override
+    public void createTab(String tab) {
+        changed();
+    }
+
+    @Override
+    public void renameTab(String oldName, String newName) {
+        changed();
+    }
+
+    @Override
+    public void deleteTab(String tab) {
+        changed();
+    }
+
+    @Override
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    @Override
+    public void endBatch() {
+        if (batchDepth > 0 && --batchDepth == 0) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (dirty && model != null) {
+            saveDataByTabs(model);
+        }
+    }
+
+    private void changed() {
+        dirty = true;
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+
+    // First run on the binary backend: pick up tasks.txt (and its journal) once
+    private Map<String, ArrayList<Task>> migrateFromText() {
+        if (!Files.exists(Paths.get(textFileName))) {
+            System.out.println("No existing tasks found, starting fresh.");
+            return FileStorage.defaultTabs();
+        }
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.readTextFile(textFileName);
+        saveDataByTabs(tabTasks);
+        System.out.println("Migrated " + textFileName + " to " + fileName);
+        return tabTasks;
+    }
+
+    // Writes the current binary snapshot back out in the tasks.txt format
+    public void exportText() {
+        if (FileStorage.writeSnapshot(textFileName, readOrMigrate(), 0)) {
+            System.out.println("Exported tasks to " + textFileName);
+        }
+    }
+
+    private static void write(Path path, Map<String, ArrayList<Task>> tabTasks) throws IOException {
+        // Dictionary of tab names and priorities
+        Map<String, Integer> index = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+            intern(entry.getKey(), index, strings);
+            for (Task task : entry.getValue()) {
+                intern(task.getPriority(), index, strings);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(strings.size());
+            for (String s : strings) {
+                writeString(out, s);
+            }
+
+            out.writeInt(tabTasks.size());
+            for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+                out.writeInt(index.get(entry.getKey()));
+                out.writeInt(entry.getValue().size());
+                for (Task task : entry.getValue()) {
+                    writeString(out, task.getTitle());
+                    writeString(out, task.getDescription());
+
+                    // Already parsed when the date was set; typed text with no
+                    // date in it (even "") is kept as it is, like tasks.txt does
+                    int day = task.getDueDay();
+                    boolean raw = day == DueDates.INVALID || (day == NO_DATE && task.getDueDate() != null);
+                    if (raw) {
+                        day = NO_DATE;
+                    }
+
+                    out.writeInt(day);
+                    out.writeShort(index.get(task.getPriority()));
+                    byte flags = 0;
+                    if (task.isCompleted()) flags |= FLAG_COMPLETED;
+                    if (raw) flags |= FLAG_RAW_DATE;
+                    out.writeByte(flags);
+                    if (raw) {
+                        writeString(out, task.getDueDate());
+                    }
+                }
+            }
+        }
+    }
+
+    // One sequential pass over the whole file in a heap buffer
+    private static Map<String, ArrayList<Task>> read(Path path) throws IOException {
+        ByteBuffer buf;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("tasks file too large");
+            }
+            buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                // keep reading
+            }
+            buf.flip();
+        }
+
+        if (buf.getInt() != MAGIC) {
+            throw new IOException("not a FlowState file");
+        }
+        short version = buf.getShort();
+        if (version != VERSION) {
+            throw new IOException("unsupported version " + version);
+        }
+
+        String[] strings = new String[buf.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = readString(buf);
+        }
+
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        // Each distinct priority string is parsed once
+        Priority[] levels = new Priority[strings.length];
+        int tabCount = buf.getInt();
+        for (int t = 0; t < tabCount; t++) {
+            String tabName = strings[buf.getInt()];
+            int taskCount = buf.getInt();
+            ArrayList<Task> tasks = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                String title = readString(buf);
+                String description = readString(buf);
+                int day = buf.getInt();
+                short priority = buf.getShort();
+                byte flags = buf.get();
+
+                if (levels[priority] == null) {
+                    levels[priority] = Priority.parse(strings[priority]);
+                }
+                Task task = new Task(title, description, day, levels[priority]);
+                if (!levels[priority].getLabel().equals(strings[priority])) {
+                    task.setPriority(strings[priority]);
+                }
+                if ((flags & FLAG_RAW_DATE) != 0) {
+                    task.setDueDate(readString(buf));
+                }
+                task.setCompleted((flags & FLAG_COMPLETED) != 0);
+                tasks.add(task);
+            }
+            tabTasks.put(tabName, tasks);
+        }
+        return tabTasks;
+    }
+
+    private static void intern(String s, Map<String, Integer> index, List<String> strings) {
+        if (!index.containsKey(s)) {
+            index.put(s, strings.size());
+            strings.add(s);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length == 0) return ""; // shared, not one per row
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return s;
+    }
+}
@@ -0,0 +1,238 @@
+package flowstate;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.*;
+
+// Storage backed by the embedded TaskDatabase (tasks.db). Single-task changes
+// are single-row upserts and deletes; whole-map saves are only needed for
+// the first migration from tasks.txt.
+public class DatabaseStorage implements Storage {
+    static final String FILE_NAME = "tasks.db";
+
+    private final TaskDatabase db;
+    // Task id -> row id, for tasks handed out by loadDataByTabs() or inserted since
+    private final Map<Integer, Long> rowIds = new HashMap<>();
+
+    public DatabaseStorage() {
+        this(FILE_NAME, FileStorage.FILE_NAME);
+    }
+
+    public DatabaseStorage(String fileName, String textFileName) {
+        boolean fresh = !Files.exists(Paths.get(fileName));
+        try {
+            db = new TaskDatabase(fileName);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open " + fileName, e);
+        }
+        if (fresh && Files.exists(Paths.get(textFileName))) {
+            saveDataByTabs(FileStorage.readTextFile(textFileName));
+            System.out.println("Migrated " + textFileName + " to " + fileName);
+        }
+    }
+
+    // The CLI works on the General tab. Its rows are rewritten in place, so
+    // the tab keeps its id and its place among the others.
+    @Override
+    public void saveData(ArrayList<Task> tasks) {
+        try {
+            db.createTab("General");
+            int existing = db.count("General");
+            for (int i = existing - 1; i >= tasks.size(); i--) {
+                db.delete(db.rowIdAt("General", i));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                if (i < existing) {
+                    long rowId = db.rowIdAt("General", i);
+                    db.update(rowId, task);
+                    rowIds.put(task.getId(), rowId);
+                } else {
+                    rowIds.put(task.getId(), db.insert("General", task));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving tasks: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public ArrayList<Task> loadData() {
+        try {
+            return db.loadTab("General");
+        } catch (IOException e) {
+            System.out.println("Error loading tasks: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public Map<String, ArrayList<Task>> loadDataByTabs() {
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        try {
+            for (String tab : db.getTabNames()) {
+                ArrayList<Task> tasks = db.loadTab(tab);
+                for (int i = 0; i < tasks.size(); i++) {
+                    rowIds.put(tasks.get(i).getId(), db.rowIdAt(tab, i));
+                }
+                tabTasks.put(tab, tasks);
+            }
+            System.out.println("Tasks loaded successfully by tabs!");
+        } catch (IOException e) {
+            System.out.println("Error loading tasks: " + e.getMessage());
+        }
+        return tabTasks;
+    }
+
+    // Replaces everything; single edits should go through the change methods
+    @Override
+    public void saveDataByTabs(Map<String, ArrayList<Task>> tabTasks) {
+        try {
+            for (String tab : db.getTabNames()) {
+                db.deleteTab(tab);
+            }
+            rowIds.clear();
+            for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+                db.createTab(entry.getKey());
+                for (Task task : entry.getValue()) {
+                    rowIds.put(task.getId(), db.insert(entry.getKey(), task));
+                }
+            }
+            db.compact();
+            System.out.println("Tasks saved successfully!");
+        } catch (IOException e) {
+            System.out.println("Error saving tasks: " + e.getMessage());
+        }
+    }
+
+    // Every change is a single append to tasks.db, so batching and flushing
+    // have nothing to do
+
+    @Override
+    public void insertTask(String tab, int index, Task task) {
+        try {
+            rowIds.put(task.getId(), db.insert(tab, index, task));
+        } catch (IOException e) {
+            System.out.println("Error saving task: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        Long rowId = rowIds.get(task.getId());
+        if (rowId == null) return;
+        try {
+            db.update(rowId, task);
+        } catch (IOException e) {
+            System.out.println("Error saving task: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteTask(Task task) {
+        Long rowId = rowIds.remove(task.getId());
+        if (rowId == null) return;
+        try {
+            db.delete(rowId);
+        } catch (IOException e) {
+            System.out.println("Error deleting task: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void moveTask(Task task, String toTab, int toIndex) {
+        Long rowId = rowIds.get(task.getId());
+        if (rowId == null) return;
+        try {
+            db.move(rowId, toTab, toIndex);
+        } catch (IOException e) {
+            System.out.println("Error saving task: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void createTab(String tab) {
+        try {
+            db.createTab(tab);
+        } catch (IOException e) {
+            System.out.println("Error saving tab: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void renameTab(String oldName, String newName) {
+        try {
+            db.renameTab(oldName, newName);
+        } catch (IOException e) {
+            System.out.println("Error saving tab: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteTab(String tab) {
+        try {
+            db.deleteTab(tab);
+        } catch (IOException e) {
+            System.out.println("Error deleting tab: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+    }
+
+    @Override
+    public void endBatch() {
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    // Indexed queries: only the matching rows are read from disk
+
+    public List<Task> findOverdue(String tab) {
+        try {
+            return db.findOverdue(tab, (int) LocalDate.now().toEpochDay());
+        } catch (IOException e) {
+            System.out.println("Error querying tasks: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public List<Task> findDueBetween(LocalDate from, LocalDate to, String tab) {
+        try {
+            return db.findByDueDate((int) from.toEpochDay(), (int) to.toEpochDay(), tab, null, null);
+        } catch (IOException e) {
+            System.out.println("Error querying tasks: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public List<Task> findByPriority(String priority, String tab, Boolean completed) {
+        try {
+            return db.findByPriority(TaskDatabase.priorityCodeOf(priority), tab, completed);
+        } catch (IOException e) {
+            System.out.println("Error querying tasks: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    public int countTasks(String tab) {
+        return db.count(tab);
+    }
+
+    public int countCompleted(String tab) {
+        return db.countCompleted(tab);
+    }
+
+    @Override
+    public void close() {
+        try {
+            db.close();
+        } catch (IOException e) {
+            System.out.println("Error closing task database: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package flowstate;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import javax.swing.Timer;
+
+// Tells the listener, on the EDT, when the local date changes: at midnight,
+// and after the wall clock or the default time zone moves. Neither of those
+// raises an event, so the timer never sleeps longer than CHECK_MILLIS; a
+// change shows up within a minute. Times of day don't matter to anything
+// shown, only the date.
+final class DayRollover {
+    interface Listener {
+        // Epoch days; newDay can be before oldDay if the clock went back
+        void dayChanged(int oldDay, int newDay);
+    }
+
+    private static final int CHECK_MILLIS = 60_000;
+
+    private final Listener listener;
+    private final Timer timer;
+    private int today;
+
+    DayRollover(Listener listener) {
+        this.listener = listener;
+        today = (int) LocalDate.now().toEpochDay();
+        timer = new Timer(CHECK_MILLIS, e -> check());
+        timer.setRepeats(false);
+    }
+
+    void start() {
+        schedule();
+    }
+
+    void stop() {
+        timer.stop();
+    }
+
+    private void check() {
+        int day = (int) LocalDate.now().toEpochDay();
+        if (day != today) {
+            int oldDay = today;
+            today = day;
+            listener.dayChanged(oldDay, day);
+        }
+        schedule();
+    }
+
+    // Until midnight or the next check, whichever is sooner; a timer that
+    // fires a little early just sees the same day and sleeps the rest
+    private void schedule() {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone());
+        long untilMidnight = midnight.toInstant().toEpochMilli() - now.toInstant().toEpochMilli();
+        timer.setInitialDelay((int) Math.max(1, Math.min(untilMidnight, CHECK_MILLIS)));
+        timer.restart();
+    }
+}
@@ -0,0 +1,144 @@
+package flowstate;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Ctrl+Shift+D: the EdtWatchdog's stalls per handler, with the selected
+// handler's hot frames and longest stack below. Save writes the same report
+// as text, to attach to a bug report.
+class DiagnosticsDialog extends JDialog {
+    private static final String[] FIXED_COLUMNS = {"Handler", "Stalls", "Total ms", "Max ms"};
+
+    private final EdtWatchdog watchdog;
+    private final JTextArea summary = new JTextArea();
+    private final JTextArea details = new JTextArea();
+    private final HandlerTableModel tableModel = new HandlerTableModel();
+    private final JTable table = new JTable(tableModel);
+
+    DiagnosticsDialog(Frame owner, EdtWatchdog watchdog) {
+        super(owner, "Diagnostics", false);
+        this.watchdog = watchdog;
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        setSize(900, 600);
+        setLocationRelativeTo(owner);
+
+        summary.setEditable(false);
+        summary.setOpaque(false);
+        summary.setFont(Resources.font("Segoe UI", Font.PLAIN, 12));
+        summary.setBorder(BorderFactory.createEmptyBorder(8, 10, 8, 10));
+
+        table.setFont(Resources.font("Segoe UI", Font.PLAIN, 12));
+        table.setRowHeight(22);
+        table.setAutoCreateRowSorter(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(320);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getSelectionModel().addListSelectionListener(e -> showDetails());
+
+        details.setEditable(false);
+        details.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), new JScrollPane(details));
+        split.setResizeWeight(0.5);
+
+        JButton refreshButton = new JButton("Refresh");
+        refreshButton.addActionListener(e -> refresh());
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            watchdog.reset();
+            refresh();
+        });
+        JButton saveButton = new JButton("Save Report...");
+        saveButton.addActionListener(e -> saveReport());
+        JButton closeButton = new JButton("Close");
+        closeButton.addActionListener(e -> dispose());
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttons.add(refreshButton);
+        buttons.add(resetButton);
+        buttons.add(saveButton);
+        buttons.add(closeButton);
+
+        add(summary, BorderLayout.NORTH);
+        add(split, BorderLayout.CENTER);
+        add(buttons, BorderLayout.SOUTH);
+        refresh();
+    }
+
+    private void refresh() {
+        summary.setText(watchdog.summary());
+        tableModel.setHandlers(watchdog.getHandlers());
+        if (tableModel.getRowCount() > 0) {
+            table.setRowSelectionInterval(0, 0);
+        }
+        showDetails();
+    }
+
+    private void showDetails() {
+        int row = table.getSelectedRow();
+        if (row < 0) {
+            details.setText(tableModel.getRowCount() == 0 ? "No stalls so far." : "");
+            return;
+        }
+        EdtWatchdog.Handler handler = tableModel.handlers.get(table.convertRowIndexToModel(row));
+        details.setText(handler.name + "\n" + EdtWatchdog.details(handler));
+        details.setCaretPosition(0);
+    }
+
+    private void saveReport() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("flowstate-stalls.txt"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        try {
+            watchdog.writeReport(chooser.getSelectedFile().toPath());
+        } catch (IOException e) {
+            System.out.println("Error saving stall report: " + e.getMessage());
+            JOptionPane.showMessageDialog(this, "Could not save the report: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // One row per handler: counts, then one column per histogram bucket
+    private static class HandlerTableModel extends AbstractTableModel {
+        private List<EdtWatchdog.Handler> handlers = List.of();
+
+        void setHandlers(List<EdtWatchdog.Handler> handlers) {
+            this.handlers = handlers;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return handlers.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return FIXED_COLUMNS.length + EdtWatchdog.BUCKET_MILLIS.length + 1;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return column < FIXED_COLUMNS.length ? FIXED_COLUMNS[column] : EdtWatchdog.bucketName(column - FIXED_COLUMNS.length);
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? String.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            EdtWatchdog.Handler handler = handlers.get(row);
+            switch (column) {
+                case 0: return handler.name;
+                case 1: return (long) handler.count;
+                case 2: return TimeUnit.NANOSECONDS.toMillis(handler.totalNanos);
+                case 3: return TimeUnit.NANOSECONDS.toMillis(handler.maxNanos);
+                default: return (long) handler.buckets[column - FIXED_COLUMNS.length];
+            }
+        }
+    }
+}
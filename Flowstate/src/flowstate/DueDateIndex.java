@@ -0,0 +1,145 @@
+package flowstate;
+
+import java.util.*;
+
+// Open tasks that have a due date, sorted by day, across every loaded tab.
+// Like TaskDatabase's byDueDate, each entry packs (day, task id) into one
+// long, so a day range is a subSet walk: O(log n + k).
+//
+// Every loaded task has an entry (it also answers "which tab is this in"),
+// but only open tasks with a date are in byDay. refile() moves a task in or
+// out after its date or completed flag changed.
+//
+// perDay counts the open and completed tasks due on each day, adjusted by the
+// same refile()/remove() calls, so a month of counts is a few lookups
+// whatever the number of tasks.
+class DueDateIndex {
+    private static class Entry {
+        final Task task;
+        String tab;
+        int day = DueDates.NO_DATE; // as filed in byDay
+        // as counted in perDay
+        int countedDay = DueDates.NO_DATE;
+        boolean countedDone;
+
+        Entry(Task task) {
+            this.task = task;
+        }
+    }
+
+    private final NavigableSet<Long> byDay = new TreeSet<>();
+    private final IntMap<Entry> entries = new IntMap<>();
+    // Epoch day -> {open, completed}; days with neither have no entry
+    private final IntMap<int[]> perDay = new IntMap<>();
+
+    void put(String tab, Task task) {
+        Entry entry = entries.get(task.getId());
+        if (entry == null) {
+            entry = new Entry(task);
+            entries.put(task.getId(), entry);
+        }
+        entry.tab = tab;
+        refile(entry);
+    }
+
+    void putAll(String tab, List<Task> tasks) {
+        for (Task task : tasks) {
+            put(tab, task);
+        }
+    }
+
+    // Ignores tasks the index hasn't seen
+    void refile(Task task) {
+        Entry entry = entries.get(task.getId());
+        if (entry != null) {
+            refile(entry);
+        }
+    }
+
+    private void refile(Entry entry) {
+        Task task = entry.task;
+        int dueDay = task.hasDueDate() ? task.getDueDay() : DueDates.NO_DATE;
+        if (dueDay != entry.countedDay || task.isCompleted() != entry.countedDone) {
+            count(entry.countedDay, entry.countedDone, -1);
+            count(dueDay, task.isCompleted(), 1);
+            entry.countedDay = dueDay;
+            entry.countedDone = task.isCompleted();
+        }
+        int day = !task.isCompleted() && task.hasDueDate() ? task.getDueDay() : DueDates.NO_DATE;
+        if (day == entry.day) return;
+        if (entry.day != DueDates.NO_DATE) {
+            byDay.remove(pack(entry.day, task.getId()));
+        }
+        if (day != DueDates.NO_DATE) {
+            byDay.add(pack(day, task.getId()));
+        }
+        entry.day = day;
+    }
+
+    void remove(Task task) {
+        Entry entry = entries.remove(task.getId());
+        if (entry == null) return;
+        if (entry.day != DueDates.NO_DATE) {
+            byDay.remove(pack(entry.day, task.getId()));
+        }
+        count(entry.countedDay, entry.countedDone, -1);
+    }
+
+    private void count(int day, boolean done, int delta) {
+        if (day == DueDates.NO_DATE) return;
+        int[] counts = perDay.get(day);
+        if (counts == null) {
+            counts = new int[2];
+            perDay.put(day, counts);
+        }
+        counts[done ? 1 : 0] += delta;
+        if (counts[0] == 0 && counts[1] == 0) {
+            perDay.remove(day);
+        }
+    }
+
+    void renameTab(String oldName, List<Task> tasks, String newName) {
+        for (Task task : tasks) {
+            Entry entry = entries.get(task.getId());
+            if (entry != null && entry.tab.equals(oldName)) {
+                entry.tab = newName;
+            }
+        }
+    }
+
+    void removeTab(List<Task> tasks) {
+        for (Task task : tasks) {
+            remove(task);
+        }
+    }
+
+    // null for tasks that aren't loaded
+    String tabOf(Task task) {
+        Entry entry = entries.get(task.getId());
+        return entry != null ? entry.tab : null;
+    }
+
+    // Open tasks due in [fromDay, toDay], earliest first
+    List<Task> range(int fromDay, int toDay) {
+        List<Task> tasks = new ArrayList<>();
+        if (fromDay > toDay) return tasks;
+        for (long key : byDay.subSet(pack(fromDay, 0), true, pack(toDay, 0xFFFFFFFFL), true)) {
+            tasks.add(entries.get((int) key).task);
+        }
+        return tasks;
+    }
+
+    // Tasks due on each day from fromDay on: open[i] and done[i] for day fromDay + i
+    void countDays(int fromDay, int[] open, int[] done) {
+        for (int i = 0; i < open.length; i++) {
+            int[] counts = perDay.get(fromDay + i);
+            open[i] = counts != null ? counts[0] : 0;
+            done[i] = counts != null ? counts[1] : 0;
+        }
+    }
+
+    // Day in the high half, id (as unsigned) in the low half
+    private static long pack(int day, long id) {
+        return ((long) day << 32) | (id & 0xFFFFFFFFL);
+    }
+}
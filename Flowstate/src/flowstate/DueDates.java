@@ -0,0 +1,39 @@
+package flowstate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+// Conversions between the "MM/dd/yyyy" due date strings and epoch days,
+// shared by the storage backends that keep dates as numbers.
+public final class DueDates {
+    public static final int NO_DATE = Integer.MIN_VALUE;
+    // Something was typed in but it isn't MM/dd/yyyy (the CLI accepts anything)
+    public static final int INVALID = Integer.MIN_VALUE + 1;
+    // Smallest value that is a real epoch day, for open-ended ranges
+    public static final int FIRST_DAY = Integer.MIN_VALUE + 2;
+
+    public static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
+    private DueDates() {
+    }
+
+    public static int parse(String dueDate) {
+        if (dueDate == null) return NO_DATE;
+        String d = dueDate.trim();
+        if (d.isEmpty() || d.equalsIgnoreCase("null")) return NO_DATE;
+        try {
+            return (int) LocalDate.parse(d, FORMAT).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return INVALID;
+        }
+    }
+
+    public static boolean isDate(int epochDay) {
+        return epochDay != NO_DATE && epochDay != INVALID;
+    }
+
+    public static String format(int epochDay) {
+        return isDate(epochDay) ? LocalDate.ofEpochDay(epochDay).format(FORMAT) : "";
+    }
+}
@@ -0,0 +1,407 @@
+package flowstate;
+
+import java.awt.*;
+import java.awt.event.InvocationEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.swing.AbstractButton;
+
+// Times every event the event thread dispatches and keeps a histogram of the
+// ones that take longer than flowstate.stallMillis (default 50, 0 turns it
+// off), per handler. While an event runs past that, a daemon thread samples
+// the event thread's stack every half threshold; the handler is the
+// outermost flowstate frame in the samples, e.g.
+//
+//   FlowStateGUI$7.focusLost
+//
+// or, for a stall that ended before it was sampled, the event itself. Events
+// that take less than the threshold cost two nanoTime() calls and a few
+// field writes, and the sampler sleeps until the running event could be
+// late (and while no event runs, until one starts), so it can stay on in
+// production. See DiagnosticsDialog.
+//
+// A handler that opens a modal dialog is timed up to the dialog: the events
+// the dialog's loop dispatches are timed on their own, and the time it waits
+// for input isn't a stall.
+final class EdtWatchdog extends EventQueue {
+    static final int STALL_MILLIS = Integer.getInteger("flowstate.stallMillis", 50);
+
+    // Upper bounds of the histogram buckets; the last one is everything longer
+    static final int[] BUCKET_MILLIS = {100, 250, 500, 1000, 2000};
+    private static final int MAX_SAMPLES = 50;
+    private static final int MAX_HANDLERS = 200;
+    private static final int MAX_HOT_FRAMES = 20;
+    private static final String OTHER = "(other handlers)";
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static EdtWatchdog instance;
+
+    private final long thresholdNanos;
+
+    // Event thread only
+    private AWTEvent current;
+    private long dispatched;
+    private long startedAt = System.currentTimeMillis();
+    // When the running event started, 0 if none is being timed; read by the sampler
+    private volatile long start;
+    private volatile Thread dispatchThread;
+    // Set before the sampler starts; idle while it's parked with no event running
+    private Thread sampler;
+    private volatile boolean idle;
+
+    // Guarded by this
+    private long sampledStart;
+    private final List<StackTraceElement[]> samples = new ArrayList<>();
+    private final Map<String, Handler> handlers = new HashMap<>();
+    private long stalls;
+
+    // What is known about the stalls in one handler
+    static final class Handler {
+        final String name;
+        final int[] buckets = new int[BUCKET_MILLIS.length + 1];
+        int count;
+        long totalNanos;
+        long maxNanos;
+        // Top frames of the samples, where the time went
+        final Map<String, Integer> hotFrames = new HashMap<>();
+        int sampleCount;
+        // The longest stall
+        String worstEvent;
+        StackTraceElement[] worstStack;
+
+        Handler(String name) {
+            this.name = name;
+        }
+
+        private Handler copy() {
+            Handler copy = new Handler(name);
+            System.arraycopy(buckets, 0, copy.buckets, 0, buckets.length);
+            copy.count = count;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            copy.hotFrames.putAll(hotFrames);
+            copy.sampleCount = sampleCount;
+            copy.worstEvent = worstEvent;
+            copy.worstStack = worstStack;
+            return copy;
+        }
+    }
+
+    private EdtWatchdog(int thresholdMillis) {
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    // Call once, before the UI is built. Does nothing if flowstate.stallMillis
+    // is 0 or less.
+    static synchronized void install() {
+        if (instance != null || STALL_MILLIS <= 0) return;
+        instance = new EdtWatchdog(STALL_MILLIS);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(instance);
+        Thread sampler = new Thread(instance::sample, "flowstate-edt-watchdog");
+        sampler.setDaemon(true);
+        instance.sampler = sampler;
+        sampler.start();
+    }
+
+    // null if not installed
+    static synchronized EdtWatchdog get() {
+        return instance;
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        AWTEvent outer = current;
+        long begin = System.nanoTime();
+        if (outer != null && start != 0) {
+            // A modal loop inside outer's handler; see the top
+            finished(outer, start, begin);
+        }
+        Thread thread = Thread.currentThread();
+        if (thread != dispatchThread) {
+            dispatchThread = thread;
+        }
+        current = event;
+        start = begin;
+        if (idle) {
+            LockSupport.unpark(sampler);
+        }
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            long began = start;
+            if (began != 0) {
+                finished(event, began, System.nanoTime());
+            }
+            current = outer;
+            start = 0;
+        }
+    }
+
+    private void finished(AWTEvent event, long began, long end) {
+        start = 0;
+        dispatched++;
+        if (end - began >= thresholdNanos) {
+            stalled(event, began, end - began);
+        }
+    }
+
+    // Event thread only
+    long getDispatched() {
+        return dispatched;
+    }
+
+    int getThresholdMillis() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    synchronized long getStalls() {
+        return stalls;
+    }
+
+    // Copies, longest total first
+    synchronized List<Handler> getHandlers() {
+        List<Handler> copies = new ArrayList<>(handlers.size());
+        for (Handler handler : handlers.values()) {
+            copies.add(handler.copy());
+        }
+        copies.sort((a, b) -> Long.compare(b.totalNanos, a.totalNanos));
+        return copies;
+    }
+
+    // Event thread only
+    synchronized void reset() {
+        handlers.clear();
+        stalls = 0;
+        dispatched = 0;
+        startedAt = System.currentTimeMillis();
+    }
+
+    private synchronized void stalled(AWTEvent event, long began, long nanos) {
+        List<StackTraceElement[]> stacks = sampledStart == began ? samples : List.of();
+        String name = handlerFrame(stacks);
+        String description = describe(event);
+        if (name == null) {
+            name = description;
+        }
+        Handler handler = handlers.get(name);
+        if (handler == null) {
+            if (handlers.size() >= MAX_HANDLERS) {
+                name = OTHER;
+                handler = handlers.get(OTHER);
+            }
+            if (handler == null) {
+                handler = new Handler(name);
+                handlers.put(name, handler);
+            }
+        }
+        stalls++;
+        handler.count++;
+        handler.totalNanos += nanos;
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BUCKET_MILLIS.length && millis >= BUCKET_MILLIS[bucket]) bucket++;
+        handler.buckets[bucket]++;
+        for (StackTraceElement[] stack : stacks) {
+            if (stack.length == 0) continue;
+            String top = frame(stack[0]);
+            if (handler.hotFrames.containsKey(top) || handler.hotFrames.size() < MAX_HOT_FRAMES) {
+                handler.hotFrames.merge(top, 1, Integer::sum);
+            }
+            handler.sampleCount++;
+        }
+        if (nanos > handler.maxNanos) {
+            handler.maxNanos = nanos;
+            handler.worstEvent = description;
+            handler.worstStack = stacks.isEmpty() ? null : stacks.get(0);
+        }
+        samples.clear();
+        sampledStart = 0;
+    }
+
+    // Sleeps until the running event reaches the threshold, then samples it
+    // every half threshold until it ends. With no event running it parks until
+    // dispatchEvent() starts one.
+    private void sample() {
+        long interval = Math.max(thresholdNanos / 2, TimeUnit.MILLISECONDS.toNanos(5));
+        while (true) {
+            long began = start;
+            if (began == 0) {
+                // start is checked again after idle is set, and dispatchEvent()
+                // checks idle after setting start, so a wakeup can't be missed
+                idle = true;
+                if (start == 0) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                // A burst of short events would wake it for each one; the one
+                // that woke it can't be late for another threshold anyway
+                LockSupport.parkNanos(interval);
+                continue;
+            }
+            long late = System.nanoTime() - began - thresholdNanos;
+            if (late < 0) {
+                LockSupport.parkNanos(-late);
+                continue;
+            }
+            Thread thread = dispatchThread;
+            StackTraceElement[] stack = thread != null ? thread.getStackTrace() : null;
+            if (stack != null) {
+                synchronized (this) {
+                    // Dropped if that event ended while the stack was taken
+                    if (start == began) {
+                        if (sampledStart != began) {
+                            samples.clear();
+                            sampledStart = began;
+                        }
+                        if (samples.size() < MAX_SAMPLES) {
+                            samples.add(stack);
+                        }
+                    }
+                }
+            }
+            LockSupport.parkNanos(interval);
+        }
+    }
+
+    // The flowstate method nearest the dispatch seen most often, or null
+    // without samples. Lines are left out so one handler is one entry.
+    private static String handlerFrame(List<StackTraceElement[]> stacks) {
+        Map<String, Integer> seen = new HashMap<>();
+        String best = null;
+        int bestCount = 0;
+        for (StackTraceElement[] stack : stacks) {
+            // Up from the innermost dispatch; below it is the handler that
+            // opened a modal dialog, if any
+            int dispatch = stack.length;
+            for (int i = 0; i < stack.length; i++) {
+                if (stack[i].getClassName().equals(EdtWatchdog.class.getName())) {
+                    dispatch = i;
+                    break;
+                }
+            }
+            for (int i = dispatch - 1; i >= 0; i--) {
+                String className = stack[i].getClassName();
+                // Lambda classes are named per run; their lambda$ method is the next frame up
+                if (className.startsWith("flowstate.") && !className.contains("$$Lambda")) {
+                    String name = className.substring(className.lastIndexOf('.') + 1) + "." + stack[i].getMethodName();
+                    int count = seen.merge(name, 1, Integer::sum);
+                    if (count > bestCount) {
+                        best = name;
+                        bestCount = count;
+                    }
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static String frame(StackTraceElement element) {
+        String className = element.getClassName();
+        String name = className.substring(className.lastIndexOf('.') + 1) + "." + element.getMethodName();
+        return element.getLineNumber() > 0 ? name + " (" + element.getFileName() + ":" + element.getLineNumber() + ")" : name;
+    }
+
+    // e.g. "FOCUS_LOST on JTextField", "ACTION_PERFORMED on JButton "Calendar"",
+    // "invokeLater MonthGrid lambda"
+    private static String describe(AWTEvent event) {
+        String params = event.paramString();
+        if (event instanceof InvocationEvent) {
+            int at = params.indexOf("runnable=");
+            if (at < 0) return "invokeLater";
+            int end = params.indexOf(",notifier=", at);
+            String runnable = params.substring(at + "runnable=".length(), end < 0 ? params.length() : end);
+            int lambda = runnable.indexOf("$$Lambda");
+            if (lambda >= 0) {
+                runnable = runnable.substring(0, lambda) + " lambda";
+            } else if (runnable.indexOf('@') >= 0) {
+                runnable = runnable.substring(0, runnable.indexOf('@'));
+            }
+            return "invokeLater " + runnable.substring(runnable.lastIndexOf('.') + 1);
+        }
+        int comma = params.indexOf(',');
+        String id = comma < 0 ? params : params.substring(0, comma);
+        Object source = event.getSource();
+        if (source == null) return id;
+        Class<?> type = source.getClass();
+        while (type.isAnonymousClass()) type = type.getSuperclass();
+        String description = id + " on " + type.getSimpleName();
+        if (source instanceof AbstractButton) {
+            String text = ((AbstractButton) source).getText();
+            if (text != null && !text.isEmpty()) {
+                description += " \"" + text + "\"";
+            }
+        }
+        return description;
+    }
+
+    // Plain text, for attaching to bug reports. Event thread only.
+    String report() {
+        StringBuilder out = new StringBuilder(summary()).append('\n');
+        for (Handler handler : getHandlers()) {
+            out.append('\n').append(handler.name).append('\n').append(details(handler));
+        }
+        return out.toString();
+    }
+
+    // Event thread only
+    String summary() {
+        return "FlowState event thread stalls (over " + getThresholdMillis() + " ms)\n"
+                + "Since " + format(startedAt) + ", written " + format(System.currentTimeMillis()) + "\n"
+                + String.format("%,d events dispatched, %,d stalls", dispatched, getStalls());
+    }
+
+    // Histogram, hot frames and the longest stall's stack, indented
+    static String details(Handler handler) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("  %,d stalls, %,d ms total, %,d ms max, %,d ms average%n", handler.count,
+                TimeUnit.NANOSECONDS.toMillis(handler.totalNanos), TimeUnit.NANOSECONDS.toMillis(handler.maxNanos),
+                TimeUnit.NANOSECONDS.toMillis(handler.totalNanos / handler.count)));
+        out.append("  ");
+        for (int i = 0; i < handler.buckets.length; i++) {
+            out.append(bucketName(i)).append(": ").append(handler.buckets[i]).append(i + 1 < handler.buckets.length ? ", " : "\n");
+        }
+        if (handler.sampleCount > 0) {
+            out.append("  Hot frames (").append(handler.sampleCount).append(" samples):\n");
+            handler.hotFrames.entrySet().stream()
+                    .sorted((a, b) -> b.getValue() - a.getValue())
+                    .forEach(e -> out.append(String.format("    %4d  %s%n", e.getValue(), e.getKey())));
+        }
+        out.append("  Longest: ").append(handler.worstEvent).append('\n');
+        if (handler.worstStack != null) {
+            for (StackTraceElement element : handler.worstStack) {
+                out.append("    at ").append(element).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    void writeReport(Path file) throws IOException {
+        Files.write(file, report().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String bucketName(int bucket) {
+        if (bucket == BUCKET_MILLIS.length) return ">" + millisName(BUCKET_MILLIS[bucket - 1]);
+        return "<" + millisName(BUCKET_MILLIS[bucket]);
+    }
+
+    private static String millisName(int millis) {
+        return millis >= 1000 ? millis / 1000 + " s" : millis + " ms";
+    }
+
+    private static String format(long millis) {
+        return TIME_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()));
+    }
+}
@@ -1,83 +1,534 @@
 package flowstate;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 
 public class FileStorage implements Storage {
-    private static final String FILE_NAME = "tasks.txt";
+    static final String FILE_NAME = "tasks.txt";
+    private static final String GENERATION_HEADER = "#generation ";
 
+    // Held while tasks.txt is replaced and while tab ranges are read from it
+    static final Object SNAPSHOT_LOCK = new Object();
+
+    private TaskJournal journal;
+
+    // The caller's tab map from the last load/save, and where each task id sits in it
+    private Map<String, ArrayList<Task>> model;
+    private final TaskPositions positions = new TaskPositions();
+    private boolean dirty;
+    private int batchDepth;
+
+    // Lazy mode: tabs whose rows are still only on disk, with their byte range
+    // (null range = index unavailable, fall back to scanning the file)
+    private final Map<String, TabIndex.Entry> unloadedTabs = new HashMap<>();
+
+    public FileStorage() {
+        this(false);
+    }
+
+    public FileStorage(boolean journaled) {
+        this(journaled, AutoSaveService.DEFAULT_QUIET_MILLIS);
+    }
+
+    // Journaled storage appends every change to tasks.journal.* and folds it
+    // into tasks.txt in the background (see TaskJournal). Appends are batched
+    // on a writer thread after quietMillis without new edits.
+    public FileStorage(boolean journaled, long quietMillis) {
+        if (journaled) {
+            journal = new TaskJournal(FILE_NAME, quietMillis, this::remapUnloadedTabs);
+        }
+    }
+
+    // The CLI works on the General tab
     @Override
     public void saveData(ArrayList<Task> tasks) {
-        // This method is kept for backward compatibility but not used
-        // Use saveDataByTabs instead
+        Map<String, ArrayList<Task>> tabTasks = model != null ? model : loadDataByTabs();
+        for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+            if (entry.getValue() == null) {
+                entry.setValue(loadTab(entry.getKey()));
+            }
+        }
+        tabTasks.put("General", tasks);
+        saveDataByTabs(tabTasks);
     }
 
+    @Override
     public void saveDataByTabs(Map<String, ArrayList<Task>> tabTasks) {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FILE_NAME))) {
-            for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
-                String tabName = entry.getKey();
-                ArrayList<Task> tasks = entry.getValue();
-                for (Task task : tasks) {
-                    String safeDue = task.getDueDate() == null ? "" : task.getDueDate();
-                    writer.println(tabName + "|" + task.getTitle() + "," + task.getDescription() + "," +
-                                   safeDue + "," + task.getPriority() + "," +
-                                   task.isCompleted());
-                }
+        model = tabTasks;
+        positions.loadAll(tabTasks);
+        dirty = false;
+        if (journal == null) {
+            if (writeSnapshot(FILE_NAME, tabTasks, 0)) {
+                System.out.println("Tasks saved successfully!");
             }
+            return;
+        }
+        if (tabTasks.containsValue(null)) {
+            // Some tabs were never loaded; snapshot + journal already hold
+            // everything, so just flush and leave folding to the compactor
+            journal.getAutoSave().flush();
+            return;
+        }
+        // Full save folds everything into a new snapshot and drops the journal
+        if (journal.writeFullSnapshot(tabTasks)) {
             System.out.println("Tasks saved successfully!");
-        } catch (IOException e) {
-            System.out.println("Error saving tasks: " + e.getMessage());
         }
     }
 
+    // Journaled: each change becomes one positional journal record, written
+    // by the autosave thread. Otherwise the whole model is rewritten after
+    // each change (or batch), like the old full saves.
+
+    @Override
+    public void insertTask(String tab, int index, Task task) {
+        if (journal != null) {
+            if (index >= positions.size(tab)) {
+                journal.recordAdd(tab, task);
+            } else {
+                journal.recordInsert(tab, index, task);
+            }
+        }
+        positions.insert(tab, index, task.getId());
+        changed();
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        String tab = positions.tabOf(task.getId());
+        if (tab == null) return;
+        if (journal != null) journal.recordUpdate(tab, positions.indexOf(task.getId()), task);
+        changed();
+    }
+
+    @Override
+    public void deleteTask(Task task) {
+        String tab = positions.tabOf(task.getId());
+        int index = positions.remove(task.getId());
+        if (index < 0) return;
+        if (journal != null) journal.recordDelete(tab, index);
+        changed();
+    }
+
+    @Override
+    public void moveTask(Task task, String toTab, int toIndex) {
+        String fromTab = positions.tabOf(task.getId());
+        int fromIndex = positions.remove(task.getId());
+        if (fromIndex < 0) return;
+        positions.insert(toTab, toIndex, task.getId());
+        if (journal != null) journal.recordMove(fromTab, fromIndex, toTab, toIndex);
+        changed();
+    }
+
+    @Override
+    public void createTab(String tab) {
+        if (journal != null) journal.recordCreateTab(tab);
+        changed();
+    }
+
+    @Override
+    public void renameTab(String oldName, String newName) {
+        positions.renameTab(oldName, newName);
+        if (journal != null) journal.recordRenameTab(oldName, newName);
+        changed();
+    }
+
+    @Override
+    public void deleteTab(String tab) {
+        synchronized (SNAPSHOT_LOCK) {
+            unloadedTabs.remove(tab);
+        }
+        positions.deleteTab(tab);
+        if (journal != null) journal.recordDeleteTab(tab);
+        changed();
+    }
+
+    @Override
+    public void beginBatch() {
+        batchDepth++;
+        if (journal != null) journal.beginBatch();
+    }
+
+    @Override
+    public void endBatch() {
+        if (journal != null) journal.endBatch();
+        if (batchDepth > 0 && --batchDepth == 0 && dirty) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (journal != null) {
+            journal.getAutoSave().flush();
+            return;
+        }
+        if (!dirty || model == null) return;
+        for (Map.Entry<String, ArrayList<Task>> entry : model.entrySet()) {
+            if (entry.getValue() == null) {
+                entry.setValue(loadTab(entry.getKey()));
+            }
+        }
+        if (writeSnapshot(FILE_NAME, model, 0)) {
+            dirty = false;
+        }
+    }
+
+    private void changed() {
+        if (journal != null) return;
+        dirty = true;
+        if (batchDepth == 0) {
+            flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (journal != null) {
+            journal.close();
+        } else {
+            flush();
+        }
+    }
+
+    // null when not journaled
+    public AutoSaveService getAutoSave() {
+        return journal != null ? journal.getAutoSave() : null;
+    }
+
+    // Untabbed rows from old files followed by the General tab, which is
+    // what saveData() writes back
     @Override
     public ArrayList<Task> loadData() {
         ArrayList<Task> tasks = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_NAME))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] data = line.split(",");
-                if (data.length == 5) {
-                    Task task = new Task(data[0], data[1], data[2], data[3]);
-                    task.setCompleted(Boolean.parseBoolean(data[4]));
-                    tasks.add(task);
-                }
+        Map<String, ArrayList<Task>> tabTasks = new LinkedHashMap<>();
+        long generation = readSnapshot(FILE_NAME, tabTasks, tasks);
+        TaskJournal.replayPending(FILE_NAME, generation, tabTasks);
+        tasks.addAll(tabTasks.getOrDefault("General", new ArrayList<>()));
+        System.out.println("Tasks loaded successfully!");
+        return tasks;
+    }
+
+    @Override
+    public Map<String, ArrayList<Task>> loadDataByTabs() {
+        return loadAll(null);
+    }
+
+    private Map<String, ArrayList<Task>> loadAll(LoadBatcher batches) {
+        Map<String, ArrayList<Task>> tabTasks = defaultTabs();
+        if (batches != null) {
+            batches.tabs(tabTasks.keySet());
+        }
+        long generation = readSnapshot(FILE_NAME, tabTasks, null, rowBatches(batches));
+        if (journal != null) {
+            journal.open(generation, tabTasks, null);
+        } else {
+            TaskJournal.replayPending(FILE_NAME, generation, tabTasks);
+        }
+        model = tabTasks;
+        positions.loadAll(tabTasks);
+        System.out.println("Tasks loaded successfully by tabs!");
+        return tabTasks;
+    }
+
+    // Lazy variant: only visibleTab (and tabs with pending journal records) are
+    // read now; every other tab maps to null until loadTab() is called for it.
+    // Falls back to a full load when tasks.txt has no usable index.
+    @Override
+    public Map<String, ArrayList<Task>> loadDataByTabs(String visibleTab) {
+        return loadLazily(visibleTab, null);
+    }
+
+    // Rows go to progress in batches as tasks.txt is parsed
+    @Override
+    public Map<String, ArrayList<Task>> loadDataByTabs(String visibleTab, LoadListener progress) {
+        return loadLazily(visibleTab, new LoadBatcher(progress));
+    }
+
+    private Map<String, ArrayList<Task>> loadLazily(String visibleTab, LoadBatcher batches) {
+        Map<String, ArrayList<Task>> tabTasks = defaultTabs();
+        TabIndex index;
+        synchronized (SNAPSHOT_LOCK) {
+            index = TabIndex.read(FILE_NAME);
+            if (index == null) {
+                return loadAll(batches);
             }
-            System.out.println("Tasks loaded successfully!");
-        } catch (IOException e) {
-            System.out.println("No existing tasks found, starting fresh.");
+            for (TabIndex.Entry entry : index.entries.values()) {
+                tabTasks.put(entry.tab, null);
+                unloadedTabs.put(entry.tab, entry);
+            }
+        }
+        if (batches != null) {
+            batches.tabs(tabTasks.keySet());
+        }
+        if (tabTasks.containsKey(visibleTab) && tabTasks.get(visibleTab) == null) {
+            ArrayList<Task> tasks = readUnloadedTab(visibleTab, rowBatches(batches));
+            positions.loadTab(visibleTab, tasks);
+            tabTasks.put(visibleTab, tasks);
+        }
+        if (journal != null) {
+            journal.open(index.generation, tabTasks, this::loadTab);
         }
+        synchronized (SNAPSHOT_LOCK) {
+            // Replay may have loaded or deleted some tabs
+            unloadedTabs.keySet().removeIf(tab -> !tabTasks.containsKey(tab) || tabTasks.get(tab) != null);
+        }
+        model = tabTasks;
+        positions.loadAll(tabTasks);
+        System.out.println("Tasks loaded successfully by tabs! (" + unloadedTabs.size() + " tabs deferred)");
+        return tabTasks;
+    }
+
+    // Rows are only shown early when no journal record can change them
+    // afterwards; tab names still are
+    private static LoadBatcher rowBatches(LoadBatcher batches) {
+        return batches != null && !TaskJournal.hasRecords(FILE_NAME) ? batches : null;
+    }
+
+    @Override
+    public ArrayList<Task> loadTab(String tab) {
+        ArrayList<Task> tasks = readUnloadedTab(tab, null);
+        positions.loadTab(tab, tasks);
         return tasks;
     }
 
-    public Map<String, ArrayList<Task>> loadDataByTabs() {
+    private ArrayList<Task> readUnloadedTab(String tab, LoadBatcher batches) {
+        synchronized (SNAPSHOT_LOCK) {
+            if (!unloadedTabs.containsKey(tab)) {
+                return new ArrayList<>();
+            }
+            TabIndex.Entry range = unloadedTabs.remove(tab);
+            if (range != null) {
+                try {
+                    return TabIndex.readRange(FILE_NAME, range, batches);
+                } catch (IOException e) {
+                    // fall through to a full scan (a caller showing batches
+                    // early gets the final rows when the load returns)
+                }
+            }
+            Map<String, ArrayList<Task>> all = new HashMap<>();
+            readSnapshot(FILE_NAME, all);
+            return all.getOrDefault(tab, new ArrayList<>());
+        }
+    }
+
+    @Override
+    public int getUnloadedTaskCount(String tab) {
+        synchronized (SNAPSHOT_LOCK) {
+            if (!unloadedTabs.containsKey(tab)) {
+                return -1;
+            }
+            TabIndex.Entry range = unloadedTabs.get(tab);
+            return range != null ? range.count : 0;
+        }
+    }
+
+    @Override
+    public int getUnloadedCompletedCount(String tab) {
+        synchronized (SNAPSHOT_LOCK) {
+            if (!unloadedTabs.containsKey(tab)) {
+                return -1;
+            }
+            TabIndex.Entry range = unloadedTabs.get(tab);
+            return range != null ? range.completed : -1;
+        }
+    }
+
+    // Runs under SNAPSHOT_LOCK once the compactor has replaced tasks.txt.
+    // Unloaded tabs never have journal records (any record loads the tab
+    // first), so their rows are unchanged; only their offsets move.
+    private void remapUnloadedTabs() {
+        if (unloadedTabs.isEmpty()) return;
+        TabIndex index = TabIndex.read(FILE_NAME);
+        for (Map.Entry<String, TabIndex.Entry> entry : unloadedTabs.entrySet()) {
+            entry.setValue(index != null ? index.entries.get(entry.getKey()) : null);
+        }
+    }
+
+    // Snapshot plus any journal records not folded in yet, without touching the files
+    static Map<String, ArrayList<Task>> readTextFile(String fileName) {
+        Map<String, ArrayList<Task>> tabTasks = defaultTabs();
+        long generation = readSnapshot(fileName, tabTasks);
+        TaskJournal.replayPending(fileName, generation, tabTasks);
+        return tabTasks;
+    }
+
+    static Map<String, ArrayList<Task>> defaultTabs() {
         Map<String, ArrayList<Task>> tabTasks = new LinkedHashMap<>();
         tabTasks.put("Personal", new ArrayList<>());
         tabTasks.put("Work", new ArrayList<>());
         tabTasks.put("General", new ArrayList<>());
+        return tabTasks;
+    }
+
+    // Reads tab-prefixed rows into tabTasks and returns the snapshot generation
+    // (0 for files written before the journal existed).
+    static long readSnapshot(String fileName, Map<String, ArrayList<Task>> tabTasks) {
+        return readSnapshot(fileName, tabTasks, null);
+    }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(FILE_NAME))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.contains("|")) {
-                    String[] parts = line.split("\\|", 2);
-                    String tabName = parts[0];
-                    String[] data = parts[1].split(",");
-                    
-                    if (data.length == 5) {
-                        Task task = new Task(data[0], data[1], data[2], data[3]);
-                        task.setCompleted(Boolean.parseBoolean(data[4]));
-                        
-                        if (!tabTasks.containsKey(tabName)) {
-                            tabTasks.put(tabName, new ArrayList<>());
-                        }
-                        tabTasks.get(tabName).add(task);
+    // untabbed collects rows from the old CLI format; pass null to skip them
+    static long readSnapshot(String fileName, Map<String, ArrayList<Task>> tabTasks, ArrayList<Task> untabbed) {
+        return readSnapshot(fileName, tabTasks, untabbed, null);
+    }
+
+    // batches (may be null) is told about each row as it's read
+    static long readSnapshot(String fileName, Map<String, ArrayList<Task>> tabTasks, ArrayList<Task> untabbed,
+            LoadBatcher batches) {
+        long generation = 0;
+        try (Reader in = openReader(fileName)) {
+            TaskLineTokenizer tokenizer = new TaskLineTokenizer(in);
+            // Only files that start with the header were written escaped; older
+            // ones are read as they are
+            tokenizer.setEscaped(false);
+            boolean firstLine = true;
+            String tabName = null;
+            ArrayList<Task> tasks = null;
+            while (tokenizer.next()) {
+                if (tokenizer.fieldCount() == 1) {
+                    String line = tokenizer.field(0);
+                    if (firstLine && line.startsWith(GENERATION_HEADER)) {
+                        generation = Long.parseLong(line.substring(GENERATION_HEADER.length()).trim());
+                        tokenizer.setEscaped(true);
+                    }
+                    firstLine = false;
+                    continue;
+                }
+                firstLine = false;
+                if (tokenizer.separatorAfter(0) != '|') {
+                    Task task = untabbed != null ? readTask(tokenizer, 0) : null;
+                    if (task != null) {
+                        untabbed.add(task);
+                    }
+                    continue;
+                }
+                // Rows of a tab are contiguous, so this rarely has to allocate or look up
+                if (tasks == null || !tokenizer.fieldIs(0, tabName)) {
+                    tabName = tokenizer.field(0);
+                    tasks = tabTasks.computeIfAbsent(tabName, k -> new ArrayList<>());
+                }
+                Task task = readTask(tokenizer, 1);
+                if (task != null) {
+                    tasks.add(task);
+                    if (batches != null) {
+                        batches.added(tabName, tasks);
                     }
                 }
             }
-            System.out.println("Tasks loaded successfully by tabs!");
-        } catch (IOException e) {
+        } catch (IOException | NumberFormatException e) {
             System.out.println("No existing tasks found, starting fresh.");
         }
-        return tabTasks;
+        if (batches != null) {
+            batches.flush();
+        }
+        return generation;
+    }
+
+    static Reader openReader(String fileName) throws IOException {
+        return new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8);
+    }
+
+    static boolean writeSnapshot(String fileName, Map<String, ArrayList<Task>> tabTasks, long generation) {
+        return writeSnapshot(fileName, tabTasks, generation, null);
+    }
+
+    // Writes to a temp file first so a crash never leaves a half-written tasks.txt.
+    // Byte ranges per tab are tracked on the way and saved as the tab index.
+    // afterCommit runs under SNAPSHOT_LOCK right after the new file is in place.
+    static boolean writeSnapshot(String fileName, Map<String, ArrayList<Task>> tabTasks, long generation,
+            Runnable afterCommit) {
+        File target = new File(fileName).getAbsoluteFile();
+        File temp = new File(target.getPath() + ".tmp");
+        byte[] newline = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        List<TabIndex.Entry> ranges = new ArrayList<>();
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(temp), 1 << 16)) {
+            // No '|' in the header, so older versions simply skip this line
+            byte[] header = (GENERATION_HEADER + generation).getBytes(StandardCharsets.UTF_8);
+            out.write(header);
+            out.write(newline);
+            long offset = header.length + newline.length;
+            for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+                String tabName = entry.getKey();
+                String escapedTab = TaskLineTokenizer.escape(tabName);
+                long start = offset;
+                int completed = 0;
+                for (Task task : entry.getValue()) {
+                    byte[] line = formatRow(escapedTab, task).getBytes(StandardCharsets.UTF_8);
+                    out.write(line);
+                    out.write(newline);
+                    offset += line.length + newline.length;
+                    if (task.isCompleted()) completed++;
+                }
+                if (!entry.getValue().isEmpty()) {
+                    ranges.add(new TabIndex.Entry(tabName, start, offset - start, entry.getValue().size(), completed));
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving tasks: " + e.getMessage());
+            return false;
+        }
+        synchronized (SNAPSHOT_LOCK) {
+            try {
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                try {
+                    Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e2) {
+                    System.out.println("Error saving tasks: " + e2.getMessage());
+                    return false;
+                }
+            }
+            TabIndex.write(fileName, generation, ranges);
+            if (afterCommit != null) {
+                afterCommit.run();
+            }
+        }
+        return true;
+    }
+
+    private static final String[] PRIORITIES = {"Low", "Medium", "High"};
+
+    // title,description,due,priority,completed with '|', ',', '\\' and line breaks escaped
+    static String formatTask(Task task) {
+        StringBuilder sb = new StringBuilder(64);
+        appendTask(sb, task);
+        return sb.toString();
+    }
+
+    private static String formatRow(String escapedTab, Task task) {
+        StringBuilder sb = new StringBuilder(escapedTab.length() + 64);
+        sb.append(escapedTab).append('|');
+        appendTask(sb, task);
+        return sb.toString();
+    }
+
+    private static void appendTask(StringBuilder sb, Task task) {
+        TaskLineTokenizer.appendEscaped(sb, String.valueOf(task.getTitle()));
+        sb.append(',');
+        TaskLineTokenizer.appendEscaped(sb, String.valueOf(task.getDescription()));
+        sb.append(',');
+        TaskLineTokenizer.appendEscaped(sb, task.getDueDate() == null ? "" : task.getDueDate());
+        sb.append(',');
+        TaskLineTokenizer.appendEscaped(sb, String.valueOf(task.getPriority()));
+        sb.append(',');
+        sb.append(task.isCompleted());
+    }
+
+    // Builds a task from the fields starting at 'from'. Files written before
+    // escaping existed may have extra fields from commas in the description;
+    // those are joined back instead of dropping the row.
+    static Task readTask(TaskLineTokenizer tokenizer, int from) {
+        int end = tokenizer.fieldCount();
+        if (end - from < 5) {
+            return null;
+        }
+        String title = tokenizer.field(from);
+        String description = end - from == 5 ? tokenizer.pooledField(from + 1) : tokenizer.join(from + 1, end - 3);
+        String dueDate = tokenizer.field(end - 3, "");
+        String priority = tokenizer.field(end - 2, PRIORITIES);
+        Task task = new Task(title, description, dueDate, priority);
+        task.setCompleted(tokenizer.fieldIsIgnoreCase(end - 1, "true"));
+        return task;
     }
 }
\ No newline at end of file
@@ -6,18 +6,25 @@ import java.awt.event.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import javax.swing.Timer;
 
 public class FlowStateGUI extends JFrame {
 
+    // null until the background load in loadTasks() finishes
     private TaskManager manager;
-    private DefaultListModel<String> taskListModel;
-    private JList<String> taskList;
+    // Rows read straight from the tasks; text is only built for painted rows
+    private TaskListModel taskListModel;
+    private JList<Object> taskList;
+    private TaskRenderer taskRenderer;
+    // Repaints overdue / due-today status when the date changes
+    private DayRollover dayRollover;
     
     // Tab management
-    private Map<String, ArrayList<Task>> tabTasks;
     private String currentTab = "General";
     private JPanel tabPanel;
     private Map<String, JButton> tabButtons;
@@ -30,8 +37,23 @@ public class FlowStateGUI extends JFrame {
     private JLabel toastLabel;
     private JLabel titleLabel;
     private JButton addTabButton;
+    private JButton agendaButton;
+    // The list shows open tasks from every tab by due date instead of currentTab
+    private boolean agendaVisible = false;
+    private JTextField searchField;
+    // Non-null while the list shows search results from every tab
+    private String searchQuery;
+    private Timer searchTimer;
+    private JButton viewsButton;
+    private JButton calendarButton;
+    // Non-null while the list shows a saved view (see TaskQuery.savedViews)
+    private TaskQuery activeView;
+    private String activeViewName;
+    // Set while the tabs deferred at startup are read for a cross-tab list
+    private boolean loadingAllTabs;
 
     private Timer toastTimer;
+    private DiagnosticsDialog diagnosticsDialog;
     
     // Right panel components
     private JLabel selectedTaskTitle;
@@ -41,19 +63,15 @@ public class FlowStateGUI extends JFrame {
     private JComboBox<String> priorityBox;
     private JCheckBox completedCheckbox;
     private Task currentSelectedTask;
-    private int currentSelectedIndex = -1;
+    // Set while updateRightPanel() fills in the editors, so their listeners
+    // don't take it for an edit
+    private boolean updatingPanel;
     private JPanel calendarPanelContainer;
     private boolean calendarVisible = false;
-    private boolean completedTasksVisible = true;
 
     public FlowStateGUI() {
-        Storage storage = new FileStorage();
-        manager = new TaskManager(storage);
-
         // Initialize tab system
-        tabTasks = new HashMap<>();
         tabButtons = new HashMap<>();
-        initializeTabs();
 
         setTitle("FlowState - Task Management");
         setSize(1400, 800);
@@ -61,7 +79,13 @@ public class FlowStateGUI extends JFrame {
         setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         setResizable(true);
 
-        mainContainer = new JPanel(new BorderLayout());
+        mainContainer = new JPanel(new BorderLayout()) {
+            @Override
+            public void paint(Graphics g) {
+                super.paint(g);
+                StartupTimeline.firstPaint();
+            }
+        };
         
         // Top bar
         JPanel topBar = createTopBar();
@@ -79,8 +103,18 @@ public class FlowStateGUI extends JFrame {
         // Create wrapper for task list with hint label at bottom
         JPanel taskListWrapper = new JPanel(new BorderLayout());
         taskListWrapper.add(scrollPane, BorderLayout.CENTER);
-        JLabel hintLabel = new JLabel("Right-click to add task");
-        hintLabel.setFont(new Font("Segoe UI", Font.ITALIC, 12));
+        JLabel hintLabel = new JLabel("Right-click to add task") {
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                // Autosave stats, computed only when the tooltip is shown
+                if (manager == null) return null;
+                Storage storage = manager.getStorage();
+                AutoSaveService autoSave = storage instanceof FileStorage ? ((FileStorage) storage).getAutoSave() : null;
+                return autoSave != null ? autoSave.getStatus() : null;
+            }
+        };
+        hintLabel.setToolTipText("");
+        hintLabel.setFont(Resources.font("Segoe UI", Font.ITALIC, 12));
         hintLabel.setForeground(new Color(150, 150, 150));
         hintLabel.setHorizontalAlignment(SwingConstants.CENTER);
         hintLabel.setBorder(BorderFactory.createEmptyBorder(8, 0, 8, 0));
@@ -97,27 +131,126 @@ public class FlowStateGUI extends JFrame {
         // Bottom toast
         toastLabel = new JLabel(" ");
         toastLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        toastLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        toastLabel.setFont(Resources.font("Arial", Font.PLAIN, 14));
         mainContainer.add(toastLabel, BorderLayout.SOUTH);
 
         add(mainContainer);
         applyTheme();
-        selectTab("General");
+        installDiagnosticsKey();
+        loadTasks();
 
         addWindowListener(new java.awt.event.WindowAdapter() {
             @Override
             public void windowClosing(java.awt.event.WindowEvent e) {
-                saveTasks();
+                // Every edit was already handed to storage; wait for the writes to land.
+                // Closed while still loading, the loader closes storage when it's done.
+                if (manager != null) {
+                    dayRollover.stop();
+                    saveTasks();
+                    manager.close();
+                }
                 dispose();
             }
         });
 
+        StartupTimeline.mark("UI built");
         setVisible(true);
     }
 
-    private void initializeTabs() {
-        FileStorage fileStorage = new FileStorage();
-        tabTasks = fileStorage.loadDataByTabs();
+    // Reads storage on a worker so the window shows right away. Tab buttons
+    // and the startup tab's rows appear as batches are parsed, with the rest
+    // of the UI disabled until the TaskManager exists. Only the startup tab
+    // is read now, the rest load on first selectTab().
+    private void loadTasks() {
+        setLoading(true);
+        taskListModel.showTab(List.of(), "Loading tasks...");
+        toastLabel.setText("Loading tasks...");
+        new SwingWorker<TaskManager, Map.Entry<String, List<Task>>>() {
+            private int rowsShown;
+
+            @Override
+            protected TaskManager doInBackground() {
+                TaskManager loaded = new TaskManager(Storage.fromSystemProperty(), currentTab,
+                        (tab, tasks) -> publish(Map.entry(tab, tasks)));
+                StartupTimeline.mark("storage loaded");
+                return loaded;
+            }
+
+            @Override
+            protected void process(List<Map.Entry<String, List<Task>>> batches) {
+                // Batches can arrive after done()
+                if (manager != null) return;
+                for (Map.Entry<String, List<Task>> batch : batches) {
+                    String tab = batch.getKey();
+                    if (!tabButtons.containsKey(tab)) {
+                        createTabButton(tab);
+                        tabPanel.revalidate();
+                        if (tab.equals(currentTab)) highlightTab(tab);
+                    }
+                    if (tab.equals(currentTab)) {
+                        taskListModel.appendTab(batch.getValue());
+                        rowsShown += batch.getValue().size();
+                    }
+                }
+                if (rowsShown > 0) {
+                    toastLabel.setText(String.format("Loading tasks... %,d", rowsShown));
+                }
+            }
+
+            @Override
+            protected void done() {
+                TaskManager loaded;
+                try {
+                    loaded = get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.out.println("Error loading tasks: " + cause.getMessage());
+                    toastLabel.setText("Could not load tasks");
+                    return;
+                }
+                if (!isDisplayable()) {
+                    // The window was closed while loading
+                    loaded.close();
+                    return;
+                }
+                tasksLoaded(loaded);
+            }
+        }.execute();
+    }
+
+    private void tasksLoaded(TaskManager loaded) {
+        manager = loaded;
+        // Buttons again from the manager, with counts; journal replay can add
+        // or drop tabs after their rows were reported
+        tabPanel.removeAll();
+        tabButtons.clear();
+        for (String tabName : manager.getTabNames()) {
+            createTabButton(tabName);
+        }
+        tabPanel.revalidate();
+        tabPanel.repaint();
+        manager.addTaskListener(this::taskChanged);
+        installUndoKeys();
+        dayRollover = new DayRollover(this::dayChanged);
+        dayRollover.start();
+        setLoading(false);
+        toastLabel.setText(" ");
+        // The full tab replaces the rows shown while loading
+        selectTab(manager.hasTab(currentTab) ? currentTab : TaskManager.DEFAULT_TAB);
+        StartupTimeline.tasksShown();
+    }
+
+    // Everything that needs the TaskManager is off while loading
+    private void setLoading(boolean loading) {
+        taskList.setEnabled(!loading);
+        searchField.setEnabled(!loading);
+        agendaButton.setEnabled(!loading);
+        viewsButton.setEnabled(!loading);
+        calendarButton.setEnabled(!loading);
+        addTabButton.setEnabled(!loading);
+        for (JButton btn : tabButtons.values()) {
+            btn.setEnabled(!loading);
+        }
     }
 
     private JPanel createTopBar() {
@@ -125,8 +258,33 @@ public class FlowStateGUI extends JFrame {
         topBar.setBorder(BorderFactory.createEmptyBorder(12, 15, 12, 15));
         
         titleLabel = new JLabel("FlowState");
-        titleLabel.setFont(nunitoBold(26));
+        titleLabel.setFont(Resources.nunitoBold(26));
         topBar.add(titleLabel, BorderLayout.WEST);
+
+        // Search-as-you-type over titles and descriptions in all tabs
+        searchField = new JTextField(24);
+        searchField.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
+        searchField.setToolTipText("Search all tabs");
+        searchField.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(200, 200, 200), 1),
+                BorderFactory.createEmptyBorder(6, 8, 6, 8)
+        ));
+        searchTimer = new Timer(120, e -> runSearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { searchTimer.restart(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { searchTimer.restart(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { searchTimer.restart(); }
+        });
+        searchField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    searchField.setText("");
+                }
+            }
+        });
+        topBar.add(searchField, BorderLayout.EAST);
         
         return topBar;
     }
@@ -138,22 +296,68 @@ public class FlowStateGUI extends JFrame {
         sidebar.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         sidebar.setBackground(Color.white);
 
+        // Agenda: overdue / today / this week across all tabs
+        agendaButton = new JButton("Agenda");
+        agendaButton.setFont(Resources.font("Segoe UI", Font.BOLD, 12));
+        agendaButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, 35));
+        agendaButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        agendaButton.setFocusPainted(false);
+        agendaButton.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
+        agendaButton.setOpaque(true);
+        agendaButton.setBackground(Color.white);
+        agendaButton.setForeground(new Color(45, 55, 72));
+        agendaButton.addActionListener(e -> showAgenda());
+        sidebar.add(agendaButton);
+        sidebar.add(Box.createVerticalStrut(6));
+
+        // Saved views: canned filter + sort queries over all tabs
+        viewsButton = new JButton("Views");
+        viewsButton.setFont(Resources.font("Segoe UI", Font.BOLD, 12));
+        viewsButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, 35));
+        viewsButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        viewsButton.setFocusPainted(false);
+        viewsButton.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
+        viewsButton.setOpaque(true);
+        viewsButton.setBackground(Color.white);
+        viewsButton.setForeground(new Color(45, 55, 72));
+        viewsButton.addActionListener(e -> {
+            JPopupMenu menu = new JPopupMenu();
+            for (Map.Entry<String, TaskQuery> view : TaskQuery.savedViews().entrySet()) {
+                JMenuItem item = new JMenuItem(view.getKey());
+                item.addActionListener(ev -> showView(view.getKey(), view.getValue()));
+                menu.add(item);
+            }
+            menu.show(viewsButton, 0, viewsButton.getHeight());
+        });
+        sidebar.add(viewsButton);
+        sidebar.add(Box.createVerticalStrut(6));
+
+        // Month of due-task counts across tabs
+        calendarButton = new JButton("Calendar");
+        calendarButton.setFont(Resources.font("Segoe UI", Font.BOLD, 12));
+        calendarButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, 35));
+        calendarButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
+        calendarButton.setFocusPainted(false);
+        calendarButton.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220)));
+        calendarButton.setOpaque(true);
+        calendarButton.setBackground(Color.white);
+        calendarButton.setForeground(new Color(45, 55, 72));
+        calendarButton.addActionListener(e -> showCalendar());
+        sidebar.add(calendarButton);
+        sidebar.add(Box.createVerticalStrut(10));
+
         tabPanel = new JPanel();
         tabPanel.setLayout(new BoxLayout(tabPanel, BoxLayout.Y_AXIS));
         tabPanel.setBackground(Color.white);
 
-        // Create default tabs
-        createTabButton("Personal");
-        createTabButton("Work");
-        createTabButton("General");
-
+        // One button per tab, added by loadTasks()
         JScrollPane tabScroll = new JScrollPane(tabPanel);
         tabScroll.setBorder(BorderFactory.createEmptyBorder());
         sidebar.add(tabScroll);
 
         // Add new tab button
         addTabButton = new JButton("+ New Tab");
-        addTabButton.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        addTabButton.setFont(Resources.font("Segoe UI", Font.PLAIN, 11));
         addTabButton.setMaximumSize(new Dimension(Integer.MAX_VALUE, 35));
         addTabButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
         addTabButton.addActionListener(e -> addNewTabDialog());
@@ -166,8 +370,19 @@ public class FlowStateGUI extends JFrame {
     }
 
     private void createTabButton(String tabName) {
-        JButton tabBtn = new JButton(tabName);
-        tabBtn.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        JButton tabBtn = new JButton(tabName) {
+            @Override
+            public String getToolTipText(MouseEvent e) {
+                // From the tab index for tabs still on disk, so hovering doesn't load them
+                if (manager == null) return null;
+                int completed = manager.getCompletedCount((String) getClientProperty("tab"));
+                return completed >= 0 ? String.format("%,d completed", completed) : null;
+            }
+        };
+        tabBtn.setToolTipText("");
+        // The button text carries a task count, so the tab name lives here
+        tabBtn.putClientProperty("tab", tabName);
+        tabBtn.setFont(Resources.font("Segoe UI", Font.PLAIN, 12));
         tabBtn.setMaximumSize(new Dimension(Integer.MAX_VALUE, 35));
         tabBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
         // Flat modern appearance
@@ -178,14 +393,15 @@ public class FlowStateGUI extends JFrame {
         tabBtn.setBackground(Color.white);
         tabBtn.setForeground(new Color(45, 55, 72));
         tabBtn.setMargin(new Insets(6, 8, 6, 8));
-        tabBtn.addActionListener(e -> selectTab(tabName));
+        tabBtn.setEnabled(manager != null);
+        tabBtn.addActionListener(e -> selectTab((String) tabBtn.getClientProperty("tab")));
         
         // Right-click to rename/delete
         tabBtn.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (SwingUtilities.isRightMouseButton(e)) {
-                    showTabContextMenu(tabBtn, tabName, e.getX(), e.getY());
+                if (SwingUtilities.isRightMouseButton(e) && tabBtn.isEnabled()) {
+                    showTabContextMenu(tabBtn, (String) tabBtn.getClientProperty("tab"), e.getX(), e.getY());
                 }
             }
         });
@@ -193,6 +409,14 @@ public class FlowStateGUI extends JFrame {
         tabPanel.add(tabBtn);
         tabPanel.add(Box.createVerticalStrut(5));
         tabButtons.put(tabName, tabBtn);
+        updateTabButton(tabName);
+    }
+
+    private void updateTabButton(String tabName) {
+        JButton tabBtn = tabButtons.get(tabName);
+        if (tabBtn == null || manager == null) return;
+        // Works for tabs that haven't been loaded yet, using the count from the tab index
+        tabBtn.setText(tabName + " (" + manager.getTaskCount(tabName) + ")");
     }
 
     private void showTabContextMenu(JButton tabBtn, String tabName, int x, int y) {
@@ -218,10 +442,13 @@ public class FlowStateGUI extends JFrame {
         String newName = JOptionPane.showInputDialog(this, "New tab name:", oldName);
         if (newName != null && !newName.trim().isEmpty()) {
             newName = newName.trim();
-            tabTasks.put(newName, tabTasks.remove(oldName));
+            manager.renameTab(oldName, newName);
             tabButtons.put(newName, tabButtons.remove(oldName));
-            tabBtn.setText(newName);
-            currentTab = newName;
+            tabBtn.putClientProperty("tab", newName);
+            updateTabButton(newName);
+            if (oldName.equals(currentTab)) {
+                currentTab = newName;
+            }
             showToast("Tab renamed to: " + newName);
         }
     }
@@ -229,7 +456,7 @@ public class FlowStateGUI extends JFrame {
     private void deleteTab(String tabName, JButton tabBtn) {
         int confirm = JOptionPane.showConfirmDialog(this, "Delete tab '" + tabName + "'?", "Confirm", JOptionPane.YES_NO_OPTION);
         if (confirm == JOptionPane.YES_OPTION) {
-            tabTasks.remove(tabName);
+            manager.deleteTab(tabName);
             tabButtons.remove(tabName);
             tabPanel.remove(tabBtn);
             tabPanel.revalidate();
@@ -243,11 +470,11 @@ public class FlowStateGUI extends JFrame {
         String tabName = JOptionPane.showInputDialog(this, "New tab name:");
         if (tabName != null && !tabName.trim().isEmpty()) {
             tabName = tabName.trim();
-            if (tabTasks.containsKey(tabName)) {
+            if (manager.hasTab(tabName)) {
                 JOptionPane.showMessageDialog(this, "Tab already exists.", "Error", JOptionPane.ERROR_MESSAGE);
                 return;
             }
-            tabTasks.put(tabName, new ArrayList<>());
+            manager.createTab(tabName);
             createTabButton(tabName);
             tabPanel.revalidate();
             tabPanel.repaint();
@@ -257,9 +484,21 @@ public class FlowStateGUI extends JFrame {
     }
 
     private void selectTab(String tabName) {
+        manager.getTasks(tabName);
+        if (!tabName.equals(currentTab)) {
+            taskListModel.resetCompletedPages();
+        }
         currentTab = tabName;
-        
-        // Update button styles
+        agendaVisible = false;
+        clearSearch();
+        clearView();
+        agendaButton.setBackground(Color.white);
+        agendaButton.setForeground(new Color(45, 55, 72));
+        highlightTab(tabName);
+        refreshTaskList();
+    }
+
+    private void highlightTab(String tabName) {
         for (Map.Entry<String, JButton> entry : tabButtons.entrySet()) {
             if (entry.getKey().equals(tabName)) {
                 entry.getValue().setBackground(new Color(59, 130, 246));
@@ -270,60 +509,114 @@ public class FlowStateGUI extends JFrame {
                 entry.getValue().setForeground(UIManager.getColor("Button.foreground"));
             }
         }
+    }
+
+    private void showAgenda() {
+        agendaVisible = true;
+        clearSearch();
+        clearView();
+        for (JButton btn : tabButtons.values()) {
+            btn.setBackground(UIManager.getColor("Button.background"));
+            btn.setForeground(UIManager.getColor("Button.foreground"));
+        }
+        agendaButton.setBackground(new Color(59, 130, 246));
+        agendaButton.setForeground(Color.white);
+        currentSelectedTask = null;
+        updateRightPanel();
+        refreshTaskList();
+    }
 
+    private void showView(String name, TaskQuery view) {
+        clearSearch();
+        agendaVisible = false;
+        agendaButton.setBackground(Color.white);
+        agendaButton.setForeground(new Color(45, 55, 72));
+        for (JButton btn : tabButtons.values()) {
+            btn.setBackground(UIManager.getColor("Button.background"));
+            btn.setForeground(UIManager.getColor("Button.foreground"));
+        }
+        currentSelectedTask = null;
+        updateRightPanel();
+        activeView = view;
+        activeViewName = name;
+        viewsButton.setBackground(new Color(59, 130, 246));
+        viewsButton.setForeground(Color.white);
+        viewsButton.setText(name);
         refreshTaskList();
     }
 
+    // Open tasks due per day across tabs, red once overdue; picking a day
+    // lists everything due then as a view
+    private void showCalendar() {
+        JPopupMenu menu = new JPopupMenu();
+        LocalDate[] month = {LocalDate.now().withDayOfMonth(1)};
+        MonthGrid grid = new MonthGrid(manager, day -> {
+            menu.setVisible(false);
+            LocalDate date = LocalDate.ofEpochDay(day);
+            showView("Due " + date.format(DateTimeFormatter.ofPattern("MMM d")),
+                    new TaskQuery().dueBetween(date, date).sortBy(TaskQuery.SortKey.COMPLETED));
+        });
+        grid.setPreferredSize(new Dimension(380, 300));
+        grid.setBorder(BorderFactory.createEmptyBorder(4, 8, 8, 8));
+
+        JLabel monthLabel = new JLabel("", SwingConstants.CENTER);
+        monthLabel.setFont(Resources.font("Segoe UI", Font.BOLD, 13));
+        Runnable showMonth = () -> {
+            grid.showMonth(month[0].getYear(), month[0].getMonthValue());
+            monthLabel.setText(month[0].format(DateTimeFormatter.ofPattern("MMMM yyyy")));
+        };
+        JButton previous = new JButton("<");
+        previous.addActionListener(e -> {
+            month[0] = month[0].minusMonths(1);
+            showMonth.run();
+        });
+        JButton next = new JButton(">");
+        next.addActionListener(e -> {
+            month[0] = month[0].plusMonths(1);
+            showMonth.run();
+        });
+        showMonth.run();
+
+        JPanel controls = new JPanel(new BorderLayout());
+        controls.setBackground(Color.white);
+        controls.setBorder(BorderFactory.createEmptyBorder(8, 8, 4, 8));
+        controls.add(previous, BorderLayout.WEST);
+        controls.add(monthLabel, BorderLayout.CENTER);
+        controls.add(next, BorderLayout.EAST);
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(Color.white);
+        panel.add(controls, BorderLayout.NORTH);
+        panel.add(grid, BorderLayout.CENTER);
+        menu.add(panel);
+        menu.show(calendarButton, calendarButton.getWidth(), 0);
+    }
+
+    private void clearView() {
+        if (activeView == null) return;
+        activeView = null;
+        activeViewName = null;
+        viewsButton.setBackground(Color.white);
+        viewsButton.setForeground(new Color(45, 55, 72));
+        viewsButton.setText("Views");
+    }
+
     private void createTaskList() {
-        taskListModel = new DefaultListModel<>();
+        taskListModel = new TaskListModel();
         taskList = new JList<>(taskListModel);
-        taskList.setFont(nunitoBold(14));
+        taskRenderer = new TaskRenderer(taskListModel, task -> manager.getTabOf(task));
+        taskList.setCellRenderer(taskRenderer);
+        // Fixed row size, so JList never asks the renderer about rows it doesn't paint
+        taskList.setPrototypeCellValue(new TaskListModel.Label("Prototype row", ""));
         taskList.setFixedCellHeight(45);
-        taskList.setCellRenderer(new TaskRenderer());
         taskList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
 
         taskList.addListSelectionListener(e -> {
-            if (!e.getValueIsAdjusting()) {
-                int displayIndex = taskList.getSelectedIndex();
-                if (displayIndex >= 0) {
-                    String itemText = taskListModel.getElementAt(displayIndex).toString();
-                    // Skip header and empty states
-                    if (!itemText.equals("---COMPLETED_HEADER---") && !itemText.contains("(empty)")) {
-                        // Find the actual task by counting only non-header/non-empty items
-                        ArrayList<Task> tasks = tabTasks.get(currentTab);
-                        ArrayList<Task> incompleteTasks = new ArrayList<>();
-                        ArrayList<Task> completedTasks = new ArrayList<>();
-                        
-                        for (Task t : tasks) {
-                            if (t.isCompleted()) {
-                                completedTasks.add(t);
-                            } else {
-                                incompleteTasks.add(t);
-                            }
-                        }
-                        
-                        // Count position in the list model
-                        int taskCounter = 0;
-                        for (int i = 0; i < displayIndex; i++) {
-                            String text = taskListModel.getElementAt(i).toString();
-                            if (!text.equals("---COMPLETED_HEADER---") && !text.contains("(empty)")) {
-                                taskCounter++;
-                            }
-                        }
-                        
-                        // Determine if this task is incomplete or completed
-                        if (taskCounter < incompleteTasks.size()) {
-                            // This is an incomplete task
-                            currentSelectedTask = incompleteTasks.get(taskCounter);
-                        } else if (completedTasksVisible) {
-                            // This is a completed task
-                            int completedIndex = taskCounter - incompleteTasks.size();
-                            if (completedIndex >= 0 && completedIndex < completedTasks.size()) {
-                                currentSelectedTask = completedTasks.get(completedIndex);
-                            }
-                        }
-                        updateRightPanel();
-                    }
+            if (!e.getValueIsAdjusting() && manager != null) {
+                // Header and empty-state rows have no task
+                Task task = taskListModel.taskAt(taskList.getSelectedIndex());
+                if (task != null) {
+                    currentSelectedTask = task;
+                    updateRightPanel();
                 }
             }
         });
@@ -332,48 +625,19 @@ public class FlowStateGUI extends JFrame {
         taskList.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                // Disabled while loading, but Swing still delivers the clicks
+                if (!taskList.isEnabled()) return;
                 if (SwingUtilities.isRightMouseButton(e)) {
                     int index = taskList.locationToIndex(e.getPoint());
                     Rectangle cellBounds = (index >= 0) ? taskList.getCellBounds(index, index) : null;
                     
                     // Check if click is within an actual cell's bounds
                     if (index >= 0 && cellBounds != null && cellBounds.contains(e.getPoint())) {
-                        String itemText = taskListModel.getElementAt(index).toString();
+                        Task task = taskListModel.taskAt(index);
                         // Only show delete for actual tasks (not headers or empty messages)
-                        if (!itemText.equals("---COMPLETED_HEADER---") && !itemText.contains("(empty)")) {
-                            // Set the selected task
+                        if (task != null) {
                             taskList.setSelectedIndex(index);
-                            // Get the actual task from the properly tracked selection
-                            ArrayList<Task> tasks = tabTasks.get(currentTab);
-                            ArrayList<Task> incompleteTasks = new ArrayList<>();
-                            ArrayList<Task> completedTasks = new ArrayList<>();
-                            
-                            for (Task t : tasks) {
-                                if (t.isCompleted()) {
-                                    completedTasks.add(t);
-                                } else {
-                                    incompleteTasks.add(t);
-                                }
-                            }
-                            
-                            // Count position
-                            int taskCounter = 0;
-                            for (int i = 0; i < index; i++) {
-                                String text = taskListModel.getElementAt(i).toString();
-                                if (!text.equals("---COMPLETED_HEADER---") && !text.contains("(empty)")) {
-                                    taskCounter++;
-                                }
-                            }
-                            
-                            // Get the actual task
-                            if (taskCounter < incompleteTasks.size()) {
-                                currentSelectedTask = incompleteTasks.get(taskCounter);
-                            } else if (completedTasksVisible) {
-                                int completedIndex = taskCounter - incompleteTasks.size();
-                                if (completedIndex >= 0 && completedIndex < completedTasks.size()) {
-                                    currentSelectedTask = completedTasks.get(completedIndex);
-                                }
-                            }
+                            currentSelectedTask = task;
                             
                             showDeleteTaskContextMenu(e.getX(), e.getY());
                         } else {
@@ -390,10 +654,9 @@ public class FlowStateGUI extends JFrame {
                     Rectangle cellBounds = (index >= 0) ? taskList.getCellBounds(index, index) : null;
                     
                     if (index >= 0 && cellBounds != null && cellBounds.contains(e.getPoint())) {
-                        String itemText = taskListModel.getElementAt(index).toString();
-                        if (itemText.equals("---COMPLETED_HEADER---")) {
+                        if (taskListModel.isCompletedHeader(index)) {
                             // Toggle completed tasks visibility (header remains visible)
-                            completedTasksVisible = !completedTasksVisible;
+                            taskListModel.setCompletedVisible(!taskListModel.isCompletedVisible());
                             refreshTaskList();
                         }
                     }
@@ -404,6 +667,17 @@ public class FlowStateGUI extends JFrame {
         scrollPane = new JScrollPane(taskList);
         scrollPane.setBorder(BorderFactory.createLineBorder(new Color(200, 220, 240), 1));
         scrollPane.getVerticalScrollBar().setUnitIncrement(15);
+        // Also fires when the list grows or shrinks, so a short list fills itself
+        scrollPane.getViewport().addChangeListener(e -> showMoreCompletedIfNeeded());
+    }
+
+    // Next page of completed tasks once the end of the list is in view
+    private void showMoreCompletedIfNeeded() {
+        if (manager == null || !taskListModel.hasMoreCompleted()) return;
+        int last = taskList.getLastVisibleIndex();
+        if (last >= 0 && last >= taskListModel.getSize() - 5) {
+            taskListModel.showMoreCompleted(manager.getTasks(currentTab));
+        }
     }
 
     private void showAddTaskContextMenu(int x, int y) {
@@ -445,7 +719,7 @@ public class FlowStateGUI extends JFrame {
         mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
 
         selectedTaskTitle = new JLabel("Select a task");
-        selectedTaskTitle.setFont(new Font("Segoe UI", Font.BOLD, 20));
+        selectedTaskTitle.setFont(Resources.font("Segoe UI", Font.BOLD, 20));
         mainPanel.add(selectedTaskTitle);
         mainPanel.add(Box.createVerticalStrut(20));
 
@@ -454,20 +728,19 @@ public class FlowStateGUI extends JFrame {
         titleSection.setMaximumSize(new Dimension(Integer.MAX_VALUE, 45));
         titleSection.setBackground(Color.white);
         JLabel titleLabel = new JLabel("Title");
-        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        titleLabel.setFont(Resources.font("Segoe UI", Font.BOLD, 14));
         titleLabel.setPreferredSize(new Dimension(80, 20));
         titleLabel.setOpaque(true);
         titleLabel.setBackground(Color.white);
         editTitleField = new JTextField();
-        editTitleField.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        editTitleField.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
         editTitleField.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 1));
         editTitleField.addFocusListener(new FocusAdapter() {
             @Override
             public void focusLost(FocusEvent e) {
                 if (currentSelectedTask != null && !editTitleField.getText().equals(currentSelectedTask.getTitle())) {
-                    currentSelectedTask.setTitle(editTitleField.getText());
-                    saveTasks();
-                    refreshTaskList();
+                    String title = editTitleField.getText();
+                    manager.updateTask(currentSelectedTask, t -> t.setTitle(title));
                     selectedTaskTitle.setText(currentSelectedTask.getTitle());
                 }
             }
@@ -482,12 +755,12 @@ public class FlowStateGUI extends JFrame {
         descSection.setMaximumSize(new Dimension(Integer.MAX_VALUE, 120));
         descSection.setBackground(Color.white);
         JLabel descLabel = new JLabel("Description");
-        descLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        descLabel.setFont(Resources.font("Segoe UI", Font.BOLD, 14));
         descLabel.setVerticalAlignment(SwingConstants.TOP);
         descLabel.setOpaque(true);
         descLabel.setBackground(Color.white);
         editDescriptionArea = new JTextArea(4, 20);
-        editDescriptionArea.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        editDescriptionArea.setFont(Resources.font("Segoe UI", Font.PLAIN, 12));
         editDescriptionArea.setLineWrap(true);
         editDescriptionArea.setWrapStyleWord(true);
         editDescriptionArea.setBorder(BorderFactory.createLineBorder(new Color(200, 200, 200), 1));
@@ -495,8 +768,8 @@ public class FlowStateGUI extends JFrame {
             @Override
             public void focusLost(FocusEvent e) {
                 if (currentSelectedTask != null && !editDescriptionArea.getText().equals(currentSelectedTask.getDescription())) {
-                    currentSelectedTask.setDescription(editDescriptionArea.getText());
-                    saveTasks();
+                    String description = editDescriptionArea.getText();
+                    manager.updateTask(currentSelectedTask, t -> t.setDescription(description));
                 }
             }
         });
@@ -512,10 +785,10 @@ public class FlowStateGUI extends JFrame {
         dateSection.setMaximumSize(new Dimension(Integer.MAX_VALUE, 25));
         dateSection.setBackground(Color.white);
         JLabel dateLabel = new JLabel("Date");
-        dateLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        dateLabel.setFont(Resources.font("Segoe UI", Font.BOLD, 14));
         dateLabel.setPreferredSize(new Dimension(80, 20));
         editDateLabel = new JLabel("No date");
-        editDateLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        editDateLabel.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
         editDateLabel.setCursor(new Cursor(Cursor.HAND_CURSOR));
         editDateLabel.setForeground(new Color(59, 130, 246));
         editDateLabel.addMouseListener(new MouseAdapter() {
@@ -545,16 +818,19 @@ public class FlowStateGUI extends JFrame {
         prioritySection.setMaximumSize(new Dimension(Integer.MAX_VALUE, 35));
         prioritySection.setBackground(Color.white);
         JLabel priorityLabel = new JLabel("Priority");
-        priorityLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        priorityLabel.setFont(Resources.font("Segoe UI", Font.BOLD, 14));
         priorityLabel.setPreferredSize(new Dimension(80, 20));
         String[] priorities = {"Low", "Medium", "High"};
         priorityBox = new JComboBox<>(priorities);
-        priorityBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        priorityBox.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
+        // JComboBox fires even when setSelectedItem() doesn't change anything,
+        // and a custom (CLI) priority shows as its level, so only a real pick counts
         priorityBox.addActionListener(e -> {
-            if (currentSelectedTask != null) {
-                currentSelectedTask.setPriority((String) priorityBox.getSelectedItem());
-                saveTasks();
-                refreshTaskList();
+            if (currentSelectedTask != null && !updatingPanel) {
+                String priority = (String) priorityBox.getSelectedItem();
+                if (priority != null && !priority.equals(currentSelectedTask.getPriority())) {
+                    manager.updateTask(currentSelectedTask, t -> t.setPriority(priority));
+                }
             }
         });
         prioritySection.add(priorityLabel, BorderLayout.WEST);
@@ -564,17 +840,14 @@ public class FlowStateGUI extends JFrame {
 
         // Completed checkbox
         completedCheckbox = new JCheckBox("Mark as Completed");
-        completedCheckbox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        completedCheckbox.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
         completedCheckbox.setBackground(Color.white);
         completedCheckbox.setOpaque(true);
         completedCheckbox.addActionListener(e -> {
             if (currentSelectedTask != null) {
-                currentSelectedTask.setCompleted(completedCheckbox.isSelected());
-                saveTasks();
-                refreshTaskList();
+                manager.setCompleted(currentSelectedTask, completedCheckbox.isSelected());
                 // Only clear selection if marking as completed
                 if (completedCheckbox.isSelected()) {
-                    currentSelectedIndex = -1;
                     currentSelectedTask = null;
                     updateRightPanel();
                 } else {
@@ -592,6 +865,15 @@ public class FlowStateGUI extends JFrame {
     }
 
     private void updateRightPanel() {
+        updatingPanel = true;
+        try {
+            fillRightPanel();
+        } finally {
+            updatingPanel = false;
+        }
+    }
+
+    private void fillRightPanel() {
         if (currentSelectedTask == null) {
             selectedTaskTitle.setText("Select a task");
             editTitleField.setText("");
@@ -606,14 +888,12 @@ public class FlowStateGUI extends JFrame {
         editTitleField.setText(currentSelectedTask.getTitle());
         editDescriptionArea.setText(currentSelectedTask.getDescription());
         editDateLabel.setText(hasValidDueDate(currentSelectedTask) ? currentSelectedTask.getDueDate() : "No date");
-        priorityBox.setSelectedItem(currentSelectedTask.getPriority());
+        priorityBox.setSelectedItem(currentSelectedTask.getPriorityLevel().getLabel());
         completedCheckbox.setSelected(currentSelectedTask.isCompleted());
     }
 
     private boolean hasValidDueDate(Task t) {
-        if (t == null) return false;
-        String d = t.getDueDate();
-        return d != null && !d.trim().isEmpty() && !d.trim().equalsIgnoreCase("null");
+        return t != null && t.hasDueDate();
     }
 
     private void toggleCalendar() {
@@ -626,7 +906,7 @@ public class FlowStateGUI extends JFrame {
             calendarPanelContainer.removeAll();
 
             LocalDate currentDate = hasValidDueDate(currentSelectedTask)
-                ? LocalDate.parse(currentSelectedTask.getDueDate(), DateTimeFormatter.ofPattern("MM/dd/yyyy"))
+                ? LocalDate.ofEpochDay(currentSelectedTask.getDueDay())
                 : LocalDate.now();
 
             // Year and month controls
@@ -637,47 +917,34 @@ public class FlowStateGUI extends JFrame {
                               "July", "August", "September", "October", "November", "December"};
             JComboBox<String> monthBox = new JComboBox<>(months);
             monthBox.setSelectedIndex(currentDate.getMonthValue() - 1);
-            monthBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+            monthBox.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
             monthBox.setPreferredSize(new Dimension(120, 30));
             
             JComboBox<Integer> yearBox = new JComboBox<>();
             int yearNow = LocalDate.now().getYear();
             for (int i = 0; i < 10; i++) yearBox.addItem(yearNow + i - 2);
             yearBox.setSelectedItem(currentDate.getYear());
-            yearBox.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+            yearBox.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
             yearBox.setPreferredSize(new Dimension(80, 30));
             
             controlPanel.add(monthBox);
             controlPanel.add(yearBox);
             
-            // Calendar grid with better spacing
-            JPanel gridPanel = new JPanel(new GridLayout(7, 7, 8, 8));
+            // Calendar grid with better spacing; each day shows how many tasks are already due then
+            int[] selectedDay = {currentDate.getDayOfMonth()};
+            MonthGrid gridPanel = new MonthGrid(manager, day -> selectedDay[0] = LocalDate.ofEpochDay(day).getDayOfMonth());
             gridPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 180));
             gridPanel.setBorder(BorderFactory.createEmptyBorder(10, 8, 0, 8));
-            gridPanel.setBackground(Color.white);
-            
-            String[] dayNames = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
-            for (String day : dayNames) {
-                JLabel dayLabel = new JLabel(day);
-                dayLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
-                dayLabel.setHorizontalAlignment(SwingConstants.CENTER);
-                dayLabel.setOpaque(false);
-                gridPanel.add(dayLabel);
-            }
-            
-            JButton[] allDayButtons = new JButton[42];
-            int[] selectedDay = {currentDate.getDayOfMonth()};
-            
-            updateCalendarGrid(gridPanel, allDayButtons, (Integer) yearBox.getSelectedItem(), 
-                              monthBox.getSelectedIndex() + 1, selectedDay, currentDate);
-            
-            monthBox.addActionListener(e -> updateCalendarGrid(gridPanel, allDayButtons, 
-                                      (Integer) yearBox.getSelectedItem(), 
-                                      monthBox.getSelectedIndex() + 1, selectedDay, currentDate));
-            
-            yearBox.addActionListener(e -> updateCalendarGrid(gridPanel, allDayButtons, 
-                                     (Integer) yearBox.getSelectedItem(), 
-                                     monthBox.getSelectedIndex() + 1, selectedDay, currentDate));
+
+            // The selected day of the month stays selected when the month changes
+            Runnable showMonth = () -> {
+                LocalDate first = LocalDate.of((Integer) yearBox.getSelectedItem(), monthBox.getSelectedIndex() + 1, 1);
+                gridPanel.showMonth(first.getYear(), first.getMonthValue());
+                gridPanel.select((int) first.toEpochDay() + Math.min(selectedDay[0], first.lengthOfMonth()) - 1);
+            };
+            showMonth.run();
+            monthBox.addActionListener(e -> showMonth.run());
+            yearBox.addActionListener(e -> showMonth.run());
             
             calendarPanelContainer.add(controlPanel);
             calendarPanelContainer.add(gridPanel);
@@ -686,22 +953,19 @@ public class FlowStateGUI extends JFrame {
             buttonPanel.setMaximumSize(new Dimension(Integer.MAX_VALUE, 40));
             
             JButton cancelButton = new JButton("Cancel");
-            cancelButton.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+            cancelButton.setFont(Resources.font("Segoe UI", Font.PLAIN, 12));
             cancelButton.setPreferredSize(new Dimension(80, 30));
             cancelButton.addActionListener(e -> toggleCalendar());
             
             JButton saveButton = new JButton("Done");
-            saveButton.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+            saveButton.setFont(Resources.font("Segoe UI", Font.PLAIN, 12));
             saveButton.setPreferredSize(new Dimension(80, 30));
             saveButton.addActionListener(e -> {
-                int month = monthBox.getSelectedIndex() + 1;
-                int year = (Integer) yearBox.getSelectedItem();
-                String dueDate = String.format("%02d/%02d/%d", month, selectedDay[0], year);
+                LocalDate first = LocalDate.of((Integer) yearBox.getSelectedItem(), monthBox.getSelectedIndex() + 1, 1);
+                String dueDate = first.withDayOfMonth(Math.min(selectedDay[0], first.lengthOfMonth())).format(DueDates.FORMAT);
                 
-                currentSelectedTask.setDueDate(dueDate);
+                manager.updateTask(currentSelectedTask, t -> t.setDueDate(dueDate));
                 editDateLabel.setText(dueDate);
-                saveTasks();
-                refreshTaskList();
                 toggleCalendar();
             });
             
@@ -721,69 +985,13 @@ public class FlowStateGUI extends JFrame {
         }
     }
 
-    private void updateCalendarGrid(JPanel gridPanel, JButton[] dayButtons, int year, int month, int[] selectedDay, LocalDate currentDate) {
-        // Remove old day buttons (keep 7 day headers)
-        while (gridPanel.getComponentCount() > 7) {
-            gridPanel.remove(7);
-        }
-        
-        LocalDate firstDay = LocalDate.of(year, month, 1);
-        int daysInMonth = firstDay.lengthOfMonth();
-        int startDay = firstDay.getDayOfWeek().getValue() % 7; // Sunday = 0
-        
-        int dayCounter = 1;
-        for (int i = 0; i < 42; i++) {
-            JButton dayButton = new JButton();
-            dayButton.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-            dayButton.setFocusPainted(false);
-            dayButton.setMargin(new Insets(4, 4, 4, 4));
-            dayButton.setBackground(Color.white);
-            dayButton.setForeground(new Color(30, 30, 30));
-            dayButton.setOpaque(true);
-            dayButton.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220), 1));
-            dayButton.setPreferredSize(new Dimension(35, 35));
-            
-            if (i < startDay || dayCounter > daysInMonth) {
-                dayButton.setEnabled(false);
-                dayButton.setText("");
-                dayButton.setBackground(new Color(250, 250, 250));
-            } else {
-                final int day = dayCounter;
-                dayButton.setText(String.valueOf(day));
-                dayButton.setEnabled(true);
-                
-                if (day == selectedDay[0]) {
-                    dayButton.setBackground(new Color(59, 130, 246));
-                    dayButton.setForeground(Color.white);
-                    dayButton.setFont(dayButton.getFont().deriveFont(Font.BOLD));
-                } else {
-                    dayButton.setBackground(Color.white);
-                }
-                
-                dayButton.addActionListener(e -> {
-                    selectedDay[0] = day;
-                    updateCalendarGrid(gridPanel, dayButtons, year, month, selectedDay, currentDate);
-                });
-                
-                dayCounter++;
-            }
-            
-            gridPanel.add(dayButton);
-            dayButtons[i] = dayButton;
-        }
-        
-        gridPanel.revalidate();
-        gridPanel.repaint();
-    }
-
     private void addNewTask() {
+        if (agendaVisible || searchQuery != null || activeView != null) {
+            selectTab(currentTab);
+        }
         Task task = new Task("New Task", "", null, "Medium");
-        tabTasks.get(currentTab).add(task);
-        manager.addTask(task);
-        saveTasks();
-        refreshTaskList();
-        currentSelectedIndex = tabTasks.get(currentTab).size() - 1;
-        taskList.setSelectedIndex(currentSelectedIndex);
+        manager.addTask(currentTab, task);
+        taskList.setSelectedIndex(taskListModel.rowOf(task));
         currentSelectedTask = task;
         updateRightPanel();
         editTitleField.requestFocus();
@@ -798,30 +1006,81 @@ public class FlowStateGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         if (confirm != JOptionPane.YES_OPTION) return;
 
-        ArrayList<Task> currentTabTasks = tabTasks.get(currentTab);
-        boolean removed = currentTabTasks.remove(currentSelectedTask);
-        
-        if (removed) {
-            saveTasks();
-            refreshTaskList();
-            currentSelectedIndex = -1;
+        // The row knows the task's position, so there's no search through the tab
+        // (agenda, search and view rows come from any tab)
+        String tab = agendaVisible || searchQuery != null || activeView != null
+                ? manager.getTabOf(currentSelectedTask) : currentTab;
+        if (tab != null && manager.deleteTask(tab, taskListModel.tabIndexOf(currentSelectedTask), currentSelectedTask)) {
             currentSelectedTask = null;
             updateRightPanel();
-            showToast("Task deleted");
+            showToast("Task deleted (Ctrl+Z to undo)");
         }
     }
 
-    private Font nunitoBold(int size) {
-        try {
-            Font font = Font.createFont(Font.TRUETYPE_FONT, new java.io.File("fonts/Nunito-VariableFont_wght.ttf"));
-            return font.deriveFont(Font.BOLD, size);
-        } catch (Exception e) {
-            return new Font("Arial", Font.BOLD, size);
+    // Ctrl+Z / Ctrl+Y (and Ctrl+Shift+Z) anywhere in the window
+    private void installUndoKeys() {
+        int menuKey = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        InputMap inputMap = getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actionMap = getRootPane().getActionMap();
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuKey), "undo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, menuKey), "redo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, menuKey | InputEvent.SHIFT_DOWN_MASK), "redo");
+        actionMap.put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showToast(manager.undo() ? "Undone" : "Nothing to undo");
+                afterUndo();
+            }
+        });
+        actionMap.put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showToast(manager.redo() ? "Redone" : "Nothing to redo");
+                afterUndo();
+            }
+        });
+    }
+
+    // Ctrl+Shift+D: event thread stalls seen by the EdtWatchdog
+    private void installDiagnosticsKey() {
+        int menuKey = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_D, menuKey | InputEvent.SHIFT_DOWN_MASK), "diagnostics");
+        getRootPane().getActionMap().put("diagnostics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showDiagnostics();
+            }
+        });
+    }
+
+    private void showDiagnostics() {
+        EdtWatchdog watchdog = EdtWatchdog.get();
+        if (watchdog == null) {
+            showToast("Stall monitoring is off (flowstate.stallMillis)");
+            return;
+        }
+        if (diagnosticsDialog == null || !diagnosticsDialog.isDisplayable()) {
+            diagnosticsDialog = new DiagnosticsDialog(this, watchdog);
         }
+        diagnosticsDialog.setVisible(true);
+        diagnosticsDialog.toFront();
+    }
+
+    // The list already has the changes (see taskChanged); undo may have
+    // removed the selected task
+    private void afterUndo() {
+        if (currentSelectedTask != null && manager.getTabOf(currentSelectedTask) == null) {
+            currentSelectedTask = null;
+        }
+        if (currentSelectedTask != null) {
+            taskList.setSelectedIndex(taskListModel.rowOf(currentSelectedTask));
+        }
+        updateRightPanel();
     }
 
     private void styleButton(JButton button, Color bg, Color border, Color text) {
-        button.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        button.setFont(Resources.font("Segoe UI", Font.PLAIN, 13));
         button.setBackground(bg);
         button.setForeground(text);
         button.setFocusPainted(false);
@@ -857,7 +1116,7 @@ public class FlowStateGUI extends JFrame {
 
         // Style tab buttons for a modern flat look
         for (JButton btn : tabButtons.values()) {
-            if (btn.getText().equals(currentTab)) {
+            if (currentTab.equals(btn.getClientProperty("tab"))) {
                 btn.setBackground(btnBg);
                 btn.setForeground(Color.white);
                 btn.setBorder(BorderFactory.createLineBorder(btnBorder, 1));
@@ -904,189 +1163,169 @@ public class FlowStateGUI extends JFrame {
     }
 
     private void refreshTaskList() {
-        taskListModel.clear();
-        ArrayList<Task> tasks = tabTasks.get(currentTab);
-        ArrayList<Task> incompleteTasks = new ArrayList<>();
-        ArrayList<Task> completedTasks = new ArrayList<>();
-
-        // Separate completed and incomplete tasks
-        for (Task t : tasks) {
-            if (t.isCompleted()) {
-                completedTasks.add(t);
-            } else {
-                incompleteTasks.add(t);
-            }
-        }
-
-        DateTimeFormatter inputFormat = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-        DateTimeFormatter prettyFormat = DateTimeFormatter.ofPattern("MMM d");
-        LocalDate today = LocalDate.now();
-
-        // Add incomplete tasks
-        if (incompleteTasks.isEmpty() && completedTasks.isEmpty()) {
-            taskListModel.addElement("(empty) No tasks yet.");
-            return;
+        updateTabButton(currentTab);
+        if (((searchQuery != null || activeView != null || agendaVisible) && manager.hasUnloadedTabs())
+                || (searchQuery != null && !manager.hasSearchIndex())) {
+            taskListModel.showResults(List.of(), "Loading tasks...");
+            loadAllTabs(searchQuery != null);
+        } else if (searchQuery != null) {
+            taskListModel.showResults(manager.search(searchQuery, 200), "(empty) No matching tasks.");
+        } else if (activeView != null) {
+            taskListModel.showResults(manager.query(activeView), "(empty) Nothing in " + activeViewName + ".");
+        } else if (agendaVisible) {
+            // Open tasks from all tabs, straight from TaskManager's due-date index
+            taskListModel.showSections(Arrays.asList("Overdue", "Today", "Next 7 days"),
+                    Arrays.asList(manager.findOverdue(), manager.findDueToday(), manager.findDueThisWeek()),
+                    "(empty) Nothing due in the next 7 days.");
+        } else {
+            taskListModel.showTab(manager.getTasks(currentTab), "(empty) No tasks yet.");
         }
+    }
 
-        for (Task t : incompleteTasks) {
-            String dateStatus = "";
-            LocalDate dueDate = null;
-
-            try {
-                if (hasValidDueDate(t)) {
-                    dueDate = LocalDate.parse(t.getDueDate(), inputFormat);
-                    String formattedDate = dueDate.format(prettyFormat);
-                    
-                    if (dueDate.isBefore(today)) {
-                        dateStatus = formattedDate + " [OVERDUE]";
-                    } else if (dueDate.equals(today)) {
-                        dateStatus = "Today [NOW]";
-                    } else {
-                        dateStatus = formattedDate;
-                    }
+    // Cross-tab lists need every tab, and search needs its index too. The
+    // tabs deferred at startup are read, and the index built, off the event
+    // thread, then the list is built again.
+    private void loadAllTabs(boolean forSearch) {
+        if (loadingAllTabs) return;
+        loadingAllTabs = true;
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                manager.loadAllTabs();
+                if (forSearch && !manager.hasSearchIndex()) {
+                    manager.rebuildSearchIndex();
                 }
-            } catch (Exception e) {
-                // Leave dateStatus blank if date is invalid
+                return null;
             }
 
-            String priorityIcon = "[L]";
-            String priorityColor = "#7FD56F";
-            if (t.getPriority().equalsIgnoreCase("High")) {
-                priorityColor = "#EF4444";
-                priorityIcon = "[H]";
-            } else if (t.getPriority().equalsIgnoreCase("Medium")) {
-                priorityColor = "#FBBF24";
-                priorityIcon = "[M]";
-            }
-
-            String baseColor;
-            if (dueDate != null && dueDate.isBefore(today)) {
-                baseColor = "#EF4444";
-            } else if (dueDate != null && dueDate.equals(today)) {
-                baseColor = "#F59E0B";
-            } else {
-                baseColor = "#1F2937";
-            }
-
-            String left = "<span style='color:" + baseColor + ";'><b>" + t.getTitle() + "</b></span> " +
-                    "<span style='color:" + priorityColor + ";'>" + priorityIcon + "</span>";
-            String right = "<span style='color:" + baseColor + ";'>" + dateStatus + "</span>";
-
-            taskListModel.addElement(left + ":::" + right);
-        }
-
-        // Add completed tasks section (always add header when there are completed tasks)
-        if (!completedTasks.isEmpty()) {
-            taskListModel.addElement("---COMPLETED_HEADER---");
-            if (completedTasksVisible) {
-                for (Task t : completedTasks) {
-                String dateStatus = "";
+            @Override
+            protected void done() {
+                loadingAllTabs = false;
                 try {
-                    if (hasValidDueDate(t)) {
-                        LocalDate dueDate = LocalDate.parse(t.getDueDate(), inputFormat);
-                        dateStatus = dueDate.format(prettyFormat);
-                    }
+                    get();
                 } catch (Exception e) {
-                    // Leave dateStatus blank if date is invalid
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.out.println("Error loading tasks: " + cause.getMessage());
+                    taskListModel.showResults(List.of(), "(empty) Could not load every tab.");
+                    return;
                 }
+                refreshTaskList();
+            }
+        }.execute();
+    }
 
-                String priorityIcon = "[L]";
-                String priorityColor = "#7FD56F";
-                if (t.getPriority().equalsIgnoreCase("High")) {
-                    priorityColor = "#EF4444";
-                    priorityIcon = "[H]";
-                } else if (t.getPriority().equalsIgnoreCase("Medium")) {
-                    priorityColor = "#FBBF24";
-                    priorityIcon = "[M]";
-                }
+    // ----- incremental updates from TaskManager -----
 
-                String left = "<span style='color:#999999;'><b>" + t.getTitle() + "</b></span> " +
-                        "<span style='color:" + priorityColor + ";'>" + priorityIcon + "</span>";
-                String right = "<span style='color:#999999;'>" + dateStatus + " [done]</span>";
+    // Set from whichever thread made the change; at worst two refreshes get queued
+    private volatile boolean refreshQueued = false;
 
-                taskListModel.addElement(left + ":::" + right);
-                }
+    private void taskChanged(TaskEvent event) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            // Rows can't follow changes made elsewhere one by one; reload once
+            queueRefresh();
+            return;
+        }
+        if (event.isTabEvent()) return; // the tab dialogs update the sidebar themselves
+        updateTabButton(event.getTab());
+        if (event.getType() == TaskEvent.Type.MOVED) {
+            updateTabButton(event.getFromTab());
+        }
+        boolean descriptionOnly = event.getType() == TaskEvent.Type.UPDATED
+                && event.getFields().equals(EnumSet.of(TaskEvent.Field.DESCRIPTION));
+        if (agendaVisible || searchQuery != null || activeView != null) {
+            // Cross-tab lists are filtered and sorted; rebuild once per burst
+            if (!descriptionOnly || searchQuery != null) {
+                queueRefresh();
             }
+            return;
+        }
+        if (descriptionOnly) return;
+        Task task = event.getTask();
+        boolean inTab = currentTab.equals(event.getTab());
+        boolean applied = true;
+        switch (event.getType()) {
+            case UPDATED:
+                if (!inTab) break;
+                if (event.getFields().contains(TaskEvent.Field.COMPLETED)) {
+                    applied = taskListModel.completionChanged(task);
+                } else {
+                    taskListModel.taskUpdated(task);
+                }
+                break;
+            case ADDED:
+                applied = !inTab || taskListModel.taskAdded(task, event.getIndex());
+                break;
+            case REMOVED:
+                applied = !inTab || taskListModel.taskRemoved(task);
+                break;
+            case MOVED:
+                // A reload already shows where the task ended up
+                applied = !currentTab.equals(event.getFromTab()) || taskListModel.taskRemoved(task);
+                applied = applied && (!inTab || taskListModel.taskAdded(task, event.getIndex()));
+                break;
+            default:
+        }
+        if (!applied) {
+            refreshTaskList();
         }
     }
 
-    private void saveTasks() {
-        FileStorage fileStorage = new FileStorage();
-        fileStorage.saveDataByTabs(tabTasks);
-    }
-
-    private class TaskRenderer extends JPanel implements ListCellRenderer<String> {
-        private JLabel leftLabel;
-        private JLabel rightLabel;
-
-        public TaskRenderer() {
-            setLayout(new BorderLayout());
-            setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createMatteBorder(0, 0, 1, 0, new Color(220, 220, 220)),
-                    BorderFactory.createEmptyBorder(8, 12, 8, 12)
-            ));
-
-            leftLabel = new JLabel();
-            leftLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-
-            rightLabel = new JLabel();
-            rightLabel.setFont(new Font("Segoe UI", Font.PLAIN, 11));
-            rightLabel.setHorizontalAlignment(SwingConstants.RIGHT);
-
-            add(leftLabel, BorderLayout.WEST);
-            add(rightLabel, BorderLayout.EAST);
+    // Only open tasks due between the two dates (inclusive) changed between
+    // overdue, due today and later; completed rows and search or view
+    // results don't show that status. The agenda's sections and relative
+    // views (e.g. "Due this week") pick different tasks, so those reload.
+    private void dayChanged(int oldDay, int newDay) {
+        taskRenderer.dateChanged();
+        if (agendaVisible || activeView != null) {
+            refreshTaskList();
+            return;
         }
+        if (searchQuery != null) return;
+        for (Task task : manager.findLoadedDueBetween(Math.min(oldDay, newDay), Math.max(oldDay, newDay))) {
+            taskListModel.taskUpdated(task);
+        }
+    }
 
-        @Override
-        public Component getListCellRendererComponent(JList<? extends String> list, String value, int index,
-                boolean isSelected, boolean cellHasFocus) {
-            String[] parts = value.split(":::");
-            String left = parts[0];
-            String right = parts.length > 1 ? parts[1] : "";
-
-            // Handle completed header
-            if (value.equals("---COMPLETED_HEADER---")) {
-                JPanel headerPanel = new JPanel(new BorderLayout());
-                headerPanel.setBackground(new Color(248, 248, 248));
-                headerPanel.setBorder(BorderFactory.createCompoundBorder(
-                        BorderFactory.createMatteBorder(1, 0, 1, 0, new Color(200, 200, 200)),
-                        BorderFactory.createEmptyBorder(12, 12, 8, 12)
-                ));
-                headerPanel.setCursor(new Cursor(Cursor.HAND_CURSOR));
-                
-                JLabel headerLabel = new JLabel("> Completed");
-                headerLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
-                headerLabel.setForeground(new Color(120, 120, 120));
-                headerPanel.add(headerLabel, BorderLayout.WEST);
-                headerPanel.setOpaque(true);
-                
-                return headerPanel;
+    private void queueRefresh() {
+        if (refreshQueued) return;
+        refreshQueued = true;
+        SwingUtilities.invokeLater(() -> {
+            refreshQueued = false;
+            for (String tab : tabButtons.keySet()) {
+                updateTabButton(tab);
             }
+            refreshTaskList();
+        });
+    }
 
-            // Handle empty state
-            if (left.contains("(empty)")) {
-                leftLabel.setText("<html>" + left + "</html>");
-                rightLabel.setText("");
-                setBackground(new Color(255, 255, 255));
-                setOpaque(true);
-                return this;
-            }
+    private void runSearch() {
+        String query = searchField.getText().trim();
+        if (query.isEmpty() && searchQuery == null) return;
+        searchQuery = query.isEmpty() ? null : searchField.getText();
+        if (searchQuery != null) {
+            clearView();
+        }
+        currentSelectedTask = null;
+        updateRightPanel();
+        refreshTaskList();
+    }
 
-            leftLabel.setText("<html>" + left + "</html>");
-            rightLabel.setText("<html>" + right + "</html>");
+    // Leaves search mode without another refresh from the field's listener
+    private void clearSearch() {
+        if (searchQuery == null) return;
+        searchQuery = null;
+        searchField.setText("");
+        searchTimer.stop();
+    }
 
-            if (isSelected) {
-                setBackground(new Color(240, 244, 248));
-            } else {
-                setBackground(new Color(255, 255, 255));
-            }
-            
-            setOpaque(true);
-            return this;
-        }
+    private void saveTasks() {
+        manager.saveTasks();
     }
 
     public static void main(String[] args) {
+        StartupTimeline.mark("main");
+        Resources.preload();
+        EdtWatchdog.install();
         SwingUtilities.invokeLater(() -> {
             new FlowStateGUI();
         });
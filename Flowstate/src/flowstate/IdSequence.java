@@ -0,0 +1,331 @@
+package flowstate;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+// A list of task ids with O(log n) insert and remove by position and O(log n)
+// position of an id, for lists whose entries shift under edits (tab positions,
+// list rows). An int array plus indexOf() is O(n) for both.
+//
+// A treap keyed by position like PersistentList, but mutable and kept in
+// parallel int arrays, so an entry costs a few ints rather than a node object.
+// Parent links let indexOf() walk up from the id's node, which a small
+// open-addressing map finds. Node 0 is the empty tree. Ids are expected to be
+// distinct; a repeated one is found at the position it was last inserted at.
+final class IdSequence {
+    private static final int NIL = 0;
+    private static final int BAND = Integer.MAX_VALUE / 33;
+
+    private int[] ids;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private int[] size;
+    private int[] priority;
+    private int root = NIL;
+    private int used = 1;
+    // Removed nodes, chained through left[]
+    private int free = NIL;
+
+    // id -> node; node 0 marks an empty slot
+    private int[] keys;
+    private int[] nodes;
+    private int mapped;
+
+    // The two halves from split()
+    private int splitLeft;
+    private int splitRight;
+
+    IdSequence() {
+        this(8);
+    }
+
+    IdSequence(int capacity) {
+        int n = Math.max(8, capacity + 1);
+        ids = new int[n];
+        left = new int[n];
+        right = new int[n];
+        parent = new int[n];
+        size = new int[n];
+        priority = new int[n];
+        int slots = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+        keys = new int[slots];
+        nodes = new int[slots];
+    }
+
+    // O(n), balanced from the start
+    static IdSequence of(int[] values, int count) {
+        IdSequence sequence = new IdSequence(count);
+        sequence.insertAll(0, values, count);
+        return sequence;
+    }
+
+    int size() {
+        return size[root];
+    }
+
+    int get(int index) {
+        checkIndex(index, size());
+        int n = root;
+        while (true) {
+            int leftSize = size[left[n]];
+            if (index < leftSize) {
+                n = left[n];
+            } else if (index == leftSize) {
+                return ids[n];
+            } else {
+                index -= leftSize + 1;
+                n = right[n];
+            }
+        }
+    }
+
+    // -1 if the id isn't in the list
+    int indexOf(int id) {
+        int n = find(id);
+        return n == NIL ? -1 : position(n);
+    }
+
+    void insert(int index, int id) {
+        checkIndex(index, size() + 1);
+        int n = node(id, ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+        split(root, index);
+        int before = splitLeft;
+        int after = splitRight;
+        setRoot(merge(merge(before, n), after));
+    }
+
+    void add(int id) {
+        insert(size(), id);
+    }
+
+    // The first count values, as one balanced block
+    void insertAll(int index, int[] values, int count) {
+        checkIndex(index, size() + 1);
+        if (count == 0) return;
+        int block = build(values, 0, count, 32 - Integer.numberOfLeadingZeros(count));
+        split(root, index);
+        int before = splitLeft;
+        int after = splitRight;
+        setRoot(merge(merge(before, block), after));
+    }
+
+    // Returns the old position, or -1
+    int remove(int id) {
+        int n = find(id);
+        if (n == NIL) return -1;
+        int index = position(n);
+        unmap(id);
+        // The node's children take its place; the sizes above it drop by one
+        int up = parent[n];
+        int merged = merge(left[n], right[n]);
+        if (up == NIL) {
+            root = merged;
+        } else if (left[up] == n) {
+            left[up] = merged;
+        } else {
+            right[up] = merged;
+        }
+        parent[merged] = up;
+        for (int p = up; p != NIL; p = parent[p]) {
+            size[p]--;
+        }
+        left[n] = free;
+        free = n;
+        return index;
+    }
+
+    void clear() {
+        root = NIL;
+        used = 1;
+        free = NIL;
+        Arrays.fill(nodes, NIL);
+        mapped = 0;
+    }
+
+    int[] toArray() {
+        int[] values = new int[size()];
+        fill(root, values, 0);
+        return values;
+    }
+
+    // ----- tree -----
+
+    private int position(int n) {
+        int index = size[left[n]];
+        for (; n != root; n = parent[n]) {
+            int up = parent[n];
+            if (right[up] == n) index += size[left[up]] + 1;
+        }
+        return index;
+    }
+
+    // Levels get priority bands from the top down, as in PersistentList.build()
+    private int build(int[] values, int from, int to, int level) {
+        if (from >= to) return NIL;
+        int mid = (from + to) >>> 1;
+        int n = node(values[mid], BAND * level + ThreadLocalRandom.current().nextInt(BAND));
+        // Not left[n] = build(...): the arrays may be replaced while building
+        int below = build(values, from, mid, level - 1);
+        int above = build(values, mid + 1, to, level - 1);
+        left[n] = below;
+        right[n] = above;
+        pull(n);
+        return n;
+    }
+
+    // First count entries of the tree into splitLeft, the rest into splitRight
+    private void split(int n, int count) {
+        if (n == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+            return;
+        }
+        if (count <= size[left[n]]) {
+            split(left[n], count);
+            left[n] = splitRight;
+            pull(n);
+            splitRight = n;
+        } else {
+            split(right[n], count - size[left[n]] - 1);
+            right[n] = splitLeft;
+            pull(n);
+            splitLeft = n;
+        }
+    }
+
+    private int merge(int a, int b) {
+        if (a == NIL) return b;
+        if (b == NIL) return a;
+        if (priority[a] >= priority[b]) {
+            right[a] = merge(right[a], b);
+            pull(a);
+            return a;
+        }
+        left[b] = merge(a, left[b]);
+        pull(b);
+        return b;
+    }
+
+    // Size and the children's parent links from n's children; writes to
+    // parent[NIL] are harmless
+    private void pull(int n) {
+        size[n] = size[left[n]] + size[right[n]] + 1;
+        parent[left[n]] = n;
+        parent[right[n]] = n;
+    }
+
+    private void setRoot(int n) {
+        root = n;
+        parent[n] = NIL;
+    }
+
+    private int fill(int n, int[] values, int at) {
+        if (n == NIL) return at;
+        at = fill(left[n], values, at);
+        values[at++] = ids[n];
+        return fill(right[n], values, at);
+    }
+
+    private int node(int id, int nodePriority) {
+        int n;
+        if (free != NIL) {
+            n = free;
+            free = left[n];
+        } else {
+            if (used == ids.length) grow();
+            n = used++;
+        }
+        ids[n] = id;
+        left[n] = NIL;
+        right[n] = NIL;
+        size[n] = 1;
+        priority[n] = nodePriority;
+        map(id, n);
+        return n;
+    }
+
+    private void grow() {
+        int n = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, n);
+        left = Arrays.copyOf(left, n);
+        right = Arrays.copyOf(right, n);
+        parent = Arrays.copyOf(parent, n);
+        size = Arrays.copyOf(size, n);
+        priority = Arrays.copyOf(priority, n);
+    }
+
+    // ----- id -> node map (see IntMap) -----
+
+    private int find(int id) {
+        int mask = keys.length - 1;
+        for (int i = slot(id, mask); nodes[i] != NIL; i = (i + 1) & mask) {
+            if (keys[i] == id) return nodes[i];
+        }
+        return NIL;
+    }
+
+    private void map(int id, int n) {
+        int mask = keys.length - 1;
+        int i = slot(id, mask);
+        for (; nodes[i] != NIL; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                nodes[i] = n;
+                return;
+            }
+        }
+        keys[i] = id;
+        nodes[i] = n;
+        if (++mapped * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private void unmap(int id) {
+        int mask = keys.length - 1;
+        int i = slot(id, mask);
+        for (; nodes[i] != NIL; i = (i + 1) & mask) {
+            if (keys[i] == id) break;
+        }
+        if (nodes[i] == NIL) return;
+        int gap = i;
+        for (int j = (gap + 1) & mask; nodes[j] != NIL; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                nodes[gap] = nodes[j];
+                gap = j;
+            }
+        }
+        nodes[gap] = NIL;
+        mapped--;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldNodes = nodes;
+        keys = new int[capacity];
+        nodes = new int[capacity];
+        int mask = capacity - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldNodes[k] == NIL) continue;
+            int i = slot(oldKeys[k], mask);
+            while (nodes[i] != NIL) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[k];
+            nodes[i] = oldNodes[k];
+        }
+    }
+
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package flowstate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Passes the rows a reader appends to a tab's list on to a
+// Storage.LoadListener, a batch at a time. Each batch is a copy, since the
+// list keeps growing on the reader's thread.
+final class LoadBatcher {
+    static final int BATCH_SIZE = 500;
+
+    private final Storage.LoadListener listener;
+    private String tab;
+    private List<Task> tasks;
+    private int reported;
+
+    LoadBatcher(Storage.LoadListener listener) {
+        this.listener = listener;
+    }
+
+    // Tabs known before any of their rows are read
+    void tabs(Collection<String> names) {
+        for (String name : names) {
+            listener.loaded(name, List.of());
+        }
+    }
+
+    // After a row was appended to tasks, the list of tab
+    void added(String tab, List<Task> tasks) {
+        if (tasks != this.tasks) {
+            flush();
+            this.tab = tab;
+            this.tasks = tasks;
+            reported = tasks.size() - 1;
+        }
+        if (tasks.size() - reported >= BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    // Hands over whatever is left; call when the reader is done
+    void flush() {
+        if (tasks == null || tasks.size() == reported) return;
+        listener.loaded(tab, new ArrayList<>(tasks.subList(reported, tasks.size())));
+        reported = tasks.size();
+    }
+}
@@ -1,10 +1,14 @@
 package flowstate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 public class MainApp {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
-        Storage storage = new FileStorage();
+        // -Dflowstate.storage=binary|db|sharded picks the backend (see Storage)
+        Storage storage = Storage.fromSystemProperty();
         TaskManager manager = new TaskManager(storage);
 
         int choice;
@@ -15,6 +19,7 @@ public class MainApp {
             System.out.println("3. Mark Task as Completed");
             System.out.println("4. Delete Task");
             System.out.println("5. Save and Exit");
+            System.out.println("6. Saved Views");
             System.out.print("Enter choice: ");
             choice = scanner.nextInt();
             scanner.nextLine();
@@ -46,8 +51,12 @@ public class MainApp {
                     break;
                 case 5:
                     manager.saveTasks();
+                    manager.close();
                     System.out.println("Goodbye!");
                     break;
+                case 6:
+                    listViews(scanner, manager);
+                    break;
                 default:
                     System.out.println("Invalid choice, please try again.");
             }
@@ -55,4 +64,26 @@ public class MainApp {
 
         scanner.close();
     }
+
+    private static void listViews(Scanner scanner, TaskManager manager) {
+        List<Map.Entry<String, TaskQuery>> views = new ArrayList<>(TaskQuery.savedViews().entrySet());
+        for (int i = 0; i < views.size(); i++) {
+            System.out.println((i + 1) + ". " + views.get(i).getKey());
+        }
+        System.out.print("Enter view number: ");
+        int viewIndex = scanner.nextInt() - 1;
+        scanner.nextLine();
+        if (viewIndex < 0 || viewIndex >= views.size()) {
+            System.out.println("Invalid view number.");
+            return;
+        }
+        List<Task> tasks = manager.query(views.get(viewIndex).getValue());
+        if (tasks.isEmpty()) {
+            System.out.println("No tasks in this view.");
+        }
+        for (Task task : tasks) {
+            System.out.println("\n[" + manager.getTabOf(task) + "]");
+            task.displayTaskDetails();
+        }
+    }
 }
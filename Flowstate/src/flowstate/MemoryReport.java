@@ -0,0 +1,62 @@
+package flowstate;
+
+import java.util.List;
+import java.util.Map;
+
+// Heap used per task by the loaded model, for sizing large deployments:
+//
+//   java -Dflowstate.storage=... -cp <classes> flowstate.MemoryReport
+//
+// Loads every tab of the configured backend (see Storage.fromSystemProperty)
+// and reports the retained heap per task, first for the tasks plus the
+// indexes TaskManager and the backend always keep, then for the search index
+// that is built on the first search.
+public class MemoryReport {
+    public static void main(String[] args) throws InterruptedException {
+        long base = usedHeap();
+        TaskManager manager = new TaskManager(Storage.fromSystemProperty());
+        int count = 0;
+        int withDescription = 0;
+        int dated = 0;
+        for (String tab : manager.getTabNames()) {
+            for (Task task : manager.getTasks(tab)) {
+                count++;
+                if (!task.getDescription().isEmpty()) withDescription++;
+                if (task.hasDueDate()) dated++;
+            }
+        }
+        long loaded = usedHeap();
+        manager.rebuildSearchIndex();
+        long indexed = usedHeap();
+
+        System.out.println("===== MEMORY REPORT =====");
+        System.out.println("Tasks: " + count + " (" + percent(withDescription, count) + " with a description, "
+                + percent(dated, count) + " with a due date)");
+        if (count == 0) {
+            manager.close();
+            return;
+        }
+        System.out.println("Model + storage indexes: " + (loaded - base) / count + " bytes/task");
+        System.out.println("Search index:            " + (indexed - loaded) / count + " bytes/task");
+        for (Map.Entry<String, List<Task>> entry : manager.snapshot().entrySet()) {
+            System.out.println("  " + entry.getKey() + ": " + entry.getValue().size() + " tasks");
+        }
+        manager.close();
+    }
+
+    // Used heap once the collector has settled
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(50);
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    private static String percent(int part, int total) {
+        return total == 0 ? "0%" : (100L * part / total) + "%";
+    }
+}
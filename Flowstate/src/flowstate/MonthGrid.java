@@ -0,0 +1,184 @@
+package flowstate;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.function.IntConsumer;
+
+// The month of day buttons used by the due date picker and the calendar
+// view. The 42 buttons are made once and showMonth() only relabels them.
+// With a TaskManager, each day also shows how many open tasks are due then
+// (in red once the day has passed) from the manager's per-day counters, so
+// flipping months takes 42 lookups however many tasks there are. The counts
+// follow task changes while the grid is on screen. Tabs deferred at startup
+// are read in the background; the counts cover the loaded ones until then.
+class MonthGrid extends JPanel {
+    private static final String[] DAY_NAMES = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+    private static final Color SELECTED = new Color(59, 130, 246);
+    private static final Color OVERDUE = Color.decode("#EF4444");
+    private static final Color COUNT = Color.decode("#6B7280");
+
+    private final JButton[] dayButtons = new JButton[42];
+    private final TaskManager counts;
+    private final int[] open = new int[42];
+    private final int[] done = new int[42];
+    private final TaskEvent.Listener listener = e -> queueRefresh();
+    private volatile boolean refreshQueued;
+    private boolean loadingTabs;
+
+    // Epoch days: the first button, and the month shown
+    private int firstDay;
+    private int monthStart;
+    private int monthEnd;
+    private int selectedDay = DueDates.NO_DATE;
+
+    // counts may be null for a plain picker; onPick gets the epoch day clicked
+    MonthGrid(TaskManager counts, IntConsumer onPick) {
+        super(new GridLayout(7, 7, 8, 8));
+        this.counts = counts;
+        setBackground(Color.white);
+        for (String name : DAY_NAMES) {
+            JLabel dayLabel = new JLabel(name);
+            dayLabel.setFont(Resources.font("Segoe UI", Font.BOLD, 12));
+            dayLabel.setHorizontalAlignment(SwingConstants.CENTER);
+            dayLabel.setOpaque(false);
+            add(dayLabel);
+        }
+        for (int i = 0; i < dayButtons.length; i++) {
+            final int cell = i;
+            JButton dayButton = new JButton() {
+                @Override
+                protected void paintComponent(Graphics g) {
+                    super.paintComponent(g);
+                    paintCount(g, this, cell);
+                }
+            };
+            dayButton.setFocusPainted(false);
+            dayButton.setMargin(new Insets(4, 4, 4, 4));
+            dayButton.setOpaque(true);
+            dayButton.setBorder(BorderFactory.createLineBorder(new Color(220, 220, 220), 1));
+            dayButton.setPreferredSize(new Dimension(35, 35));
+            dayButton.addActionListener(e -> onPick.accept(firstDay + cell));
+            dayButtons[i] = dayButton;
+            add(dayButton);
+        }
+    }
+
+    // month is 1-12
+    void showMonth(int year, int month) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        monthStart = (int) first.toEpochDay();
+        monthEnd = monthStart + first.lengthOfMonth() - 1;
+        firstDay = monthStart - first.getDayOfWeek().getValue() % 7; // Sunday first
+        refreshCounts();
+    }
+
+    // DueDates.NO_DATE for none
+    void select(int epochDay) {
+        selectedDay = epochDay;
+        updateButtons();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (counts != null) {
+            counts.addTaskListener(listener);
+            refreshCounts();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        if (counts != null) {
+            counts.removeTaskListener(listener);
+        }
+        super.removeNotify();
+    }
+
+    // Events come from whichever thread made the change, often many at once
+    private void queueRefresh() {
+        if (refreshQueued) return;
+        refreshQueued = true;
+        SwingUtilities.invokeLater(() -> {
+            refreshQueued = false;
+            refreshCounts();
+        });
+    }
+
+    private void refreshCounts() {
+        if (counts != null && monthStart <= monthEnd) {
+            counts.countLoadedDueDays(firstDay, open, done);
+            if (counts.hasUnloadedTabs()) {
+                loadTabs();
+            }
+        }
+        updateButtons();
+    }
+
+    // Reads the deferred tabs off the event thread, then counts again
+    private void loadTabs() {
+        if (loadingTabs) return;
+        loadingTabs = true;
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                counts.loadAllTabs();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                loadingTabs = false;
+                try {
+                    get();
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.out.println("Error loading tasks: " + cause.getMessage());
+                    return;
+                }
+                refreshCounts();
+            }
+        }.execute();
+    }
+
+    private void updateButtons() {
+        int today = (int) LocalDate.now().toEpochDay();
+        for (int i = 0; i < dayButtons.length; i++) {
+            JButton dayButton = dayButtons[i];
+            int day = firstDay + i;
+            if (day < monthStart || day > monthEnd) {
+                dayButton.setEnabled(false);
+                dayButton.setText("");
+                dayButton.setToolTipText(null);
+                dayButton.setBackground(new Color(250, 250, 250));
+                continue;
+            }
+            dayButton.setEnabled(true);
+            dayButton.setText(String.valueOf(day - monthStart + 1));
+            boolean selected = day == selectedDay;
+            dayButton.setBackground(selected ? SELECTED : Color.white);
+            dayButton.setForeground(selected ? Color.white : new Color(30, 30, 30));
+            dayButton.setFont(Resources.font("Segoe UI", selected ? Font.BOLD : Font.PLAIN, 13));
+            if (counts == null || open[i] + done[i] == 0) {
+                dayButton.setToolTipText(null);
+            } else {
+                dayButton.setToolTipText(open[i] + " open, " + done[i] + " completed"
+                        + (open[i] > 0 && day < today ? " (overdue)" : ""));
+            }
+        }
+    }
+
+    // Open tasks due that day in the top right corner
+    private void paintCount(Graphics g, JButton dayButton, int cell) {
+        int day = firstDay + cell;
+        if (counts == null || open[cell] == 0 || day < monthStart || day > monthEnd) return;
+        boolean selected = day == selectedDay;
+        boolean overdue = day < LocalDate.now().toEpochDay();
+        String text = open[cell] > 99 ? "99+" : String.valueOf(open[cell]);
+        g.setFont(Resources.font("Segoe UI", Font.BOLD, 9));
+        FontMetrics metrics = g.getFontMetrics();
+        g.setColor(selected ? Color.white : overdue ? OVERDUE : COUNT);
+        g.drawString(text, dayButton.getWidth() - metrics.stringWidth(text) - 3, metrics.getAscent() + 1);
+    }
+}
@@ -0,0 +1,209 @@
+package flowstate;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Immutable list with O(log n) insert/remove/set by index. Each change copies
+// only the nodes on the path it touched and shares the rest with the old
+// version, so keeping an old version around costs nothing until the new one
+// diverges, and handing one out is O(1).
+//
+// A treap keyed by position: nodes carry subtree sizes for indexing and a
+// priority kept in heap order, which keeps the tree balanced on average.
+final class PersistentList<T> {
+    private static final PersistentList<?> EMPTY = new PersistentList<>(null);
+
+    private static final class Node<T> {
+        final T value;
+        final Node<T> left;
+        final Node<T> right;
+        final int size;
+        final int priority;
+
+        Node(T value, Node<T> left, Node<T> right, int priority) {
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.priority = priority;
+        }
+
+        Node<T> with(Node<T> left, Node<T> right) {
+            return new Node<>(value, left, right, priority);
+        }
+    }
+
+    // The two halves of a split(), filled in on the way back up
+    private static final class Split<T> {
+        Node<T> left;
+        Node<T> right;
+    }
+
+    private final Node<T> root;
+    private List<T> view;
+
+    private PersistentList(Node<T> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> PersistentList<T> empty() {
+        return (PersistentList<T>) EMPTY;
+    }
+
+    // O(n), balanced from the start
+    static <T> PersistentList<T> of(List<T> values) {
+        if (values.isEmpty()) return empty();
+        int height = 32 - Integer.numberOfLeadingZeros(values.size());
+        return new PersistentList<>(build(values, 0, values.size(), height, new Random(values.size())));
+    }
+
+    // Levels get priority bands from the top down, so the heap order holds;
+    // later inserts draw from the whole range and mostly land near the leaves
+    private static <T> Node<T> build(List<T> values, int from, int to, int level, Random random) {
+        if (from >= to) return null;
+        int mid = (from + to) >>> 1;
+        int band = Integer.MAX_VALUE / 33;
+        int priority = band * level + random.nextInt(band);
+        return new Node<>(values.get(mid), build(values, from, mid, level - 1, random),
+                build(values, mid + 1, to, level - 1, random), priority);
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    T get(int index) {
+        checkIndex(index, size());
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    PersistentList<T> insert(int index, T value) {
+        checkIndex(index, size() + 1);
+        Split<T> parts = split(root, index);
+        Node<T> node = new Node<>(value, null, null, ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+        return new PersistentList<>(merge(merge(parts.left, node), parts.right));
+    }
+
+    PersistentList<T> add(T value) {
+        return insert(size(), value);
+    }
+
+    PersistentList<T> remove(int index) {
+        checkIndex(index, size());
+        Split<T> parts = split(root, index);
+        Split<T> rest = split(parts.right, 1);
+        return new PersistentList<>(merge(parts.left, rest.right));
+    }
+
+    PersistentList<T> set(int index, T value) {
+        checkIndex(index, size());
+        return new PersistentList<>(set(root, index, value));
+    }
+
+    // Read-only java.util.List over this version
+    List<T> asList() {
+        if (view == null) {
+            view = new View();
+        }
+        return view;
+    }
+
+    private static <T> Node<T> set(Node<T> node, int index, T value) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return node.with(set(node.left, index, value), node.right);
+        } else if (index > leftSize) {
+            return node.with(node.left, set(node.right, index - leftSize - 1, value));
+        }
+        return new Node<>(value, node.left, node.right, node.priority);
+    }
+
+    // [0, count) and [count, size)
+    private static <T> Split<T> split(Node<T> node, int count) {
+        if (node == null) {
+            return new Split<>();
+        }
+        int leftSize = size(node.left);
+        if (count <= leftSize) {
+            Split<T> parts = split(node.left, count);
+            parts.right = node.with(parts.right, node.right);
+            return parts;
+        }
+        Split<T> parts = split(node.right, count - leftSize - 1);
+        parts.left = node.with(node.left, parts.left);
+        return parts;
+    }
+
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority >= right.priority) {
+            return left.with(left.left, merge(left.right, right));
+        }
+        return right.with(merge(left, right.left), right.right);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private final class View extends AbstractList<T> {
+        @Override
+        public T get(int index) {
+            return PersistentList.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return PersistentList.this.size();
+        }
+
+        // In-order walk, O(n) for the whole list instead of O(n log n)
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private final Deque<Node<T>> stack = new ArrayDeque<>();
+                {
+                    push(root);
+                }
+
+                private void push(Node<T> node) {
+                    for (; node != null; node = node.left) {
+                        stack.push(node);
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return !stack.isEmpty();
+                }
+
+                @Override
+                public T next() {
+                    if (stack.isEmpty()) throw new NoSuchElementException();
+                    Node<T> node = stack.pop();
+                    push(node.right);
+                    return node.value;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package flowstate;
+
+import java.awt.Color;
+
+// Task priority with what the list needs to draw it, worked out once.
+// Declared lowest first, so ordinal() sorts by urgency.
+public enum Priority {
+    LOW("Low", "[L]", "#7FD56F"),
+    MEDIUM("Medium", "[M]", "#FBBF24"),
+    HIGH("High", "[H]", "#EF4444");
+
+    private final String label;
+    private final String icon;
+    private final String colorHex;
+    private final Color color;
+
+    Priority(String label, String icon, String colorHex) {
+        this.label = label;
+        this.icon = icon;
+        this.colorHex = colorHex;
+        this.color = Color.decode(colorHex);
+    }
+
+    public String getLabel() { return label; }
+    public String getIcon() { return icon; }
+    public String getColorHex() { return colorHex; }
+    public Color getColor() { return color; }
+
+    // Anything that isn't High or Medium has always been shown as Low
+    public static Priority parse(String text) {
+        if (text != null) {
+            String p = text.trim();
+            if (p.equalsIgnoreCase("High")) return HIGH;
+            if (p.equalsIgnoreCase("Medium")) return MEDIUM;
+        }
+        return LOW;
+    }
+}
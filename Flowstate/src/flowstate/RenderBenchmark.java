@@ -0,0 +1,127 @@
+package flowstate;
+
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+
+// Scroll frame times for the task list, for checking renderer changes:
+//
+//   java -Djava.awt.headless=true -cp <classes> flowstate.RenderBenchmark [tasks]
+//
+// Fills the list with generated tasks, then paints a 600px viewport into an
+// image while scrolling down 15px a frame (the list's scroll increment),
+// which is what a repaint of the JScrollPane does. Prints frame time
+// percentiles and the bytes allocated per frame, both for the whole paint
+// (JList and CellRendererPane included) and for the cell renderer alone.
+public class RenderBenchmark {
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 600;
+    private static final int ROW_HEIGHT = 45;
+    private static final int STEP = 15;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        List<Task> tasks = new ArrayList<>(count);
+        int today = (int) java.time.LocalDate.now().toEpochDay();
+        Priority[] priorities = Priority.values();
+        for (int i = 0; i < count; i++) {
+            Task task = new Task("Task " + i + " follow up with the team", "", today - 30 + i % 90, priorities[i % 3]);
+            task.setCompleted(i % 4 == 0);
+            tasks.add(task);
+        }
+
+        TaskListModel model = new TaskListModel();
+        model.showTab(tasks, "(empty) No tasks yet.");
+        JList<Object> list = new JList<>(model);
+        ListCellRenderer<Object> renderer = new TaskRenderer(model, task -> TaskManager.DEFAULT_TAB);
+        list.setCellRenderer(renderer);
+        list.setFixedCellHeight(ROW_HEIGHT);
+        list.setFixedCellWidth(WIDTH);
+        list.setSize(WIDTH, model.getSize() * ROW_HEIGHT);
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D screen = image.createGraphics();
+        int frames = Math.min(5000, (list.getHeight() - HEIGHT) / STEP);
+        // Warm up the JIT and the renderer's caches on the same frames
+        paint(list, screen, frames);
+        long[] times = paint(list, screen, frames);
+        long allocated = allocatedBytes();
+        paint(list, screen, frames);
+        allocated = allocatedSince(allocated);
+        stamp(list, renderer, screen, frames);
+        long rendererAllocated = allocatedBytes();
+        long[] rendererTimes = stamp(list, renderer, screen, frames);
+        rendererAllocated = allocatedSince(rendererAllocated);
+        screen.dispose();
+        Arrays.sort(rendererTimes);
+
+        Arrays.sort(times);
+        System.out.println("===== RENDER BENCHMARK =====");
+        System.out.println("Rows: " + model.getSize() + ", frames: " + frames + " (" + HEIGHT / ROW_HEIGHT + " rows each)");
+        System.out.printf("Frame time: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                times[frames / 2] / 1e6, times[frames * 99 / 100] / 1e6, times[frames - 1] / 1e6);
+        System.out.println("Allocated: " + (allocated >= 0 ? allocated / frames + " bytes/frame" : "n/a"));
+        System.out.printf("Renderer alone: p50 %.3f ms, p99 %.3f ms, %s%n",
+                rendererTimes[frames / 2] / 1e6, rendererTimes[frames * 99 / 100] / 1e6,
+                rendererAllocated >= 0 ? rendererAllocated / frames + " bytes/frame" : "n/a");
+    }
+
+    private static long[] paint(JList<Object> list, Graphics2D screen, int frames) {
+        long[] times = new long[frames];
+        for (int frame = 0; frame < frames; frame++) {
+            int y = frame * STEP;
+            long start = System.nanoTime();
+            Graphics2D g = (Graphics2D) screen.create();
+            g.translate(0, -y);
+            g.clipRect(0, y, WIDTH, HEIGHT);
+            list.paint(g);
+            g.dispose();
+            times[frame] = System.nanoTime() - start;
+        }
+        return times;
+    }
+
+    // The same rows painted by calling the renderer directly
+    private static long[] stamp(JList<Object> list, ListCellRenderer<Object> renderer, Graphics2D screen, int frames) {
+        long[] times = new long[frames];
+        int rows = HEIGHT / ROW_HEIGHT + 1;
+        for (int frame = 0; frame < frames; frame++) {
+            int first = frame * STEP / ROW_HEIGHT;
+            long start = System.nanoTime();
+            for (int row = first; row < first + rows && row < list.getModel().getSize(); row++) {
+                Component cell = renderer.getListCellRendererComponent(list, list.getModel().getElementAt(row), row,
+                        false, false);
+                cell.setSize(WIDTH, ROW_HEIGHT);
+                // Skips JComponent.paint's own graphics copies, which JList pays either way
+                ((TaskRenderer) cell).paintComponent(screen);
+            }
+            times[frame] = System.nanoTime() - start;
+        }
+        return times;
+    }
+
+    // -1 where the JVM can't tell. Looked up by name so the app module doesn't
+    // require jdk.management for a benchmark; a full JDK resolves it anyway, a
+    // jlinked image without it prints n/a.
+    private static long allocatedBytes() {
+        try {
+            Method method = Class.forName("com.sun.management.ThreadMXBean")
+                    .getMethod("getCurrentThreadAllocatedBytes");
+            return (long) method.invoke(ManagementFactory.getThreadMXBean());
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static long allocatedSince(long start) {
+        long now = allocatedBytes();
+        return start < 0 || now < 0 ? -1 : now - start;
+    }
+}
@@ -0,0 +1,68 @@
+package flowstate;
+
+import java.awt.Font;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Fonts for the UI, each created once. preload() reads the bundled Nunito
+// font (a resource next to this class, so it works from a jar or an image,
+// not just from the project folder) on a background thread while storage
+// loads and the window is built; nunitoBold() only waits if that hasn't
+// finished yet. Falls back to Arial like before if the font can't be read.
+final class Resources {
+    private static final String NUNITO = "fonts/Nunito-VariableFont_wght.ttf";
+
+    private static volatile CompletableFuture<Font> nunito;
+    private static final Map<String, Font> fonts = new ConcurrentHashMap<>();
+
+    private Resources() {}
+
+    static void preload() {
+        nunito();
+    }
+
+    static Font nunitoBold(int size) {
+        return fonts.computeIfAbsent("Nunito/" + size, key -> {
+            Font base = nunito().join();
+            return base != null ? base.deriveFont(Font.BOLD, (float) size) : new Font("Arial", Font.BOLD, size);
+        });
+    }
+
+    // The UI's system fonts ("Segoe UI" and so on), shared between components
+    static Font font(String name, int style, int size) {
+        return fonts.computeIfAbsent(name + "/" + style + "/" + size, key -> new Font(name, style, size));
+    }
+
+    private static CompletableFuture<Font> nunito() {
+        CompletableFuture<Font> future = nunito;
+        if (future == null) {
+            synchronized (Resources.class) {
+                if (nunito == null) {
+                    nunito = CompletableFuture.supplyAsync(Resources::loadNunito);
+                }
+                future = nunito;
+            }
+        }
+        return future;
+    }
+
+    private static Font loadNunito() {
+        StartupTimeline.mark("font load started");
+        try (InputStream in = Resources.class.getResourceAsStream(NUNITO)) {
+            if (in == null) {
+                System.out.println("Error loading font: " + NUNITO + " not found");
+                return null;
+            }
+            Font font = Font.createFont(Font.TRUETYPE_FONT, in);
+            // Resolves the glyphs now instead of on the first paint
+            font.deriveFont(Font.BOLD, 14f).canDisplayUpTo("FlowState");
+            StartupTimeline.mark("fonts loaded");
+            return font;
+        } catch (Exception e) {
+            System.out.println("Error loading font: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package flowstate;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// In-memory inverted index over task titles and descriptions:
+// lower-cased word -> sorted ids of the tasks that contain it. Words are kept
+// in a sorted map so the word still being typed can match as a prefix.
+//
+// TaskManager keeps it current through its change methods; build() makes a
+// new one from scratch, indexing chunks of tasks on the common pool.
+//
+// A query's candidates are the ids in every complete word's postings and in
+// at least one posting of the words starting with the prefix. They are found
+// by walking the smaller side (the rarest complete word or the union of the
+// prefix's words) and checking the rest by binary search. Scoring looks at
+// each candidate's text, so that is the part that is capped: past MAX_SCORED
+// candidates, an even spread of them is scored rather than the oldest.
+class SearchIndex {
+    private static final int MAX_SCORED = 5000;
+    // A shorter last word only matches whole words: one letter starts so
+    // many words that their union costs more than the typing it helps
+    static final int MIN_PREFIX_LENGTH = 2;
+    // Past this many words starting with the prefix, their union is built
+    // once instead of probing each word's postings per candidate
+    private static final int MAX_PREFIX_PROBES = 16;
+
+    private static class Entry {
+        final Task task;
+        // Text as indexed; the task's fields may already hold the edited text
+        String title;
+        String description;
+
+        Entry(Task task) {
+            this.task = task;
+        }
+    }
+
+    // Growable sorted int array
+    private static class Postings {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            if (size == 0 || ids[size - 1] < id) {
+                ids[size++] = id; // new tasks have the highest ids
+                return;
+            }
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void append(Postings other) {
+            if (size + other.size > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(size + other.size, ids.length * 2));
+            }
+            System.arraycopy(other.ids, 0, ids, size, other.size);
+            size += other.size;
+        }
+
+        void sortAndTrim() {
+            Arrays.sort(ids, 0, size);
+            ids = Arrays.copyOf(ids, size);
+        }
+    }
+
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final IntMap<Entry> entries = new IntMap<>();
+
+    // ----- building -----
+
+    static SearchIndex build(List<Task> tasks) {
+        SearchIndex index = new SearchIndex();
+        int chunkSize = Math.max(1024, tasks.size() / (Runtime.getRuntime().availableProcessors() * 4) + 1);
+        int chunks = (tasks.size() + chunkSize - 1) / chunkSize;
+        List<Map<String, Postings>> partials = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> indexChunk(tasks.subList(c * chunkSize, Math.min(tasks.size(), (c + 1) * chunkSize))))
+                .collect(Collectors.toList());
+        for (Map<String, Postings> partial : partials) {
+            for (Map.Entry<String, Postings> term : partial.entrySet()) {
+                Postings postings = index.terms.get(term.getKey());
+                if (postings == null) {
+                    index.terms.put(term.getKey(), term.getValue());
+                } else {
+                    postings.append(term.getValue());
+                }
+            }
+        }
+        index.terms.values().parallelStream().forEach(Postings::sortAndTrim);
+        for (Task task : tasks) {
+            Entry entry = new Entry(task);
+            entry.title = task.getTitle();
+            entry.description = task.getDescription();
+            index.entries.put(task.getId(), entry);
+        }
+        return index;
+    }
+
+    private static Map<String, Postings> indexChunk(List<Task> tasks) {
+        Map<String, Postings> terms = new HashMap<>();
+        Set<String> words = new HashSet<>();
+        for (Task task : tasks) {
+            words.clear();
+            addWords(task.getTitle(), words);
+            addWords(task.getDescription(), words);
+            for (String word : words) {
+                Postings postings = terms.computeIfAbsent(word, k -> new Postings());
+                if (postings.size == postings.ids.length) {
+                    postings.ids = Arrays.copyOf(postings.ids, postings.size * 2);
+                }
+                postings.ids[postings.size++] = task.getId(); // sorted after the merge
+            }
+        }
+        return terms;
+    }
+
+    // ----- incremental updates -----
+
+    void add(Task task) {
+        Entry entry = new Entry(task);
+        entries.put(task.getId(), entry);
+        index(entry);
+    }
+
+    // Re-indexes the task if its title or description changed since it was indexed
+    void update(Task task) {
+        Entry entry = entries.get(task.getId());
+        if (entry == null) {
+            add(task);
+            return;
+        }
+        if (Objects.equals(entry.title, task.getTitle())
+                && Objects.equals(entry.description, task.getDescription())) {
+            return;
+        }
+        unindex(entry);
+        index(entry);
+    }
+
+    void remove(Task task) {
+        Entry entry = entries.remove(task.getId());
+        if (entry != null) {
+            unindex(entry);
+        }
+    }
+
+    private void index(Entry entry) {
+        entry.title = entry.task.getTitle();
+        entry.description = entry.task.getDescription();
+        Set<String> words = new HashSet<>();
+        addWords(entry.title, words);
+        addWords(entry.description, words);
+        for (String word : words) {
+            terms.computeIfAbsent(word, k -> new Postings()).add(entry.task.getId());
+        }
+    }
+
+    private void unindex(Entry entry) {
+        Set<String> words = new HashSet<>();
+        addWords(entry.title, words);
+        addWords(entry.description, words);
+        for (String word : words) {
+            Postings postings = terms.get(word);
+            if (postings != null) {
+                postings.remove(entry.task.getId());
+                if (postings.size == 0) {
+                    terms.remove(word);
+                }
+            }
+        }
+    }
+
+    // ----- queries -----
+
+    // Best matches first. Every word must match; the last one may be a prefix
+    // unless the query ends in a space or it is shorter than MIN_PREFIX_LENGTH.
+    List<Task> search(String query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (words.isEmpty()) return new ArrayList<>();
+        boolean lastIsPrefix = Character.isLetterOrDigit(query.charAt(query.length() - 1))
+                && words.get(words.size() - 1).length() >= MIN_PREFIX_LENGTH;
+        int exactCount = lastIsPrefix ? words.size() - 1 : words.size();
+
+        List<Postings> exact = new ArrayList<>();
+        for (int i = 0; i < exactCount; i++) {
+            Postings postings = terms.get(words.get(i));
+            if (postings == null) return new ArrayList<>();
+            exact.add(postings);
+        }
+        exact.sort(Comparator.comparingInt(p -> p.size));
+
+        // The prefix matches the whole word or any longer word starting with it
+        List<Postings> prefixed = new ArrayList<>();
+        if (lastIsPrefix) {
+            String prefix = words.get(words.size() - 1);
+            prefixed.addAll(terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+            if (prefixed.isEmpty()) return new ArrayList<>();
+        }
+        int[] candidates = candidates(exact, prefixed);
+        int step = (candidates.length + MAX_SCORED - 1) / MAX_SCORED;
+
+        // Score in the high half, id in the low half: sorting gives best first,
+        // then oldest first
+        long[] ranked = new long[Math.min(candidates.length, MAX_SCORED)];
+        int matched = 0;
+        for (int i = 0; i < candidates.length; i += step) {
+            Entry entry = entries.get(candidates[i]);
+            if (entry == null) continue;
+            int score = score(entry, words, lastIsPrefix);
+            if (score > 0) {
+                ranked[matched++] = ((long) -score << 32) | candidates[i];
+            }
+        }
+        Arrays.sort(ranked, 0, matched);
+        List<Task> results = new ArrayList<>(Math.min(limit, matched));
+        for (int i = 0; i < matched && results.size() < limit; i++) {
+            results.add(entries.get((int) ranked[i]).task);
+        }
+        return results;
+    }
+
+    // Sorted ids, without duplicates, that every posting in exact has and
+    // at least one in prefixed has (when there are any)
+    private static int[] candidates(List<Postings> exact, List<Postings> prefixed) {
+        long prefixedSize = 0;
+        for (Postings postings : prefixed) {
+            prefixedSize += postings.size;
+        }
+        boolean prefixDrives = exact.isEmpty() || (!prefixed.isEmpty() && prefixedSize < exact.get(0).size);
+        Postings union = null;
+        if (prefixDrives || prefixed.size() > MAX_PREFIX_PROBES) {
+            union = union(prefixed);
+        }
+        Postings driver = prefixDrives ? union : exact.get(0);
+        int[] candidates = new int[driver.size];
+        int count = 0;
+        for (int i = 0; i < driver.size; i++) {
+            int id = driver.ids[i];
+            boolean all = true;
+            for (int j = prefixDrives ? 0 : 1; j < exact.size() && all; j++) {
+                all = exact.get(j).contains(id);
+            }
+            if (all && !prefixDrives && !prefixed.isEmpty()) {
+                all = union != null ? union.contains(id) : anyContains(prefixed, id);
+            }
+            if (all) candidates[count++] = id;
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private static Postings union(List<Postings> lists) {
+        Postings union = new Postings();
+        for (Postings postings : lists) {
+            union.append(postings);
+        }
+        Arrays.sort(union.ids, 0, union.size);
+        int n = 0;
+        for (int i = 0; i < union.size; i++) {
+            if (n == 0 || union.ids[n - 1] != union.ids[i]) {
+                union.ids[n++] = union.ids[i];
+            }
+        }
+        union.size = n;
+        return union;
+    }
+
+    private static boolean anyContains(List<Postings> lists, int id) {
+        for (Postings postings : lists) {
+            if (postings.contains(id)) return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    // 0 when some word doesn't match. Title hits count more than description
+    // hits, whole words more than prefixes, and open tasks rank above done ones.
+    private static int score(Entry entry, List<String> words, boolean lastIsPrefix) {
+        int score = 0;
+        for (int i = 0; i < words.size(); i++) {
+            boolean prefix = lastIsPrefix && i == words.size() - 1;
+            String word = words.get(i);
+            int inTitle = match(entry.title, word, prefix);
+            int inDescription = match(entry.description, word, prefix);
+            if (inTitle == 0 && inDescription == 0) return 0;
+            score += inTitle * 4 + inDescription;
+        }
+        if (entry.title != null && entry.title.regionMatches(true, 0, words.get(0), 0, words.get(0).length())) {
+            score += 4;
+        }
+        return entry.task.isCompleted() ? score : score + 20;
+    }
+
+    // Whether every word starts a word of the task's title or description,
+    // for filtering without the index (see TaskQuery)
+    static boolean matchesAll(Task task, List<String> words) {
+        for (String word : words) {
+            if (match(task.getTitle(), word, true) == 0 && match(task.getDescription(), word, true) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 3 for a whole-word hit, 2 for a word starting with it (prefix only), else 0
+    private static int match(String text, String word, boolean prefix) {
+        if (text == null) return 0;
+        int best = 0;
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(text.charAt(i))) i++;
+            int length = i - start;
+            if (length >= word.length() && text.regionMatches(true, start, word, 0, word.length())) {
+                if (length == word.length()) return 3;
+                if (prefix) best = 2;
+            }
+        }
+        return best;
+    }
+
+    private static void addWords(String text, Set<String> words) {
+        if (text == null) return;
+        words.addAll(words(text));
+    }
+
+    // Lower-cased runs of letters and digits
+    static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int n = lower.length();
+        int i = 0;
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(lower.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(lower.charAt(i))) i++;
+            if (i > start) {
+                words.add(lower.substring(start, i));
+            }
+        }
+        return words;
+    }
+}
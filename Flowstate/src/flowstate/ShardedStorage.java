@@ -0,0 +1,343 @@
+package flowstate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Storage with one file per tab under tasks/, plus a manifest for tab order
+// and names:
+//
+//   tasks/manifest.txt   "#manifest 1", then one "<shard id>|<tab name>" per tab
+//   tasks/shard-<id>.txt one task per line, same escaped fields as tasks.txt
+//                        but without the tab prefix
+//
+// Renaming or deleting a tab only rewrites the manifest. A save rewrites just
+// the shards whose tab was touched since the last save, and startup reads all
+// shards in parallel. A load that can't read the manifest or every shard
+// fails rather than return fewer tabs, and shards are only ever deleted by
+// deleteTab(), so a bad read can't turn into deleted tabs on the next save.
+public class ShardedStorage implements Storage {
+    static final String DIRECTORY = "tasks";
+    private static final String MANIFEST = "manifest.txt";
+    private static final String MANIFEST_HEADER = "#manifest 1";
+
+    private final Path directory;
+    private final String textFileName;
+
+    // Tab name -> shard id, in display order
+    private final Map<String, Integer> shards = new LinkedHashMap<>();
+    private final Set<String> dirtyTabs = new HashSet<>();
+    private int nextShardId = 1;
+
+    // The caller's tab map, written back shard by shard
+    private Map<String, ArrayList<Task>> model;
+    private final TaskPositions positions = new TaskPositions();
+    private int batchDepth;
+
+    public ShardedStorage() {
+        this(DIRECTORY, FileStorage.FILE_NAME);
+    }
+
+    public ShardedStorage(String directory, String textFileName) {
+        this.directory = Paths.get(directory);
+        this.textFileName = textFileName;
+    }
+
+    // The CLI works on the General tab
+    @Override
+    public void saveData(ArrayList<Task> tasks) {
+        Map<String, ArrayList<Task>> tabTasks = model != null ? model : loadDataByTabs();
+        tabTasks.put("General", tasks);
+        model = tabTasks;
+        positions.loadTab("General", tasks);
+        dirtyTabs.add("General");
+        writeDirtyShards();
+    }
+
+    @Override
+    public ArrayList<Task> loadData() {
+        return loadDataByTabs().getOrDefault("General", new ArrayList<>());
+    }
+
+    @Override
+    public Map<String, ArrayList<Task>> loadDataByTabs() {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return migrateFromText();
+        }
+        model = null;
+        shards.clear();
+        dirtyTabs.clear();
+        try {
+            readManifest(manifest);
+        } catch (IOException | NumberFormatException e) {
+            System.out.println("Error reading tab manifest: " + e.getMessage());
+            throw new UncheckedIOException("Could not read " + manifest, asIOException(e));
+        }
+
+        // One task per shard; results are put back in manifest order
+        List<String> tabs = new ArrayList<>(shards.keySet());
+        List<Callable<ArrayList<Task>>> loads = new ArrayList<>();
+        for (String tab : tabs) {
+            Path shard = shardPath(shards.get(tab));
+            loads.add(() -> readShard(shard));
+        }
+        if (tabs.isEmpty()) {
+            model = FileStorage.defaultTabs();
+            return model;
+        }
+        // The manifest is the full tab list, so deleted default tabs stay deleted
+        Map<String, ArrayList<Task>> tabTasks = new LinkedHashMap<>();
+        ExecutorService pool = ForkJoinPool.commonPool();
+        try {
+            List<Future<ArrayList<Task>>> results = pool.invokeAll(loads);
+            for (int i = 0; i < tabs.size(); i++) {
+                tabTasks.put(tabs.get(i), results.get(i).get());
+            }
+            System.out.println("Tasks loaded successfully by tabs!");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException("Interrupted loading " + directory, new InterruptedIOException());
+        } catch (ExecutionException e) {
+            System.out.println("Error loading tasks: " + e.getCause().getMessage());
+            throw new UncheckedIOException("Could not load " + directory, asIOException(e.getCause()));
+        }
+        model = tabTasks;
+        positions.loadAll(tabTasks);
+        return tabTasks;
+    }
+
+    // Replaces everything, so tabs the map doesn't have are deleted
+    @Override
+    public void saveDataByTabs(Map<String, ArrayList<Task>> tabTasks) {
+        for (String tab : new ArrayList<>(shards.keySet())) {
+            if (!tabTasks.containsKey(tab)) {
+                deleteTab(tab);
+            }
+        }
+        model = tabTasks;
+        positions.loadAll(tabTasks);
+        dirtyTabs.addAll(tabTasks.keySet());
+        if (writeDirtyShards()) {
+            System.out.println("Tasks saved successfully!");
+        }
+    }
+
+    // Task changes mark their tab; its shard is rewritten once the change
+    // (or the batch around it) is complete
+
+    @Override
+    public void insertTask(String tab, int index, Task task) {
+        positions.insert(tab, index, task.getId());
+        changed(tab);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        changed(positions.tabOf(task.getId()));
+    }
+
+    @Override
+    public void deleteTask(Task task) {
+        String tab = positions.tabOf(task.getId());
+        positions.remove(task.getId());
+        changed(tab);
+    }
+
+    @Override
+    public void moveTask(Task task, String toTab, int toIndex) {
+        String fromTab = positions.tabOf(task.getId());
+        positions.remove(task.getId());
+        positions.insert(toTab, toIndex, task.getId());
+        if (fromTab != null) {
+            dirtyTabs.add(fromTab);
+        }
+        changed(toTab);
+    }
+
+    // Tab changes are manifest edits and are written right away
+    @Override
+    public void createTab(String tab) {
+        if (shards.containsKey(tab)) return;
+        int id = nextShardId++;
+        shards.put(tab, id);
+        try {
+            Files.createDirectories(directory);
+            writeShard(shardPath(id), new ArrayList<>());
+            writeManifest();
+        } catch (IOException e) {
+            System.out.println("Error saving tab: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void renameTab(String oldName, String newName) {
+        positions.renameTab(oldName, newName);
+        Integer id = shards.get(oldName);
+        if (id == null) return;
+        // Rebuild to keep the tab at the same position in the manifest
+        Map<String, Integer> renamed = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : shards.entrySet()) {
+            renamed.put(entry.getKey().equals(oldName) ? newName : entry.getKey(), entry.getValue());
+        }
+        shards.clear();
+        shards.putAll(renamed);
+        if (dirtyTabs.remove(oldName)) {
+            dirtyTabs.add(newName);
+        }
+        try {
+            writeManifest();
+        } catch (IOException e) {
+            System.out.println("Error saving tab: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void deleteTab(String tab) {
+        positions.deleteTab(tab);
+        Integer id = shards.remove(tab);
+        dirtyTabs.remove(tab);
+        if (id == null) return;
+        try {
+            writeManifest();
+            Files.deleteIfExists(shardPath(id));
+        } catch (IOException e) {
+            System.out.println("Error deleting tab: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    @Override
+    public void endBatch() {
+        if (batchDepth > 0 && --batchDepth == 0) {
+            writeDirtyShards();
+        }
+    }
+
+    @Override
+    public void flush() {
+        writeDirtyShards();
+    }
+
+    private void changed(String tab) {
+        if (tab == null) return;
+        dirtyTabs.add(tab);
+        if (batchDepth == 0) {
+            writeDirtyShards();
+        }
+    }
+
+    // Writes the shards of dirty tabs, plus any tab the manifest doesn't know
+    // yet. A shard whose tab isn't in the model is left alone.
+    private boolean writeDirtyShards() {
+        if (model == null) return false;
+        try {
+            Files.createDirectories(directory);
+            boolean manifestChanged = false;
+            for (Map.Entry<String, ArrayList<Task>> entry : model.entrySet()) {
+                String tab = entry.getKey();
+                if (!shards.containsKey(tab)) {
+                    shards.put(tab, nextShardId++);
+                    manifestChanged = true;
+                } else if (!dirtyTabs.contains(tab)) {
+                    continue;
+                }
+                writeShard(shardPath(shards.get(tab)), entry.getValue());
+            }
+            if (manifestChanged || !Files.exists(directory.resolve(MANIFEST))) {
+                writeManifest();
+            }
+            dirtyTabs.clear();
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error saving tasks: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Map<String, ArrayList<Task>> migrateFromText() {
+        if (!Files.exists(Paths.get(textFileName))) {
+            System.out.println("No existing tasks found, starting fresh.");
+            model = FileStorage.defaultTabs();
+            return model;
+        }
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.readTextFile(textFileName);
+        shards.clear();
+        saveDataByTabs(tabTasks);
+        System.out.println("Migrated " + textFileName + " to " + directory + "/");
+        return tabTasks;
+    }
+
+    private void readManifest(Path manifest) throws IOException {
+        try (Reader in = new InputStreamReader(Files.newInputStream(manifest), StandardCharsets.UTF_8)) {
+            TaskLineTokenizer tokenizer = new TaskLineTokenizer(in);
+            while (tokenizer.next()) {
+                if (tokenizer.fieldCount() < 2) {
+                    continue; // header
+                }
+                int id = tokenizer.fieldAsInt(0);
+                shards.put(tokenizer.field(1), id);
+                nextShardId = Math.max(nextShardId, id + 1);
+            }
+        }
+    }
+
+    private static IOException asIOException(Throwable e) {
+        return e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+    }
+
+    private void writeManifest() throws IOException {
+        StringBuilder sb = new StringBuilder(MANIFEST_HEADER).append(System.lineSeparator());
+        for (Map.Entry<String, Integer> entry : shards.entrySet()) {
+            sb.append(entry.getValue()).append('|');
+            TaskLineTokenizer.appendEscaped(sb, entry.getKey());
+            sb.append(System.lineSeparator());
+        }
+        writeAtomically(directory.resolve(MANIFEST), sb.toString());
+    }
+
+    private static ArrayList<Task> readShard(Path shard) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        if (!Files.exists(shard)) {
+            return tasks;
+        }
+        try (Reader in = new InputStreamReader(Files.newInputStream(shard), StandardCharsets.UTF_8)) {
+            TaskLineTokenizer tokenizer = new TaskLineTokenizer(in);
+            while (tokenizer.next()) {
+                Task task = FileStorage.readTask(tokenizer, 0);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private static void writeShard(Path shard, List<Task> tasks) throws IOException {
+        StringBuilder sb = new StringBuilder(tasks.size() * 64);
+        for (Task task : tasks) {
+            sb.append(FileStorage.formatTask(task)).append(System.lineSeparator());
+        }
+        writeAtomically(shard, sb.toString());
+    }
+
+    private static void writeAtomically(Path target, String content) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path shardPath(int id) {
+        return directory.resolve("shard-" + id + ".txt");
+    }
+}
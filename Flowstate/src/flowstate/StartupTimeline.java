@@ -0,0 +1,74 @@
+package flowstate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+// Where the GUI's startup time goes, printed once the first frame is painted
+// and the tasks are loaded (they load in the background, so either can come
+// first) when run with -Dflowstate.startupTimeline=true (for an image, pass
+// it through JDK_JAVA_OPTIONS):
+//
+//   [startup]    212 ms  main                     +212 ms
+//   [startup]    388 ms  UI built                 +176 ms
+//   ...
+//
+// Times are from JVM start, each with the time since the previous mark.
+// StartupTrainingRun closes the app at that point, for timing runs and the
+// AppCDS training run in build-image.sh.
+final class StartupTimeline {
+    static final boolean ENABLED = Boolean.getBoolean("flowstate.startupTimeline");
+
+    private static final List<String> phases = new ArrayList<>();
+    private static final List<Long> times = new ArrayList<>();
+    private static boolean painted;
+    private static boolean loaded;
+    private static boolean finished;
+    private static Runnable whenFinished;
+
+    private StartupTimeline() {}
+
+    // Runs on the thread that ends startup, once
+    static synchronized void whenFinished(Runnable action) {
+        whenFinished = action;
+    }
+
+    // Any thread; ignored once the timeline is printed
+    static synchronized void mark(String phase) {
+        if (!ENABLED || finished) return;
+        phases.add(phase);
+        times.add(System.currentTimeMillis());
+    }
+
+    // Call from paint
+    static synchronized void firstPaint() {
+        if (painted) return;
+        mark("first paint");
+        painted = true;
+        finish();
+    }
+
+    static synchronized void tasksShown() {
+        if (loaded) return;
+        mark("tasks shown");
+        loaded = true;
+        finish();
+    }
+
+    private static void finish() {
+        if (!painted || !loaded || finished) return;
+        finished = true;
+        if (ENABLED) {
+            long start = ManagementFactory.getRuntimeMXBean().getStartTime();
+            long previous = start;
+            for (int i = 0; i < phases.size(); i++) {
+                long time = times.get(i);
+                System.out.printf("[startup] %6d ms  %-24s +%d ms%n", time - start, phases.get(i), time - previous);
+                previous = time;
+            }
+        }
+        if (whenFinished != null) {
+            whenFinished.run();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package flowstate;
+
+import java.awt.Frame;
+import java.awt.event.WindowEvent;
+import javax.swing.SwingUtilities;
+
+// Starts the GUI and closes it as soon as startup is over (first frame painted
+// and tasks shown), the way a user closing the window would, so the tasks are
+// saved as usual. For timing runs and the AppCDS training run in
+// build-image.sh:
+//
+//   java -Dflowstate.startupTimeline=true -p <mods> -m Flowstate/flowstate.StartupTrainingRun
+public class StartupTrainingRun {
+    public static void main(String[] args) {
+        StartupTimeline.whenFinished(() -> SwingUtilities.invokeLater(() -> {
+            for (Frame frame : Frame.getFrames()) {
+                if (frame.isDisplayable()) {
+                    frame.dispatchEvent(new WindowEvent(frame, WindowEvent.WINDOW_CLOSING));
+                }
+            }
+        }));
+        FlowStateGUI.main(args);
+    }
+}
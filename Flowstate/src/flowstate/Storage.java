@@ -1,7 +1,100 @@
 package flowstate;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
+// Tasks are kept per tab. The lists handed out by loadDataByTabs() are the
+// caller's model: the caller changes a list, then reports that change through
+// one of the change methods below, so a backend only has to persist what
+// changed. Tasks are identified by Task.getId().
+//
+// A change outside a batch is written (or queued for a writer thread) before
+// the call returns; changes between beginBatch() and endBatch() are written
+// together at the end. flush() waits until everything reported is on disk.
 public interface Storage {
     void saveData(ArrayList<Task> tasks);
     ArrayList<Task> loadData();
+
+    Map<String, ArrayList<Task>> loadDataByTabs();
+
+    // Replaces everything with tabTasks
+    void saveDataByTabs(Map<String, ArrayList<Task>> tabTasks);
+
+    // Lazy loading: tabs other than visibleTab may map to null until loadTab()
+    default Map<String, ArrayList<Task>> loadDataByTabs(String visibleTab) {
+        return loadDataByTabs();
+    }
+
+    // Rows handed out while a load is still running, on the loading thread.
+    // An empty list just announces a tab. The tasks are the ones the load
+    // returns, as it returns them: rows that journal replay could still move,
+    // change or delete aren't handed out early.
+    interface LoadListener {
+        void loaded(String tab, List<Task> tasks);
+    }
+
+    // loadDataByTabs(visibleTab), reporting rows to progress as they're read so
+    // a UI can show them early. Backends that read everything in one go report
+    // each tab once at the end.
+    default Map<String, ArrayList<Task>> loadDataByTabs(String visibleTab, LoadListener progress) {
+        Map<String, ArrayList<Task>> tabTasks = loadDataByTabs(visibleTab);
+        for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+            progress.loaded(entry.getKey(), entry.getValue() != null ? entry.getValue() : List.of());
+        }
+        return tabTasks;
+    }
+
+    default ArrayList<Task> loadTab(String tab) {
+        return new ArrayList<>();
+    }
+
+    // Row count of a tab that hasn't been loaded yet, -1 if it is loaded
+    default int getUnloadedTaskCount(String tab) {
+        return -1;
+    }
+
+    // How many of those rows are completed, -1 if loaded or not known
+    default int getUnloadedCompletedCount(String tab) {
+        return -1;
+    }
+
+    // ----- changes, reported after the model was updated -----
+
+    void insertTask(String tab, int index, Task task);
+
+    void updateTask(Task task);
+
+    void deleteTask(Task task);
+
+    void moveTask(Task task, String toTab, int toIndex);
+
+    void createTab(String tab);
+
+    void renameTab(String oldName, String newName);
+
+    void deleteTab(String tab);
+
+    void beginBatch();
+
+    void endBatch();
+
+    void flush();
+
+    default void close() {
+        flush();
+    }
+
+    // -Dflowstate.storage=binary|db|sharded switches to tasks.bin, tasks.db or
+    // the per-tab files in tasks/ (each is migrated from tasks.txt on first run)
+    static Storage fromSystemProperty() {
+        String backend = System.getProperty("flowstate.storage", "text");
+        if (backend.equals("binary")) {
+            return new BinaryStorage();
+        } else if (backend.equals("db")) {
+            return new DatabaseStorage();
+        } else if (backend.equals("sharded")) {
+            return new ShardedStorage();
+        }
+        return new FileStorage(true);
+    }
 }
\ No newline at end of file
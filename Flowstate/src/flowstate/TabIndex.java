@@ -0,0 +1,137 @@
+package flowstate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Sidecar index (tasks.txt.idx) recording where each tab's rows sit in the
+// snapshot, so startup only has to read the tab that is on screen.
+//
+//   #generation <n>
+//   #snapshot <size> <lastModified>
+//   #format 2
+//   <offset>|<length>|<count>|<completed>|<tab name>
+//
+// Indexes from before the completed column have no #format line; their
+// completed counts read as -1 (unknown).
+// It is written after the snapshot is in place and describes that exact file;
+// if the size or timestamp don't match, the index is ignored.
+class TabIndex {
+    private static final String SUFFIX = ".idx";
+    // Older readers fail on this line and fall back to a full load
+    private static final String FORMAT = "#format 2";
+
+    static class Entry {
+        final String tab;
+        final long offset;
+        final long length;
+        final int count;
+        final int completed;
+
+        Entry(String tab, long offset, long length, int count, int completed) {
+            this.tab = tab;
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+            this.completed = completed;
+        }
+    }
+
+    final long generation;
+    final Map<String, Entry> entries;
+
+    private TabIndex(long generation, Map<String, Entry> entries) {
+        this.generation = generation;
+        this.entries = entries;
+    }
+
+    // null when there is no index or it belongs to a different snapshot
+    static TabIndex read(String snapshotFile) {
+        File snapshot = new File(snapshotFile);
+        File indexFile = new File(snapshotFile + SUFFIX);
+        if (!snapshot.exists() || !indexFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            long generation = Long.parseLong(reader.readLine().substring("#generation ".length()));
+            String[] stamp = reader.readLine().substring("#snapshot ".length()).split(" ");
+            if (Long.parseLong(stamp[0]) != snapshot.length() || Long.parseLong(stamp[1]) != snapshot.lastModified()) {
+                return null;
+            }
+            Map<String, Entry> entries = new LinkedHashMap<>();
+            String line = reader.readLine();
+            boolean withCompleted = FORMAT.equals(line);
+            if (withCompleted) {
+                line = reader.readLine();
+            }
+            for (; line != null; line = reader.readLine()) {
+                // Tab name goes last so it may contain '|'
+                String[] parts = line.split("\\|", withCompleted ? 5 : 4);
+                Entry entry = new Entry(parts[parts.length - 1], Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                        Integer.parseInt(parts[2]), withCompleted ? Integer.parseInt(parts[3]) : -1);
+                entries.put(entry.tab, entry);
+            }
+            return new TabIndex(generation, entries);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static void write(String snapshotFile, long generation, List<Entry> entries) {
+        File snapshot = new File(snapshotFile).getAbsoluteFile();
+        File target = new File(snapshot.getPath() + SUFFIX);
+        File temp = new File(target.getPath() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temp.toPath(), StandardCharsets.UTF_8))) {
+            writer.println("#generation " + generation);
+            writer.println("#snapshot " + snapshot.length() + " " + snapshot.lastModified());
+            writer.println(FORMAT);
+            for (Entry entry : entries) {
+                writer.println(entry.offset + "|" + entry.length + "|" + entry.count + "|" + entry.completed + "|" + entry.tab);
+            }
+        } catch (IOException e) {
+            System.out.println("Error writing tab index: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.out.println("Error writing tab index: " + e.getMessage());
+        }
+    }
+
+    // Reads just this tab's byte range from the snapshot; batches (may be
+    // null) is told about each row as it's read
+    static ArrayList<Task> readRange(String snapshotFile, Entry entry, LoadBatcher batches) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) entry.length);
+        try (FileChannel channel = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.READ)) {
+            long position = entry.offset;
+            while (buf.hasRemaining()) {
+                int n = channel.read(buf, position);
+                if (n < 0) throw new IOException("tab range past end of file");
+                position += n;
+            }
+        }
+        ArrayList<Task> tasks = new ArrayList<>(entry.count);
+        TaskLineTokenizer tokenizer = new TaskLineTokenizer(new InputStreamReader(
+                new ByteArrayInputStream(buf.array(), 0, buf.position()), StandardCharsets.UTF_8));
+        while (tokenizer.next()) {
+            if (tokenizer.separatorAfter(0) != '|' || !tokenizer.fieldIs(0, entry.tab)) {
+                throw new IOException("tab index out of date");
+            }
+            Task task = FileStorage.readTask(tokenizer, 1);
+            if (task != null) {
+                tasks.add(task);
+                if (batches != null) {
+                    batches.added(entry.tab, tasks);
+                }
+            }
+        }
+        if (batches != null) {
+            batches.flush();
+        }
+        return tasks;
+    }
+}
@@ -1,40 +1,173 @@
 package flowstate;
 
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Task {
+    // Ids are handed out per run and identify a task to Storage; they are not saved
+    private static final AtomicInteger NEXT_ID = new AtomicInteger(1);
+
+    private final int id = NEXT_ID.getAndIncrement();
 	private String title;
     private String description;
-    private String dueDate;
-    private String priority;
-    private boolean completed;
+    // Parsed when set, so a task is a few ints and two strings. The typed text
+    // is only kept (in typedText) when it wouldn't come back the same from the
+    // parsed value; the CLI accepts any text.
+    private int dueDay = DueDates.NO_DATE;
+    // Priority ordinal in the low bits, plus COMPLETED
+    private byte flags;
+    private TypedText typedText;
+
+    private static final int PRIORITY_MASK = 0x3;
+    private static final int COMPLETED = 0x4;
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    // Rare, so it lives outside the task instead of as two fields on every one
+    private static class TypedText {
+        String dueDate;
+        String priority;
+    }
 
     public Task(String title, String description, String dueDate, String priority) {
         this.title = title;
         this.description = description;
-        this.dueDate = dueDate;
-        this.priority = priority;
-        this.completed = false;
+        setDueDate(dueDate);
+        setPriority(priority);
+    }
+
+    // For loaders that already have the parsed values
+    public Task(String title, String description, int dueDay, Priority priority) {
+        this.title = title;
+        this.description = description;
+        this.dueDay = dueDay;
+        this.flags = (byte) priority.ordinal();
     }
 
+    public int getId() { return id; }
+
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
-    public String getDueDate() { return dueDate; }
-    public void setDueDate(String dueDate) { this.dueDate = dueDate; }
+    public String getDueDate() {
+        if (typedText != null && typedText.dueDate != null) return typedText.dueDate;
+        return DueDates.isDate(dueDay) ? DueDates.format(dueDay) : null;
+    }
+
+    public void setDueDate(String dueDate) {
+        dueDay = DueDates.parse(dueDate);
+        setTypedDueDate(DueDates.isDate(dueDay) && DueDates.format(dueDay).equals(dueDate) ? null : dueDate);
+    }
+
+    // Epoch day, or DueDates.NO_DATE / DueDates.INVALID
+    public int getDueDay() { return dueDay; }
+    public void setDueDay(int dueDay) {
+        this.dueDay = dueDay;
+        setTypedDueDate(null);
+    }
+
+    public boolean hasDueDate() { return DueDates.isDate(dueDay); }
+
+    public String getPriority() {
+        if (typedText != null && typedText.priority != null) return typedText.priority;
+        return getPriorityLevel().getLabel();
+    }
+
+    public void setPriority(String priority) {
+        Priority level = Priority.parse(priority);
+        setFlag(PRIORITY_MASK, false);
+        setFlag(level.ordinal(), true);
+        setTypedPriority(level.getLabel().equals(priority) ? null : priority);
+    }
+
+    public Priority getPriorityLevel() { return PRIORITIES[flags & PRIORITY_MASK]; }
+    public void setPriorityLevel(Priority priority) {
+        setFlag(PRIORITY_MASK, false);
+        setFlag(priority.ordinal(), true);
+        setTypedPriority(null);
+    }
+
+    // True when the priority text isn't one of the Priority labels
+    public boolean hasCustomPriority() { return typedText != null && typedText.priority != null; }
+
+    public boolean isCompleted() { return (flags & COMPLETED) != 0; }
+    public void setCompleted(boolean completed) { setFlag(COMPLETED, completed); }
+
+    // Copy of the editable fields, for undo
+    static final class Fields {
+        private final String title;
+        private final String description;
+        private final int dueDay;
+        private final byte flags;
+        private final String typedDueDate;
+        private final String typedPriority;
+
+        private Fields(Task task) {
+            title = task.title;
+            description = task.description;
+            dueDay = task.dueDay;
+            flags = task.flags;
+            typedDueDate = task.typedText != null ? task.typedText.dueDate : null;
+            typedPriority = task.typedText != null ? task.typedText.priority : null;
+        }
+
+        // Which fields differ from before; empty when nothing changed
+        Set<TaskEvent.Field> changedFrom(Fields before) {
+            Set<TaskEvent.Field> changed = EnumSet.noneOf(TaskEvent.Field.class);
+            if (!Objects.equals(title, before.title)) changed.add(TaskEvent.Field.TITLE);
+            if (!Objects.equals(description, before.description)) changed.add(TaskEvent.Field.DESCRIPTION);
+            if (dueDay != before.dueDay || !Objects.equals(typedDueDate, before.typedDueDate)) {
+                changed.add(TaskEvent.Field.DUE_DATE);
+            }
+            if (((flags ^ before.flags) & PRIORITY_MASK) != 0 || !Objects.equals(typedPriority, before.typedPriority)) {
+                changed.add(TaskEvent.Field.PRIORITY);
+            }
+            if (((flags ^ before.flags) & COMPLETED) != 0) changed.add(TaskEvent.Field.COMPLETED);
+            return changed;
+        }
+    }
 
-    public String getPriority() { return priority; }
-    public void setPriority(String priority) { this.priority = priority; }
+    Fields getFields() {
+        return new Fields(this);
+    }
 
-    public boolean isCompleted() { return completed; }
-    public void setCompleted(boolean completed) { this.completed = completed; }
+    void setFields(Fields fields) {
+        title = fields.title;
+        description = fields.description;
+        dueDay = fields.dueDay;
+        flags = fields.flags;
+        typedText = null;
+        setTypedDueDate(fields.typedDueDate);
+        setTypedPriority(fields.typedPriority);
+    }
+
+    private void setFlag(int bits, boolean on) {
+        flags = (byte) (on ? flags | bits : flags & ~bits);
+    }
+
+    private void setTypedDueDate(String text) {
+        if (text == null && typedText == null) return;
+        if (typedText == null) typedText = new TypedText();
+        typedText.dueDate = text;
+        if (typedText.dueDate == null && typedText.priority == null) typedText = null;
+    }
+
+    private void setTypedPriority(String text) {
+        if (text == null && typedText == null) return;
+        if (typedText == null) typedText = new TypedText();
+        typedText.priority = text;
+        if (typedText.dueDate == null && typedText.priority == null) typedText = null;
+    }
 
     public void displayTaskDetails() {
         System.out.println("Title: " + title);
         System.out.println("Description: " + description);
-        System.out.println("Due Date: " + dueDate);
-        System.out.println("Priority: " + priority);
-        System.out.println("Completed: " + (completed ? "Yes" : "No"));
+        System.out.println("Due Date: " + getDueDate());
+        System.out.println("Priority: " + getPriority());
+        System.out.println("Completed: " + (isCompleted() ? "Yes" : "No"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,645 @@
+package flowstate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Small embedded task database (tasks.db), in-process and local-only.
+//
+// The file is a log of records; a row is changed by appending its new version
+// and a delete appends a tombstone. Only keys and offsets stay in memory:
+//
+//   rows        row id -> tab, due day, priority, completed, file offset
+//   tabRows     tab id -> row ids in display order
+//   byDueDate   (due day, row id) packed into one sorted long
+//   byPriority  priority -> row ids
+//   completed   row ids that are done
+//
+// Titles and descriptions are read from disk only for rows a caller asks for,
+// so a query such as "overdue in Work" touches the due-date index plus the
+// matching rows, not the whole data set. Dead versions are dropped by
+// compact(), which runs on open/close once more than half the file is garbage.
+//
+// Sort keys are sparse: a row added at the end of a tab gets the last key plus
+// KEY_GAP and a row inserted or moved between two others gets the midpoint of
+// theirs, so only that row is rewritten. The tab is renumbered only when two
+// neighbours have no key left between them. tabRows stays sorted by key, so a
+// row's position is found by binary search.
+//
+// Record framing: int length, byte type, then the body.
+//   ROW: long id, int tabId, long sortKey, int dueDay, byte priority, byte flags,
+//        title, description [, raw date] [, raw priority]
+//   DELETE: long id
+//   TAB: int tabId, byte op (create/rename/delete), name
+// Strings are int length + UTF-8, -1 for null.
+public class TaskDatabase implements Closeable {
+    private static final byte ROW = 1;
+    private static final byte DELETE = 2;
+    private static final byte TAB = 3;
+
+    private static final byte TAB_CREATE = 0;
+    private static final byte TAB_RENAME = 1;
+    private static final byte TAB_DELETE = 2;
+
+    private static final byte FLAG_COMPLETED = 1;
+    private static final byte FLAG_RAW_DATE = 2;
+    private static final byte FLAG_RAW_PRIORITY = 4;
+
+    // Priority codes, ordered so that a higher code is more urgent
+    public static final byte LOW = 0;
+    public static final byte MEDIUM = 1;
+    public static final byte HIGH = 2;
+    private static final byte OTHER = 3;
+    private static final String[] PRIORITY_NAMES = {"Low", "Medium", "High"};
+    private static final Priority[] PRIORITY_LEVELS = Priority.values();
+
+    private static final int HEADER = 5; // length + type
+    private static final long KEY_GAP = 1L << 32;
+    private static final long COMPACT_MIN_BYTES = 1 << 20;
+
+    private static class RowMeta {
+        int tabId;
+        long sortKey;
+        int dueDay;
+        byte priority;
+        boolean completed;
+        long offset;
+        int length;
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private long fileSize;
+    private long liveBytes;
+
+    private final Map<Long, RowMeta> rows = new HashMap<>();
+    private final Map<Integer, String> tabNames = new TreeMap<>(); // tab id order = display order
+    private final Map<String, Integer> tabIds = new HashMap<>();
+    private final Map<Integer, ArrayList<Long>> tabRows = new HashMap<>();
+    private final NavigableSet<Long> byDueDate = new TreeSet<>();
+    private final Map<Byte, Set<Long>> byPriority = new HashMap<>();
+    private final Set<Long> completed = new HashSet<>();
+
+    private long nextRowId = 1;
+    private int nextTabId = 1;
+    private ByteBuffer scratch = ByteBuffer.allocate(512);
+
+    public TaskDatabase(String fileName) throws IOException {
+        this.path = Paths.get(fileName);
+        try {
+            open();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        if (fileSize > COMPACT_MIN_BYTES && liveBytes * 2 < fileSize) {
+            compact();
+        }
+    }
+
+    // ----- tabs -----
+
+    public List<String> getTabNames() {
+        return new ArrayList<>(tabNames.values());
+    }
+
+    public boolean hasTab(String name) {
+        return tabIds.containsKey(name);
+    }
+
+    public void createTab(String name) throws IOException {
+        if (tabIds.containsKey(name)) return;
+        int tabId = nextTabId++;
+        writeTab(tabId, TAB_CREATE, name);
+        applyTab(tabId, TAB_CREATE, name);
+    }
+
+    public void renameTab(String oldName, String newName) throws IOException {
+        Integer tabId = tabIds.get(oldName);
+        if (tabId == null) {
+            createTab(newName);
+            return;
+        }
+        writeTab(tabId, TAB_RENAME, newName);
+        applyTab(tabId, TAB_RENAME, newName);
+    }
+
+    public void deleteTab(String name) throws IOException {
+        Integer tabId = tabIds.get(name);
+        if (tabId == null) return;
+        List<Long> ids = new ArrayList<>(tabRows.get(tabId));
+        // From the end, so each removal from the tab's order is cheap
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            delete(ids.get(i));
+        }
+        writeTab(tabId, TAB_DELETE, name);
+        applyTab(tabId, TAB_DELETE, name);
+    }
+
+    public int count(String tab) {
+        Integer tabId = tabIds.get(tab);
+        return tabId == null ? 0 : tabRows.get(tabId).size();
+    }
+
+    // ----- rows -----
+
+    // Row id of the task at this position of the tab, as shown by the GUI
+    public long rowIdAt(String tab, int index) {
+        return tabRows.get(tabIds.get(tab)).get(index);
+    }
+
+    public long insert(String tab, Task task) throws IOException {
+        return insert(tab, count(tab), task);
+    }
+
+    public long insert(String tab, int index, Task task) throws IOException {
+        createTab(tab);
+        int tabId = tabIds.get(tab);
+        long id = nextRowId++;
+        writeRow(id, tabId, sortKeyAt(tabId, index, 0), task);
+        return id;
+    }
+
+    // Moves a row to position index of tab (possibly the same tab)
+    public void move(long id, String tab, int index) throws IOException {
+        RowMeta meta = rows.get(id);
+        if (meta == null) return;
+        Task task = readTask(meta);
+        createTab(tab);
+        int tabId = tabIds.get(tab);
+        writeRow(id, tabId, sortKeyAt(tabId, index, id), task);
+    }
+
+    // Sort key for position index of the tab, counting positions as if row
+    // skip (the row being moved, 0 for none) weren't in it
+    private long sortKeyAt(int tabId, int index, long skip) throws IOException {
+        ArrayList<Long> ids = tabRows.get(tabId);
+        RowMeta moving = rows.get(skip);
+        int self = moving != null && moving.tabId == tabId ? position(ids, moving.sortKey) : ids.size();
+        int size = self < ids.size() ? ids.size() - 1 : ids.size();
+        index = Math.max(0, Math.min(index, size));
+        if (size == 0) return 0;
+        // Neighbours in ids, stepping over skip
+        int below = index - 1 < self ? index - 1 : index;
+        int above = index < self ? index : index + 1;
+        if (index == 0) return rows.get(ids.get(above)).sortKey - KEY_GAP;
+        if (index == size) return rows.get(ids.get(below)).sortKey + KEY_GAP;
+        long low = rows.get(ids.get(below)).sortKey;
+        long high = rows.get(ids.get(above)).sortKey;
+        if (high - low > 1) return low + (high - low) / 2;
+        renumber(tabId);
+        return sortKeyAt(tabId, index, skip);
+    }
+
+    // Spreads the tab's keys KEY_GAP apart again; the order doesn't change
+    private void renumber(int tabId) throws IOException {
+        List<Long> ids = new ArrayList<>(tabRows.get(tabId));
+        for (int i = 0; i < ids.size(); i++) {
+            RowMeta row = rows.get(ids.get(i));
+            writeRow(ids.get(i), tabId, i * KEY_GAP, readTask(row), false);
+        }
+    }
+
+    // Rewrites one row in place of the old version; position and tab are kept
+    public void update(long id, Task task) throws IOException {
+        RowMeta meta = rows.get(id);
+        if (meta == null) return;
+        writeRow(id, meta.tabId, meta.sortKey, task);
+    }
+
+    public void delete(long id) throws IOException {
+        RowMeta meta = rows.get(id);
+        if (meta == null) return;
+        ByteBuffer buf = begin(DELETE);
+        buf.putLong(id);
+        append(buf);
+        removeFromIndexes(id, meta, true);
+        liveBytes -= meta.length;
+    }
+
+    public Task get(long id) throws IOException {
+        RowMeta meta = rows.get(id);
+        return meta == null ? null : readTask(meta);
+    }
+
+    public ArrayList<Task> loadTab(String tab) throws IOException {
+        Integer tabId = tabIds.get(tab);
+        ArrayList<Task> tasks = new ArrayList<>();
+        if (tabId == null) return tasks;
+        for (long id : tabRows.get(tabId)) {
+            tasks.add(readTask(rows.get(id)));
+        }
+        return tasks;
+    }
+
+    // ----- indexed queries -----
+
+    // Tasks due in [fromDay, toDay] (epoch days). tab, priority and completed
+    // narrow the result further; pass null to leave a condition out.
+    public List<Task> findByDueDate(int fromDay, int toDay, String tab, Byte priority, Boolean isCompleted)
+            throws IOException {
+        Integer tabId = tab == null ? null : tabIds.get(tab);
+        if (tab != null && tabId == null) return new ArrayList<>();
+        List<Task> result = new ArrayList<>();
+        long from = pack(fromDay, 0);
+        long to = pack(toDay, 0xFFFFFFFFL);
+        for (long key : byDueDate.subSet(from, true, to, true)) {
+            RowMeta meta = rows.get(key & 0xFFFFFFFFL);
+            if (matches(meta, tabId, priority, isCompleted)) {
+                result.add(readTask(meta));
+            }
+        }
+        return result;
+    }
+
+    public List<Task> findOverdue(String tab, int todayEpochDay) throws IOException {
+        return findByDueDate(DueDates.FIRST_DAY, todayEpochDay - 1, tab, null, false);
+    }
+
+    public List<Task> findByPriority(byte priority, String tab, Boolean isCompleted) throws IOException {
+        Integer tabId = tab == null ? null : tabIds.get(tab);
+        if (tab != null && tabId == null) return new ArrayList<>();
+        List<Task> result = new ArrayList<>();
+        for (long id : byPriority.getOrDefault(priority, Collections.emptySet())) {
+            RowMeta meta = rows.get(id);
+            if (matches(meta, tabId, null, isCompleted)) {
+                result.add(readTask(meta));
+            }
+        }
+        return result;
+    }
+
+    public int countCompleted(String tab) {
+        Integer tabId = tabIds.get(tab);
+        if (tabId == null) return 0;
+        int n = 0;
+        for (long id : completed) {
+            if (rows.get(id).tabId == tabId) n++;
+        }
+        return n;
+    }
+
+    // ----- maintenance -----
+
+    // Rewrites only the live rows and tabs into a fresh file
+    public void compact() throws IOException {
+        Path temp = Paths.get(path + ".tmp");
+        // In tab order, so every row goes on the end of its tab again
+        Map<Long, Task> live = new LinkedHashMap<>();
+        for (ArrayList<Long> ids : tabRows.values()) {
+            for (long id : ids) {
+                live.put(id, readTask(rows.get(id)));
+            }
+        }
+        Map<Long, RowMeta> oldRows = new HashMap<>(rows);
+        Map<Integer, String> oldTabs = new LinkedHashMap<>(tabNames);
+
+        channel.close();
+        Files.deleteIfExists(temp);
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        clearIndexes();
+        for (Map.Entry<Integer, String> tab : oldTabs.entrySet()) {
+            writeTab(tab.getKey(), TAB_CREATE, tab.getValue());
+            applyTab(tab.getKey(), TAB_CREATE, tab.getValue());
+        }
+        for (Map.Entry<Long, Task> entry : live.entrySet()) {
+            RowMeta old = oldRows.get(entry.getKey());
+            writeRow(entry.getKey(), old.tabId, old.sortKey, entry.getValue());
+        }
+        channel.force(true);
+        channel.close();
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        // Offsets were recorded against the temp file, which is now this file
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.READ);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fileSize > COMPACT_MIN_BYTES && liveBytes * 2 < fileSize) {
+            compact();
+        }
+        channel.force(true);
+        channel.close();
+    }
+
+    // ----- internals -----
+
+    private boolean matches(RowMeta meta, Integer tabId, Byte priority, Boolean isCompleted) {
+        return (tabId == null || meta.tabId == tabId)
+                && (priority == null || meta.priority == priority)
+                && (isCompleted == null || meta.completed == isCompleted);
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        long size = channel.size();
+        long offset = 0;
+        // Only the fixed part of each record is decoded; text is skipped
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            while (offset + HEADER <= size) {
+                int length = in.readInt();
+                byte type = in.readByte();
+                if (length >= 0 && offset + HEADER + length > size) {
+                    break; // torn write at the end
+                }
+                // Anything else that doesn't parse is damage, not a torn tail;
+                // truncating there would throw away every record after it
+                int minLength = minLength(type);
+                if (minLength < 0 || length < minLength) {
+                    throw corrupt(offset, "record type " + type + ", length " + length);
+                }
+                if (type == ROW) {
+                    RowMeta meta = new RowMeta();
+                    long id = in.readLong();
+                    meta.tabId = in.readInt();
+                    meta.sortKey = in.readLong();
+                    meta.dueDay = in.readInt();
+                    meta.priority = in.readByte();
+                    meta.completed = (in.readByte() & FLAG_COMPLETED) != 0;
+                    meta.offset = offset;
+                    meta.length = HEADER + length;
+                    in.skipNBytes(length - 26);
+                    RowMeta old = rows.get(id);
+                    if (old != null) {
+                        removeFromIndexes(id, old, false);
+                        liveBytes -= old.length;
+                    }
+                    addToIndexes(id, meta, false);
+                    liveBytes += meta.length;
+                    nextRowId = Math.max(nextRowId, id + 1);
+                } else if (type == DELETE) {
+                    long id = in.readLong();
+                    in.skipNBytes(length - 8);
+                    RowMeta old = rows.get(id);
+                    if (old != null) {
+                        removeFromIndexes(id, old, false);
+                        liveBytes -= old.length;
+                    }
+                } else if (type == TAB) {
+                    int tabId = in.readInt();
+                    byte op = in.readByte();
+                    int nameLength = in.readInt();
+                    if (nameLength != length - 9) {
+                        throw corrupt(offset, "tab name length " + nameLength);
+                    }
+                    byte[] name = new byte[nameLength];
+                    in.readFully(name);
+                    applyTab(tabId, op, new String(name, StandardCharsets.UTF_8));
+                    nextTabId = Math.max(nextTabId, tabId + 1);
+                    liveBytes += HEADER + length;
+                }
+                offset += HEADER + length;
+            }
+        }
+        if (offset < size) {
+            System.out.println("Dropping " + (size - offset) + " bytes of incomplete data from " + path);
+            channel.truncate(offset);
+        }
+        fileSize = offset;
+        // Rows were indexed in file order; build each tab's order once at the end
+        for (Map.Entry<Long, RowMeta> entry : rows.entrySet()) {
+            tabRows.computeIfAbsent(entry.getValue().tabId, k -> new ArrayList<>()).add(entry.getKey());
+        }
+        for (ArrayList<Long> ids : tabRows.values()) {
+            ids.sort(Comparator.comparingLong(id -> rows.get(id).sortKey));
+        }
+    }
+
+    private static int minLength(byte type) {
+        switch (type) {
+            case ROW: return 34; // fixed part and the two string lengths
+            case DELETE: return 8;
+            case TAB: return 9;
+            default: return -1;
+        }
+    }
+
+    private IOException corrupt(long offset, String what) {
+        return new IOException(path + " is corrupt at offset " + offset + " (" + what + ")");
+    }
+
+    private void writeRow(long id, int tabId, long sortKey, Task task) throws IOException {
+        RowMeta old = rows.get(id);
+        // Same tab and key (an update) keeps its place in tabRows
+        boolean reorder = old == null || old.tabId != tabId || old.sortKey != sortKey;
+        writeRow(id, tabId, sortKey, task, reorder);
+    }
+
+    // reorder=false leaves tabRows alone: the row's place in its tab is unchanged
+    private void writeRow(long id, int tabId, long sortKey, Task task, boolean reorder) throws IOException {
+        int due = task.getDueDay();
+        byte priority = task.hasCustomPriority() ? priorityCode(task.getPriority()) : (byte) task.getPriorityLevel().ordinal();
+        byte flags = 0;
+        if (task.isCompleted()) flags |= FLAG_COMPLETED;
+        // Typed text with no date in it (even "") is kept as it is, like tasks.txt does
+        if (due == DueDates.INVALID || (due == DueDates.NO_DATE && task.getDueDate() != null)) flags |= FLAG_RAW_DATE;
+        if (priority == OTHER) flags |= FLAG_RAW_PRIORITY;
+
+        ByteBuffer buf = begin(ROW);
+        buf.putLong(id).putInt(tabId).putLong(sortKey).putInt(due).put(priority).put(flags);
+        buf = putString(buf, task.getTitle());
+        buf = putString(buf, task.getDescription());
+        if ((flags & FLAG_RAW_DATE) != 0) buf = putString(buf, task.getDueDate());
+        if ((flags & FLAG_RAW_PRIORITY) != 0) buf = putString(buf, task.getPriority());
+
+        long offset = append(buf);
+        RowMeta old = rows.get(id);
+        if (old != null) {
+            removeFromIndexes(id, old, reorder);
+            liveBytes -= old.length;
+        }
+        RowMeta meta = new RowMeta();
+        meta.tabId = tabId;
+        meta.sortKey = sortKey;
+        meta.dueDay = due;
+        meta.priority = priority;
+        meta.completed = task.isCompleted();
+        meta.offset = offset;
+        meta.length = buf.limit();
+        addToIndexes(id, meta, reorder);
+        liveBytes += meta.length;
+    }
+
+    private void writeTab(int tabId, byte op, String name) throws IOException {
+        ByteBuffer buf = begin(TAB);
+        buf.putInt(tabId).put(op);
+        buf = putString(buf, name);
+        append(buf);
+        liveBytes += buf.limit();
+    }
+
+    private void applyTab(int tabId, byte op, String name) {
+        switch (op) {
+            case TAB_CREATE:
+                tabNames.put(tabId, name);
+                tabIds.put(name, tabId);
+                tabRows.putIfAbsent(tabId, new ArrayList<>());
+                break;
+            case TAB_RENAME:
+                tabIds.remove(tabNames.get(tabId));
+                tabNames.put(tabId, name);
+                tabIds.put(name, tabId);
+                break;
+            case TAB_DELETE:
+                tabIds.remove(tabNames.remove(tabId));
+                tabRows.remove(tabId);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private Task readTask(RowMeta meta) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(meta.length);
+        long position = meta.offset;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) throw new EOFException("row past end of " + path);
+            position += n;
+        }
+        buf.flip();
+        buf.position(HEADER + 26);
+        byte flags = buf.get(HEADER + 25);
+        String title = getString(buf);
+        String description = getString(buf);
+        // Priority codes line up with Priority's ordinals
+        Task task = new Task(title, description, meta.dueDay,
+                meta.priority < PRIORITY_LEVELS.length ? PRIORITY_LEVELS[meta.priority] : Priority.LOW);
+        if ((flags & FLAG_RAW_DATE) != 0) task.setDueDate(getString(buf));
+        if ((flags & FLAG_RAW_PRIORITY) != 0) task.setPriority(getString(buf));
+        task.setCompleted(meta.completed);
+        return task;
+    }
+
+    // inTabOrder=false skips tabRows: open() builds it at the end, and
+    // writeRow() leaves it alone for rows that keep their place
+    private void addToIndexes(long id, RowMeta meta, boolean inTabOrder) {
+        rows.put(id, meta);
+        if (inTabOrder) {
+            ArrayList<Long> ids = tabRows.computeIfAbsent(meta.tabId, k -> new ArrayList<>());
+            ids.add(position(ids, meta.sortKey), id);
+        }
+        if (DueDates.isDate(meta.dueDay)) {
+            byDueDate.add(pack(meta.dueDay, id));
+        }
+        byPriority.computeIfAbsent(meta.priority, k -> new HashSet<>()).add(id);
+        if (meta.completed) {
+            completed.add(id);
+        }
+    }
+
+    private void removeFromIndexes(long id, RowMeta meta, boolean inTabOrder) {
+        ArrayList<Long> ids = inTabOrder ? tabRows.get(meta.tabId) : null;
+        if (ids != null) {
+            int pos = position(ids, meta.sortKey);
+            if (pos < ids.size() && ids.get(pos) == id) {
+                ids.remove(pos);
+            }
+        }
+        rows.remove(id);
+        byDueDate.remove(pack(meta.dueDay, id));
+        Set<Long> samePriority = byPriority.get(meta.priority);
+        if (samePriority != null) {
+            samePriority.remove(id);
+        }
+        completed.remove(id);
+    }
+
+    // First place in ids (sorted by key) whose key is at least sortKey
+    private int position(ArrayList<Long> ids, long sortKey) {
+        int low = 0;
+        int high = ids.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rows.get(ids.get(mid)).sortKey < sortKey) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void clearIndexes() {
+        rows.clear();
+        tabNames.clear();
+        tabIds.clear();
+        tabRows.clear();
+        byDueDate.clear();
+        byPriority.clear();
+        completed.clear();
+        fileSize = 0;
+        liveBytes = 0;
+    }
+
+    // Sorts by day first, then row id; row ids stay below 2^32
+    private static long pack(int day, long id) {
+        return ((long) day << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private static byte priorityCode(String priority) {
+        for (byte i = 0; i < PRIORITY_NAMES.length; i++) {
+            if (PRIORITY_NAMES[i].equalsIgnoreCase(priority)) {
+                return i;
+            }
+        }
+        return OTHER;
+    }
+
+    public static byte priorityCodeOf(String priority) {
+        return priorityCode(priority);
+    }
+
+    private ByteBuffer begin(byte type) {
+        scratch.clear();
+        scratch.putInt(0).put(type);
+        return scratch;
+    }
+
+    // Fills in the length and appends at the end of the file; returns the offset
+    private long append(ByteBuffer buf) throws IOException {
+        scratch = buf;
+        buf.putInt(0, buf.position() - HEADER);
+        buf.flip();
+        long offset = fileSize;
+        long position = offset;
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+        fileSize = position;
+        return offset;
+    }
+
+    private ByteBuffer putString(ByteBuffer buf, String s) {
+        if (s == null) {
+            return ensure(buf, 4).putInt(-1);
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        return ensure(buf, 4 + bytes.length).putInt(bytes.length).put(bytes);
+    }
+
+    private ByteBuffer ensure(ByteBuffer buf, int extra) {
+        if (buf.remaining() >= extra) return buf;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + extra));
+        buf.flip();
+        bigger.put(buf);
+        scratch = bigger;
+        return bigger;
+    }
+
+    private static String getString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) return null;
+        if (length == 0) return ""; // shared, not one per row
+        String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+        buf.position(buf.position() + length);
+        return s;
+    }
+}
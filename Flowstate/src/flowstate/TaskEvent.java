@@ -0,0 +1,111 @@
+package flowstate;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+// One change to the TaskManager model, so views can apply just that change
+// instead of reloading. Indexes are positions in the tab at the time of the
+// change; events arrive in the order the changes were made.
+//
+//   ADDED        task inserted into tab at index
+//   REMOVED      task removed from tab, was at index
+//   MOVED        task moved from fromTab/fromIndex to tab/index
+//   UPDATED      task's fields changed (see getFields), task stays put
+//   TAB_CREATED  tab added at the end of the tab order
+//   TAB_RENAMED  fromTab is now called tab, same place in the order
+//   TAB_DELETED  tab and all its tasks are gone (no REMOVED per task)
+public class TaskEvent {
+    public enum Type { ADDED, REMOVED, MOVED, UPDATED, TAB_CREATED, TAB_RENAMED, TAB_DELETED }
+
+    public enum Field { TITLE, DESCRIPTION, DUE_DATE, PRIORITY, COMPLETED }
+
+    // Called on the thread that made the change, after TaskManager has
+    // released its lock, so a listener can read the manager straight away
+    public interface Listener {
+        void taskChanged(TaskEvent event);
+    }
+
+    private final Type type;
+    private final Task task;
+    private final String tab;
+    private final int index;
+    private final String fromTab;
+    private final int fromIndex;
+    private final Set<Field> fields;
+
+    private TaskEvent(Type type, Task task, String tab, int index, String fromTab, int fromIndex, Set<Field> fields) {
+        this.type = type;
+        this.task = task;
+        this.tab = tab;
+        this.index = index;
+        this.fromTab = fromTab;
+        this.fromIndex = fromIndex;
+        this.fields = fields;
+    }
+
+    static TaskEvent added(String tab, int index, Task task) {
+        return new TaskEvent(Type.ADDED, task, tab, index, null, -1, Collections.emptySet());
+    }
+
+    static TaskEvent removed(String tab, int index, Task task) {
+        return new TaskEvent(Type.REMOVED, task, tab, index, null, -1, Collections.emptySet());
+    }
+
+    static TaskEvent moved(String fromTab, int fromIndex, String toTab, int toIndex, Task task) {
+        return new TaskEvent(Type.MOVED, task, toTab, toIndex, fromTab, fromIndex, Collections.emptySet());
+    }
+
+    static TaskEvent updated(String tab, Task task, Set<Field> fields) {
+        return new TaskEvent(Type.UPDATED, task, tab, -1, null, -1, Collections.unmodifiableSet(EnumSet.copyOf(fields)));
+    }
+
+    static TaskEvent tabCreated(String tab) {
+        return new TaskEvent(Type.TAB_CREATED, null, tab, -1, null, -1, Collections.emptySet());
+    }
+
+    static TaskEvent tabRenamed(String oldName, String newName) {
+        return new TaskEvent(Type.TAB_RENAMED, null, newName, -1, oldName, -1, Collections.emptySet());
+    }
+
+    static TaskEvent tabDeleted(String tab) {
+        return new TaskEvent(Type.TAB_DELETED, null, tab, -1, null, -1, Collections.emptySet());
+    }
+
+    public Type getType() { return type; }
+
+    // null for tab events
+    public Task getTask() { return task; }
+
+    // The tab the task is in now (the new name for TAB_RENAMED)
+    public String getTab() { return tab; }
+
+    // -1 for UPDATED and tab events
+    public int getIndex() { return index; }
+
+    // MOVED: the old tab; TAB_RENAMED: the old name; otherwise null
+    public String getFromTab() { return fromTab; }
+
+    public int getFromIndex() { return fromIndex; }
+
+    // UPDATED only: which fields changed
+    public Set<Field> getFields() { return fields; }
+
+    public boolean isTabEvent() {
+        return task == null;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case MOVED:
+                return "MOVED " + task.getTitle() + " " + fromTab + "[" + fromIndex + "] -> " + tab + "[" + index + "]";
+            case UPDATED:
+                return "UPDATED " + task.getTitle() + " in " + tab + " " + fields;
+            case TAB_RENAMED:
+                return "TAB_RENAMED " + fromTab + " -> " + tab;
+            default:
+                return type + (task != null ? " " + task.getTitle() + " " + tab + "[" + index + "]" : " " + tab);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package flowstate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+// Append-only change log that sits next to the tasks.txt snapshot.
+// Every edit appends one short record to tasks.journal.<gen>. Once the current
+// journal gets too big it is rotated and a background thread folds it into a
+// fresh snapshot, so the cost of a save depends on the change, not on the file.
+//
+// Generations: snapshot N contains everything from journals with gen < N.
+// On startup we load the snapshot and replay every journal with gen >= N.
+//
+// Records are formatted on the caller's thread and written by the autosave
+// writer thread; the writer, counters and generation are only touched there.
+public class TaskJournal {
+    private static final String JOURNAL_PREFIX = "tasks.journal.";
+    private static final int MAX_RECORDS = 500;
+    private static final long MAX_BYTES = 256 * 1024;
+
+    private final String snapshotFile;
+    private final ExecutorService compactor;
+    private final AutoSaveService autoSave;
+    private final Runnable onSnapshotCommitted;
+    private Future<?> pendingCompaction;
+
+    // Caller thread: records held back until the outermost endBatch()
+    private List<String> batch;
+    private int batchDepth;
+
+    private PrintWriter writer;
+    private long generation;
+    private int recordCount;
+    private long byteCount;
+
+    // onSnapshotCommitted runs under FileStorage.SNAPSHOT_LOCK whenever a new
+    // tasks.txt has just been moved into place
+    public TaskJournal(String snapshotFile, long quietMillis, Runnable onSnapshotCommitted) {
+        this.snapshotFile = snapshotFile;
+        this.onSnapshotCommitted = onSnapshotCommitted;
+        this.autoSave = new AutoSaveService("flowstate-autosave", quietMillis, this::flushWriter);
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "flowstate-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Replays every journal newer than the snapshot into tabTasks, removes stale
+    // ones and opens the newest journal for appending. Tabs mapped to null are
+    // not loaded yet; loader is called for them when a record touches them.
+    // Throws, leaving every file as it was, if a journal is corrupt (see replay).
+    public void open(long snapshotGeneration, Map<String, ArrayList<Task>> tabTasks,
+            Function<String, ArrayList<Task>> loader) {
+        List<Long> gens = listGenerations();
+        List<Path> torn = new ArrayList<>();
+        generation = snapshotGeneration;
+        for (long gen : gens) {
+            if (gen >= snapshotGeneration) {
+                if (replayOrThrow(journalPath(gen), tabTasks, loader)) {
+                    torn.add(journalPath(gen));
+                }
+                generation = Math.max(generation, gen);
+            }
+        }
+        // Only once every journal has replayed, so a corrupt one leaves all as they were
+        for (Path journal : torn) {
+            truncateTornTail(journal);
+        }
+        for (long gen : gens) {
+            if (gen < snapshotGeneration) {
+                deleteJournal(gen);
+            }
+        }
+        openWriter();
+    }
+
+    // Read-only variant of open() for converters: applies pending journals
+    // without deleting anything or opening a writer. Throws if one is corrupt.
+    static void replayPending(String snapshotFile, long snapshotGeneration, Map<String, ArrayList<Task>> tabTasks) {
+        for (long gen : listGenerations(snapshotFile)) {
+            if (gen >= snapshotGeneration) {
+                replayOrThrow(journalPath(snapshotFile, gen), tabTasks, null);
+            }
+        }
+    }
+
+    // True if any journal holds records, which replay would apply over rows
+    // read from the snapshot
+    static boolean hasRecords(String snapshotFile) {
+        for (long gen : listGenerations(snapshotFile)) {
+            if (journalPath(snapshotFile, gen).toFile().length() > 0) return true;
+        }
+        return false;
+    }
+
+    public void recordAdd(String tab, Task task) {
+        append("A|" + TaskLineTokenizer.escape(tab) + "|" + FileStorage.formatTask(task));
+    }
+
+    public void recordInsert(String tab, int index, Task task) {
+        append("I|" + TaskLineTokenizer.escape(tab) + "|" + index + "|" + FileStorage.formatTask(task));
+    }
+
+    public void recordUpdate(String tab, int index, Task task) {
+        append("U|" + TaskLineTokenizer.escape(tab) + "|" + index + "|" + FileStorage.formatTask(task));
+    }
+
+    public void recordDelete(String tab, int index) {
+        append("D|" + TaskLineTokenizer.escape(tab) + "|" + index);
+    }
+
+    public void recordMove(String fromTab, int fromIndex, String toTab, int toIndex) {
+        append("M|" + TaskLineTokenizer.escape(fromTab) + "|" + fromIndex + "|"
+                + TaskLineTokenizer.escape(toTab) + "|" + toIndex);
+    }
+
+    public void recordCreateTab(String tab) {
+        append("TC|" + TaskLineTokenizer.escape(tab));
+    }
+
+    public void recordRenameTab(String oldName, String newName) {
+        append("TR|" + TaskLineTokenizer.escape(oldName) + "|" + TaskLineTokenizer.escape(newName));
+    }
+
+    public void recordDeleteTab(String tab) {
+        append("TD|" + TaskLineTokenizer.escape(tab));
+    }
+
+    // Flushes queued records, then folds everything into a new snapshot written
+    // straight from tabTasks. The caller must not change tabTasks until this
+    // returns, which holds for the EDT since it blocks here.
+    public boolean writeFullSnapshot(Map<String, ArrayList<Task>> tabTasks) {
+        Boolean saved = autoSave.flushAndRun(() -> {
+            // An older compaction finishing later must not overwrite this snapshot
+            awaitCompaction();
+            closeWriter();
+            long target = generation + 1;
+            boolean ok = FileStorage.writeSnapshot(snapshotFile, tabTasks, target, onSnapshotCommitted);
+            if (ok) {
+                for (long gen : listGenerations()) {
+                    if (gen < target) {
+                        deleteJournal(gen);
+                    }
+                }
+                generation = target;
+            }
+            openWriter();
+            return ok;
+        });
+        return Boolean.TRUE.equals(saved);
+    }
+
+    // Records between these are handed to the writer in one go, so they land
+    // in the same flush
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            batch = new ArrayList<>();
+        }
+    }
+
+    public void endBatch() {
+        if (batchDepth == 0 || --batchDepth > 0) return;
+        List<String> records = batch;
+        batch = null;
+        if (!records.isEmpty()) {
+            autoSave.submit(() -> {
+                for (String record : records) {
+                    write(record);
+                }
+            });
+        }
+    }
+
+    public AutoSaveService getAutoSave() {
+        return autoSave;
+    }
+
+    public void close() {
+        autoSave.flushAndRun(() -> {
+            awaitCompaction();
+            closeWriter();
+            return null;
+        });
+        autoSave.shutdown();
+        compactor.shutdown();
+    }
+
+    private void append(String record) {
+        if (batch != null) {
+            batch.add(record);
+        } else {
+            autoSave.submit(() -> write(record));
+        }
+    }
+
+    // Writer thread only
+    private void write(String record) {
+        if (writer == null) {
+            openWriter();
+        }
+        writer.println(record);
+        recordCount++;
+        byteCount += utf8Length(record) + System.lineSeparator().length();
+        if (recordCount >= MAX_RECORDS || byteCount >= MAX_BYTES) {
+            startCompaction();
+        }
+    }
+
+    private static int utf8Length(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void flushWriter() {
+        if (writer == null) return;
+        writer.flush();
+        if (writer.checkError()) {
+            System.out.println("Error writing to task journal.");
+        }
+    }
+
+    private void startCompaction() {
+        if (pendingCompaction != null && !pendingCompaction.isDone()) {
+            return; // still folding the previous journal, keep appending
+        }
+        closeWriter();
+        long target = generation + 1;
+        generation = target;
+        openWriter();
+        pendingCompaction = compactor.submit(() -> compact(target));
+    }
+
+    // Runs on the compactor thread: snapshot + older journals -> snapshot <target>.
+    private void compact(long target) {
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        long snapshotGeneration = FileStorage.readSnapshot(snapshotFile, tabTasks);
+        for (long gen : listGenerations()) {
+            if (gen >= snapshotGeneration && gen < target) {
+                try {
+                    replay(journalPath(gen), tabTasks, null);
+                } catch (IOException e) {
+                    // Keep the old snapshot and journals for the next start to report
+                    System.out.println("Error compacting task journal: " + e.getMessage());
+                    return;
+                }
+            }
+        }
+        if (FileStorage.writeSnapshot(snapshotFile, tabTasks, target, onSnapshotCommitted)) {
+            for (long gen : listGenerations()) {
+                if (gen < target) {
+                    deleteJournal(gen);
+                }
+            }
+        }
+    }
+
+    private void awaitCompaction() {
+        if (pendingCompaction == null) return;
+        try {
+            pendingCompaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println("Error compacting task journal: " + e.getCause());
+        }
+    }
+
+    private static boolean replayOrThrow(Path journal, Map<String, ArrayList<Task>> tabTasks,
+            Function<String, ArrayList<Task>> loader) {
+        try {
+            return replay(journal, tabTasks, loader);
+        } catch (IOException e) {
+            System.out.println("Error reading task journal: " + e.getMessage());
+            throw new UncheckedIOException("Could not replay " + journal.getFileName(), e);
+        }
+    }
+
+    // Applies the journal's records to tabTasks and returns true if its last
+    // line was torn by a crash (and skipped). Every record is written with its
+    // line break last, so a line without one was cut short, even if what's
+    // left still parses ("D|Work|12" cut to "D|Work|1"). Records are
+    // positional, so a bad complete record would shift every record after it
+    // onto the wrong task: that throws instead, with tabTasks partly replayed.
+    static boolean replay(Path journal, Map<String, ArrayList<Task>> tabTasks,
+            Function<String, ArrayList<Task>> loader) throws IOException {
+        try (Reader in = new InputStreamReader(Files.newInputStream(journal), StandardCharsets.UTF_8)) {
+            TaskLineTokenizer record = new TaskLineTokenizer(in);
+            int line = 0;
+            while (record.next()) {
+                line++;
+                if (!record.lineTerminated()) {
+                    System.out.println("Skipping torn last journal record: " + record.join(0, record.fieldCount()));
+                    return true;
+                }
+                try {
+                    applyRecord(record, tabTasks, loader);
+                } catch (RuntimeException e) {
+                    String text = record.join(0, record.fieldCount());
+                    throw new IOException(journal.getFileName() + " is corrupt at record " + line + ": " + text, e);
+                }
+            }
+        }
+        return false;
+    }
+
+    // Cuts a torn last record off, back to the last line break, so new
+    // records start on a line of their own
+    private static void truncateTornTail(Path journal) {
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long end = channel.size();
+            while (end > 0) {
+                one.clear();
+                channel.read(one, end - 1);
+                if (one.get(0) == '\n' || one.get(0) == '\r') break;
+                end--;
+            }
+            channel.truncate(end);
+        } catch (IOException e) {
+            System.out.println("Error truncating task journal: " + e.getMessage());
+        }
+    }
+
+    private static void applyRecord(TaskLineTokenizer record, Map<String, ArrayList<Task>> tabTasks,
+            Function<String, ArrayList<Task>> loader) {
+        String type = record.field(0, "A", "I", "U", "C", "D", "M", "TC", "TR", "TD");
+        // A torn line has fewer fields, and the tokenizer doesn't bounds-check field(i)
+        int fields;
+        switch (type) {
+            case "TC": case "TD": fields = 2; break;
+            case "D": case "TR": fields = 3; break;
+            case "C": fields = 4; break;
+            case "M": fields = 5; break;
+            default: fields = 2; // task records: readTask() checks the rest
+        }
+        if (record.fieldCount() < fields) {
+            throw new IllegalArgumentException("too few fields");
+        }
+        String tab = record.field(1);
+        if (loader != null && !type.equals("TD") && tabTasks.containsKey(tab) && tabTasks.get(tab) == null) {
+            tabTasks.put(tab, loader.apply(tab));
+        }
+        switch (type) {
+            case "A":
+                tabTasks.computeIfAbsent(tab, k -> new ArrayList<>()).add(readTask(record, 2));
+                break;
+            case "I": {
+                Task task = readTask(record, 3);
+                tabTasks.computeIfAbsent(tab, k -> new ArrayList<>()).add(record.fieldAsInt(2), task);
+                break;
+            }
+            case "U": {
+                Task task = readTask(record, 3);
+                tabTasks.get(tab).set(record.fieldAsInt(2), task);
+                break;
+            }
+            case "C":
+                // Written by older versions; completion is an update record now
+                tabTasks.get(tab).get(record.fieldAsInt(2)).setCompleted(record.fieldIsIgnoreCase(3, "true"));
+                break;
+            case "D":
+                tabTasks.get(tab).remove(record.fieldAsInt(2));
+                break;
+            case "M": {
+                String toTab = record.field(3);
+                if (loader != null && tabTasks.containsKey(toTab) && tabTasks.get(toTab) == null) {
+                    tabTasks.put(toTab, loader.apply(toTab));
+                }
+                // Both indexes first, so a short record fails before anything moves
+                int fromIndex = record.fieldAsInt(2);
+                int toIndex = record.fieldAsInt(4);
+                ArrayList<Task> from = tabTasks.get(tab);
+                Objects.checkIndex(fromIndex, from.size());
+                ArrayList<Task> to = tabTasks.computeIfAbsent(toTab, k -> new ArrayList<>());
+                if (toIndex > to.size() - (from == to ? 1 : 0)) {
+                    throw new IndexOutOfBoundsException("move to " + toIndex);
+                }
+                to.add(toIndex, from.remove(fromIndex));
+                break;
+            }
+            case "TC":
+                if (!tabTasks.containsKey(tab)) {
+                    tabTasks.put(tab, new ArrayList<>());
+                }
+                break;
+            case "TR": {
+                // Empty tabs never reach the snapshot, so the old name may be missing
+                String newName = record.field(2);
+                ArrayList<Task> tasks = tabTasks.remove(tab);
+                tabTasks.put(newName, tasks != null ? tasks : new ArrayList<>());
+                break;
+            }
+            case "TD":
+                tabTasks.remove(tab);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown journal record " + type);
+        }
+    }
+
+    private static Task readTask(TaskLineTokenizer record, int from) {
+        Task task = FileStorage.readTask(record, from);
+        if (task == null) {
+            throw new IllegalArgumentException("too few fields");
+        }
+        return task;
+    }
+
+    private void openWriter() {
+        Path path = journalPath(generation);
+        try {
+            writer = new PrintWriter(new BufferedWriter(new FileWriter(path.toFile(), StandardCharsets.UTF_8, true)));
+            recordCount = 0;
+            byteCount = Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            System.out.println("Error opening task journal: " + e.getMessage());
+        }
+    }
+
+    private void closeWriter() {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private List<Long> listGenerations() {
+        return listGenerations(snapshotFile);
+    }
+
+    private Path journalPath(long gen) {
+        return journalPath(snapshotFile, gen);
+    }
+
+    private static List<Long> listGenerations(String snapshotFile) {
+        List<Long> gens = new ArrayList<>();
+        File dir = journalDirectory(snapshotFile).toFile();
+        String[] names = dir.list();
+        if (names == null) return gens;
+        for (String name : names) {
+            if (name.startsWith(JOURNAL_PREFIX)) {
+                try {
+                    gens.add(Long.parseLong(name.substring(JOURNAL_PREFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+        Collections.sort(gens);
+        return gens;
+    }
+
+    private static Path journalPath(String snapshotFile, long gen) {
+        return journalDirectory(snapshotFile).resolve(JOURNAL_PREFIX + gen);
+    }
+
+    private static Path journalDirectory(String snapshotFile) {
+        Path parent = Paths.get(snapshotFile).toAbsolutePath().getParent();
+        return parent != null ? parent : Paths.get(".");
+    }
+
+    private void deleteJournal(long gen) {
+        try {
+            Files.deleteIfExists(journalPath(gen));
+        } catch (IOException e) {
+            System.out.println("Error removing old journal: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package flowstate;
+
+import java.io.*;
+
+// Single-pass tokenizer for the tasks.txt / journal line format.
+//
+// Fields are separated by '|' or ','. Inside a field those two characters,
+// the backslash and line breaks are escaped (\| \, \\ \n \r), so one physical
+// line is always one row. Unknown escapes such as "\t" are kept as written.
+//
+// Files from before escaping existed are read with setEscaped(false): a
+// backslash is just a backslash and only the first '|' on a line separates
+// (the tab name), as the old split() did, so their text comes back verbatim.
+//
+// The tokenizer reads through one char buffer and unescapes each line into a
+// reusable line buffer; fields are just offsets into it. Strings are only
+// created for the fields a caller asks for, and field(i, known...) hands back
+// an existing constant instead of a new copy when the text matches.
+final class TaskLineTokenizer {
+    private final Reader in;
+    private final char[] buf = new char[1 << 16];
+    private int pos;
+    private int limit;
+
+    private char[] line = new char[256];
+    private int lineLength;
+    private int[] fieldStart = new int[8];
+    private int[] fieldEnd = new int[8];
+    private char[] fieldSeparator = new char[8];
+    private int fieldCount;
+    private boolean eof;
+    private boolean escaped = true;
+    private boolean terminated;
+
+    private static final int POOLED_MAX_LENGTH = 64;
+    private final String[] pool = new String[1024];
+
+    TaskLineTokenizer(Reader in) {
+        this.in = in;
+    }
+
+    static TaskLineTokenizer of(String text) {
+        return new TaskLineTokenizer(new StringReader(text));
+    }
+
+    // Applies from the next line on
+    void setEscaped(boolean escaped) {
+        this.escaped = escaped;
+    }
+
+    // Advances to the next line; false at end of input. Blank lines are skipped.
+    boolean next() throws IOException {
+        while (true) {
+            if (!readLine()) {
+                return false;
+            }
+            if (lineLength > 0 || fieldCount > 1) {
+                return true;
+            }
+        }
+    }
+
+    int fieldCount() {
+        return fieldCount;
+    }
+
+    // False when the current line ran into the end of input without a line
+    // break, as the last line of a file cut short by a crash does
+    boolean lineTerminated() {
+        return terminated;
+    }
+
+    // The separator that ended field i ('|', ',' or 0 for the last field)
+    char separatorAfter(int i) {
+        return fieldSeparator[i];
+    }
+
+    String field(int i) {
+        int length = fieldEnd[i] - fieldStart[i];
+        return length == 0 ? "" : new String(line, fieldStart[i], length);
+    }
+
+    // Like field(i), but a value seen recently on another line is shared
+    // rather than copied again. For columns that repeat a lot, such as
+    // descriptions; a direct-mapped cache, so memory stays bounded.
+    String pooledField(int i) {
+        int start = fieldStart[i];
+        int length = fieldEnd[i] - start;
+        if (length == 0) return "";
+        if (length > POOLED_MAX_LENGTH) return field(i);
+        int hash = length;
+        for (int k = start; k < start + length; k++) {
+            hash = 31 * hash + line[k];
+        }
+        int slot = (hash ^ (hash >>> 16)) & (pool.length - 1);
+        String pooled = pool[slot];
+        if (pooled != null && fieldIs(i, pooled)) {
+            return pooled;
+        }
+        pooled = field(i);
+        pool[slot] = pooled;
+        return pooled;
+    }
+
+    // Returns the matching constant from known without allocating, else a new String
+    String field(int i, String... known) {
+        for (String candidate : known) {
+            if (fieldIs(i, candidate)) {
+                return candidate;
+            }
+        }
+        return field(i);
+    }
+
+    boolean fieldIs(int i, String value) {
+        int start = fieldStart[i];
+        int length = fieldEnd[i] - start;
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (line[start + k] != value.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean fieldIsIgnoreCase(int i, String value) {
+        int start = fieldStart[i];
+        int length = fieldEnd[i] - start;
+        if (value.length() != length) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (Character.toLowerCase(line[start + k]) != Character.toLowerCase(value.charAt(k))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int fieldAsInt(int i) {
+        int start = fieldStart[i];
+        int end = fieldEnd[i];
+        if (start == end) {
+            throw new NumberFormatException("empty field");
+        }
+        boolean negative = line[start] == '-';
+        int k = negative ? start + 1 : start;
+        int value = 0;
+        for (; k < end; k++) {
+            char c = line[k];
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("not a number: " + field(i));
+            }
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // Fields from..to-1 joined with the separators that were between them.
+    // Used to recover rows written before escaping existed, where a comma in
+    // the description split it into several fields.
+    String join(int from, int to) {
+        if (from >= to) {
+            return "";
+        }
+        return new String(line, fieldStart[from], fieldEnd[to - 1] - fieldStart[from]);
+    }
+
+    static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        appendEscaped(sb, value);
+        return sb.toString();
+    }
+
+    static void appendEscaped(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '|': sb.append("\\|"); break;
+                case ',': sb.append("\\,"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+    }
+
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        fieldCount = 0;
+        int start = 0;
+        boolean any = false;
+        boolean sawBar = false;
+        while (true) {
+            if (pos == limit && !fill()) {
+                if (!any) {
+                    return false;
+                }
+                endField(start, (char) 0);
+                terminated = false;
+                return true;
+            }
+            any = true;
+            char c = buf[pos++];
+            if (c == '\n') {
+                endField(start, (char) 0);
+                terminated = true;
+                return true;
+            } else if (c == '\r') {
+                // Handles \r\n; a bare \r is treated as a line break too
+                if ((pos < limit || fill()) && buf[pos] == '\n') {
+                    pos++;
+                }
+                endField(start, (char) 0);
+                terminated = true;
+                return true;
+            } else if (c == '|' && !escaped && sawBar) {
+                append(c);
+            } else if (c == '|' || c == ',') {
+                sawBar |= c == '|';
+                endField(start, c);
+                start = lineLength;
+            } else if (c == '\\' && escaped) {
+                if (pos == limit && !fill()) {
+                    append('\\');
+                    continue;
+                }
+                char e = buf[pos++];
+                switch (e) {
+                    case '\\': case '|': case ',': append(e); break;
+                    case 'n': append('\n'); break;
+                    case 'r': append('\r'); break;
+                    default:
+                        append('\\');
+                        pos--; // not an escape we wrote, keep it as is
+                }
+            } else {
+                append(c);
+            }
+        }
+    }
+
+    // Keeps the separator in the line buffer so join() can copy straight across
+    private void endField(int start, char separator) {
+        if (fieldCount == fieldStart.length) {
+            int size = fieldCount * 2;
+            fieldStart = java.util.Arrays.copyOf(fieldStart, size);
+            fieldEnd = java.util.Arrays.copyOf(fieldEnd, size);
+            fieldSeparator = java.util.Arrays.copyOf(fieldSeparator, size);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = lineLength;
+        fieldSeparator[fieldCount] = separator;
+        fieldCount++;
+        if (separator != 0) {
+            append(separator);
+        }
+    }
+
+    private void append(char c) {
+        if (lineLength == line.length) {
+            line = java.util.Arrays.copyOf(line, line.length * 2);
+        }
+        line[lineLength++] = c;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) {
+            eof = true;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
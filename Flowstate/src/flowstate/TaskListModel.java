@@ -0,0 +1,370 @@
+package flowstate;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+// Rows of the task list, read straight from the tasks: each row is a Task or
+// a Label (completed header, agenda section, empty state). Nothing is
+// formatted here; the renderer works out text and colors only for the rows
+// JList paints, so a 100k-task tab is two arrays rather than 100k strings.
+// Incremental changes fire events for exactly the rows they touch.
+//
+// In TAB mode the open tasks come first in tab order, then the completed
+// header and, unless collapsed, the completed tasks newest (last in the tab)
+// first. Completed rows come in pages: only the newest COMPLETED_PAGE have
+// rows at first, and showMoreCompleted() adds the next page as the list is
+// scrolled down, so a tab with years of history costs about what a fresh one
+// does. The header shows the full count.
+//
+// Rows and tab positions shift on every insert and remove, so both are kept
+// as IdSequences: rowIds holds each row's task id (labels get negative ids)
+// and tabOrder every task id of the tab in order, shown or not. A task's row
+// and tab position are then O(log n) lookups, with nothing to renumber.
+class TaskListModel extends AbstractListModel<Object> {
+    enum Mode { TAB, AGENDA, RESULTS }
+
+    // A row without a task
+    static final class Label {
+        final String text;
+        final String detail;
+
+        Label(String text, String detail) {
+            this.text = text;
+            this.detail = detail;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    static final Label COMPLETED_HEADER = new Label("> Completed", "");
+    static final int COMPLETED_PAGE = 50;
+
+    private Mode mode = Mode.TAB;
+    private final ArrayList<Object> rows = new ArrayList<>();
+    private IdSequence rowIds = new IdSequence();
+    // TAB mode only; empty otherwise
+    private IdSequence tabOrder = new IdSequence();
+    private int nextLabelId = -1;
+    private int header = -1;
+    // Completed tasks in the tab, shown or not
+    private int completedCount;
+    private boolean completedVisible = true;
+    // Completed rows that are shown: the newest min(completedLimit, completedCount)
+    private int completedLimit = COMPLETED_PAGE;
+
+    @Override
+    public int getSize() {
+        return rows.size();
+    }
+
+    @Override
+    public Object getElementAt(int row) {
+        return rows.get(row);
+    }
+
+    Mode getMode() {
+        return mode;
+    }
+
+    // null for labels and rows out of range
+    Task taskAt(int row) {
+        if (row < 0 || row >= rows.size()) return null;
+        Object value = rows.get(row);
+        return value instanceof Task ? (Task) value : null;
+    }
+
+    boolean isCompletedHeader(int row) {
+        return row >= 0 && row < rows.size() && rows.get(row) == COMPLETED_HEADER;
+    }
+
+    // -1 when the task isn't shown (e.g. completed section collapsed)
+    int rowOf(Task task) {
+        return rowIds.indexOf(task.getId());
+    }
+
+    // Position of the task in its tab (TAB mode), -1 if not shown
+    int tabIndexOf(Task task) {
+        return rowOf(task) >= 0 ? tabOrder.indexOf(task.getId()) : -1;
+    }
+
+    boolean isCompletedVisible() {
+        return completedVisible;
+    }
+
+    // Takes effect on the next showTab()
+    void setCompletedVisible(boolean visible) {
+        completedVisible = visible;
+    }
+
+    int getCompletedCount() {
+        return completedCount;
+    }
+
+    // Back to one page of completed rows on the next showTab(), e.g. for another tab
+    void resetCompletedPages() {
+        completedLimit = COMPLETED_PAGE;
+    }
+
+    boolean hasMoreCompleted() {
+        return mode == Mode.TAB && completedVisible && completedShown() < completedCount;
+    }
+
+    // Appends the next page of completed rows; tasks is the tab as it is now
+    void showMoreCompleted(List<Task> tasks) {
+        if (!hasMoreCompleted()) return;
+        completedLimit = completedShown() + COMPLETED_PAGE;
+        int first = rows.size();
+        // Rows so far are the newest, so the next ones are older than the last row
+        int i = completedShown() > 0 ? tabIndexAt(rows.size() - 1) - 1 : tasks.size() - 1;
+        for (; i >= 0 && completedShown() < completedLimit; i--) {
+            if (tasks.get(i).isCompleted()) append(tasks.get(i));
+        }
+        if (rows.size() > first) {
+            indexRows(first);
+            fireIntervalAdded(this, first, rows.size() - 1);
+        }
+    }
+
+    // ----- whole-list loads -----
+
+    // One pass with the tab's iterator (a tab snapshot's get() isn't O(1));
+    // the newest completed tasks are kept in a ring until the open rows are in
+    void showTab(List<Task> tasks, String emptyText) {
+        int oldSize = reset(Mode.TAB);
+        int limit = completedVisible ? completedLimit : 0;
+        Task[] newest = new Task[limit];
+        int[] ids = new int[tasks.size()];
+        int i = 0;
+        for (Task task : tasks) {
+            ids[i++] = task.getId();
+            if (!task.isCompleted()) {
+                append(task);
+            } else {
+                if (limit > 0) {
+                    newest[completedCount % limit] = task;
+                }
+                completedCount++;
+            }
+        }
+        tabOrder = IdSequence.of(ids, i);
+        if (completedCount > 0) {
+            header = rows.size();
+            append(COMPLETED_HEADER);
+            for (int k = 1; k <= Math.min(limit, completedCount); k++) {
+                append(newest[(completedCount - k) % limit]);
+            }
+        }
+        if (rows.isEmpty()) {
+            append(new Label(emptyText, ""));
+        }
+        replaced(oldSize);
+    }
+
+    // The next rows of the tab shown, in tab order, while it's still being
+    // read. Open tasks are laid out like showTab() would; completed ones are
+    // only counted until showTab() picks the newest. The first batch
+    // replaces the empty-state row.
+    void appendTab(List<Task> tasks) {
+        if (tasks.isEmpty()) return;
+        if (mode != Mode.TAB || isEmptyState()) {
+            int oldSize = reset(Mode.TAB);
+            if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        int openEnd = header >= 0 ? header : rows.size();
+        int[] ids = new int[tasks.size()];
+        int[] openIds = new int[tasks.size()];
+        ArrayList<Task> block = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            ids[i] = task.getId();
+            if (!task.isCompleted()) {
+                openIds[block.size()] = task.getId();
+                block.add(task);
+            }
+        }
+        tabOrder.insertAll(tabOrder.size(), ids, ids.length);
+        // Open tasks go in as one block before the completed section
+        int opened = block.size();
+        if (opened > 0) {
+            rows.addAll(openEnd, block);
+            rowIds.insertAll(openEnd, openIds, opened);
+            if (header >= 0) header += opened;
+            fireIntervalAdded(this, openEnd, openEnd + opened - 1);
+        }
+        int completed = tasks.size() - opened;
+        if (completed > 0 && completedCount == 0) {
+            header = rows.size();
+            append(COMPLETED_HEADER);
+            indexRows(header);
+            fireIntervalAdded(this, header, header);
+        } else if (completed > 0) {
+            fireContentsChanged(this, header, header);
+        }
+        completedCount += completed;
+    }
+
+    // Sections of {title, tasks}, skipping empty ones
+    void showSections(List<String> titles, List<List<Task>> sections, String emptyText) {
+        int oldSize = reset(Mode.AGENDA);
+        for (int s = 0; s < sections.size(); s++) {
+            List<Task> tasks = sections.get(s);
+            if (tasks.isEmpty()) continue;
+            append(new Label(titles.get(s).toUpperCase(), String.valueOf(tasks.size())));
+            for (Task task : tasks) {
+                append(task);
+            }
+        }
+        if (rows.isEmpty()) {
+            append(new Label(emptyText, ""));
+        }
+        replaced(oldSize);
+    }
+
+    void showResults(List<Task> tasks, String emptyText) {
+        int oldSize = reset(Mode.RESULTS);
+        for (Task task : tasks) {
+            append(task);
+        }
+        if (rows.isEmpty()) {
+            append(new Label(emptyText, ""));
+        }
+        replaced(oldSize);
+    }
+
+    // ----- incremental changes (TAB mode) -----
+    // Each returns false when the change adds or drops the completed header or
+    // the empty-state row; the caller then reloads the tab.
+
+    void taskUpdated(Task task) {
+        int row = rowOf(task);
+        if (row >= 0) {
+            fireContentsChanged(this, row, row);
+        }
+    }
+
+    boolean taskAdded(Task task, int tabIndex) {
+        if (isEmptyState() || task.isCompleted() && completedCount == 0) return false;
+        tabIndex = Math.min(tabIndex, tabOrder.size());
+        tabOrder.insert(tabIndex, task.getId());
+        show(task, tabIndex);
+        return true;
+    }
+
+    boolean taskRemoved(Task task) {
+        int openCount = header >= 0 ? header : rows.size();
+        if (openCount + completedCount == 1 || task.isCompleted() && completedCount == 1) return false;
+        hide(task, task.isCompleted());
+        tabOrder.remove(task.getId());
+        return true;
+    }
+
+    // After the task's completed flag flipped; the task stays at its tab position
+    boolean completionChanged(Task task) {
+        int completedAfter = completedCount + (task.isCompleted() ? 1 : -1);
+        int row = rowOf(task);
+        if (completedCount == 0 || completedAfter == 0 || row < 0) return false;
+        int tabIndex = tabOrder.indexOf(task.getId());
+        hide(task, !task.isCompleted());
+        show(task, tabIndex);
+        return true;
+    }
+
+    private int completedShown() {
+        return header >= 0 ? rows.size() - header - 1 : 0;
+    }
+
+    private boolean isEmptyState() {
+        return header < 0 && rows.size() == 1 && rows.get(0) instanceof Label;
+    }
+
+    // Row for a task now at tabIndex, in the section its state puts it
+    private void show(Task task, int tabIndex) {
+        boolean completed = task.isCompleted();
+        if (completed) {
+            completedCount++;
+            fireContentsChanged(this, header, header);
+            if (!completedVisible) return;
+        }
+        int row = insertionRow(tabIndex, completed);
+        if (completed) {
+            // Older than every completed row shown, with older ones still unpaged
+            if (row == rows.size() && completedShown() < completedCount - 1) return;
+            if (completedShown() >= completedLimit) completedLimit++;
+        }
+        rows.add(row, task);
+        rowIds.insert(row, task.getId());
+        if (header >= 0 && row <= header) header++;
+        fireIntervalAdded(this, row, row);
+    }
+
+    private void hide(Task task, boolean wasCompleted) {
+        int row = rowOf(task);
+        if (wasCompleted) {
+            // The page shrinks rather than pulling in an older row
+            if (row >= 0 && completedShown() < completedCount) completedLimit--;
+            completedCount--;
+            fireContentsChanged(this, header, header);
+        }
+        if (row < 0) return;
+        rows.remove(row);
+        rowIds.remove(task.getId());
+        if (header >= 0 && row < header) header--;
+        fireIntervalRemoved(this, row, row);
+    }
+
+    // Open rows are in tab order, completed rows in reverse
+    private int insertionRow(int tabIndex, boolean completed) {
+        int low = completed ? header + 1 : 0;
+        int high = completed || header < 0 ? rows.size() : header;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int midIndex = tabIndexAt(mid);
+            if (completed ? midIndex > tabIndex : midIndex < tabIndex) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int tabIndexAt(int row) {
+        return tabOrder.indexOf(rowIds.get(row));
+    }
+
+    // ----- helpers -----
+
+    private int reset(Mode newMode) {
+        int oldSize = rows.size();
+        mode = newMode;
+        rows.clear();
+        rowIds.clear();
+        tabOrder.clear();
+        nextLabelId = -1;
+        header = -1;
+        completedCount = 0;
+        return oldSize;
+    }
+
+    // Adds the row only; indexRows() gives it its id
+    private void append(Object row) {
+        rows.add(row);
+    }
+
+    // Ids for the rows appended from 'first' on, as one block
+    private void indexRows(int first) {
+        int[] ids = new int[rows.size() - first];
+        for (int row = first; row < rows.size(); row++) {
+            Object value = rows.get(row);
+            ids[row - first] = value instanceof Task ? ((Task) value).getId() : nextLabelId--;
+        }
+        rowIds.insertAll(first, ids, ids.length);
+    }
+
+    private void replaced(int oldSize) {
+        indexRows(0);
+        if (oldSize > 0) fireIntervalRemoved(this, 0, oldSize - 1);
+        if (!rows.isEmpty()) fireIntervalAdded(this, 0, rows.size() - 1);
+    }
+}
@@ -1,21 +1,89 @@
 package flowstate;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+// Owns the tab -> tasks model and routes every change through Storage, so the
+// backend only writes what changed. The CLI methods work on the General tab.
+//
+// Safe to use from several threads. Changes run under one write lock, since
+// each one also updates the cross-tab indexes and the single Storage backend.
+// Each tab is mirrored in a PersistentList, so reads hand out immutable
+// versions in O(1) that callers can iterate without holding anything. Task
+// fields should only be changed through updateTask(task, edit), and several
+// changes can be made atomic with atomically() (or beginBatch/endBatch on
+// one thread).
+//
+// Task changes made through this class can be undone and redone; a batch
+// undoes as one step. Each change is also published as a TaskEvent, so views
+// can apply it without reloading the tab.
 public class TaskManager {
-    private ArrayList<Task> tasks;
+    static final String DEFAULT_TAB = "General";
+    // Queries over at least this many tasks run on the fork-join pool
+    static final int PARALLEL_QUERY_THRESHOLD = 50_000;
+    static final int UNDO_LIMIT = 200;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, ArrayList<Task>> tabTasks;
+    // Immutable copy of each loaded tab, replaced on every change
+    private final Map<String, PersistentList<Task>> versions = new HashMap<>();
+    private final UndoHistory history = new UndoHistory(UNDO_LIMIT);
+    private final List<TaskEvent.Listener> listeners = new CopyOnWriteArrayList<>();
+    // Events made under the write lock, delivered once it's fully released
+    private List<TaskEvent> pendingEvents = new ArrayList<>();
     private Storage storage;
+    // Covers loaded tabs; agenda queries load the rest first
+    private final DueDateIndex dueDates = new DueDateIndex();
+    // Built from every tab on the first search, then kept up to date
+    private SearchIndex searchIndex;
+    // Counts changes the search index would see, built or not, so a build
+    // made outside the lock can tell it missed one
+    private long searchChanges;
 
     public TaskManager(Storage storage) {
+        this(storage, null);
+    }
+
+    // With a visibleTab, backends that support it read only that tab now
+    public TaskManager(Storage storage, String visibleTab) {
+        this(storage, visibleTab, null);
+    }
+
+    // progress (may be null) sees rows while they're read, on this thread,
+    // before the manager exists
+    public TaskManager(Storage storage, String visibleTab, Storage.LoadListener progress) {
         this.storage = storage;
-        this.tasks = storage.loadData();
+        if (visibleTab == null) {
+            this.tabTasks = storage.loadDataByTabs();
+        } else {
+            this.tabTasks = progress != null ? storage.loadDataByTabs(visibleTab, progress) : storage.loadDataByTabs(visibleTab);
+        }
+        for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+            if (entry.getValue() != null) {
+                dueDates.putAll(entry.getKey(), entry.getValue());
+                versions.put(entry.getKey(), PersistentList.of(entry.getValue()));
+            }
+        }
     }
 
     public void addTask(Task task) {
-        tasks.add(task);
+        addTask(DEFAULT_TAB, task);
         System.out.println("Task added successfully!");
     }
 
     public void listTasks() {
+        List<Task> tasks = getTasks();
         if (tasks.isEmpty()) {
             System.out.println("No tasks available.");
         } else {
@@ -27,32 +95,689 @@ public class TaskManager {
     }
 
     public void markTaskCompleted(int index) {
-        if (index >= 0 && index < tasks.size()) {
-            tasks.get(index).setCompleted(true);
-            System.out.println("Task marked as completed!");
-        } else {
-            System.out.println("Invalid task number.");
+        writeLock();
+        try {
+            ArrayList<Task> tasks = tasksOf(DEFAULT_TAB);
+            if (index >= 0 && index < tasks.size()) {
+                setCompleted(tasks.get(index), true);
+                System.out.println("Task marked as completed!");
+            } else {
+                System.out.println("Invalid task number.");
+            }
+        } finally {
+            writeUnlock();
         }
     }
 
     public void deleteTask(int index) {
-        if (index >= 0 && index < tasks.size()) {
-            tasks.remove(index);
-            System.out.println("Task deleted successfully!");
-        } else {
-            System.out.println("Invalid task number.");
+        writeLock();
+        try {
+            ArrayList<Task> tasks = tasksOf(DEFAULT_TAB);
+            if (index >= 0 && index < tasks.size()) {
+                deleteTask(DEFAULT_TAB, index, tasks.get(index));
+                System.out.println("Task deleted successfully!");
+            } else {
+                System.out.println("Invalid task number.");
+            }
+        } finally {
+            writeUnlock();
         }
     }
-    
-    public ArrayList<Task> getTasks() {
-        return tasks;
+
+    public List<Task> getTasks() {
+        return getTasks(DEFAULT_TAB);
     }
-    
+
     public void updateTask(int index, Task task) {
-        tasks.set(index, task);
+        beginBatch();
+        try {
+            deleteTask(DEFAULT_TAB, index, tasksOf(DEFAULT_TAB).get(index));
+            insertTask(DEFAULT_TAB, index, task);
+        } finally {
+            endBatch();
+        }
     }
 
     public void saveTasks() {
-        storage.saveData(tasks);
+        storage.flush();
+    }
+
+    // ----- tabs -----
+
+    // Tab names in display order, including tabs that are still on disk
+    public List<String> getTabNames() {
+        readLock();
+        try {
+            return Collections.unmodifiableList(new ArrayList<>(tabTasks.keySet()));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public boolean hasTab(String tab) {
+        readLock();
+        try {
+            return tabTasks.containsKey(tab);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Immutable version of the tab, loading it first if it was deferred; O(1)
+    public List<Task> getTasks(String tab) {
+        readLock();
+        try {
+            PersistentList<Task> version = versions.get(tab);
+            if (version != null || !tabTasks.containsKey(tab)) {
+                return version != null ? version.asList() : Collections.emptyList();
+            }
+        } finally {
+            readUnlock();
+        }
+        writeLock();
+        try {
+            tasksOf(tab);
+            return versions.get(tab).asList();
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // Immutable version of every tab, in tab order; O(number of tabs)
+    public Map<String, List<Task>> snapshot() {
+        loadAllTabs();
+        readLock();
+        try {
+            Map<String, List<Task>> copy = new LinkedHashMap<>();
+            for (String tab : tabTasks.keySet()) {
+                PersistentList<Task> version = versions.get(tab);
+                if (version != null) {
+                    copy.put(tab, version.asList());
+                }
+            }
+            return Collections.unmodifiableMap(copy);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Works for tabs that haven't been loaded yet
+    public int getTaskCount(String tab) {
+        readLock();
+        try {
+            ArrayList<Task> tasks = tabTasks.get(tab);
+            return tasks != null ? tasks.size() : Math.max(0, storage.getUnloadedTaskCount(tab));
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Read from the tab index for a tab that isn't loaded; -1 if not known
+    public int getCompletedCount(String tab) {
+        readLock();
+        try {
+            PersistentList<Task> version = versions.get(tab);
+            if (version == null) {
+                return tabTasks.containsKey(tab) ? storage.getUnloadedCompletedCount(tab) : 0;
+            }
+            int completed = 0;
+            for (Task task : version.asList()) {
+                if (task.isCompleted()) completed++;
+            }
+            return completed;
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public void createTab(String tab) {
+        writeLock();
+        try {
+            if (tabTasks.containsKey(tab)) return;
+            tabTasks.put(tab, new ArrayList<>());
+            versions.put(tab, PersistentList.empty());
+            storage.createTab(tab);
+            fire(TaskEvent.tabCreated(tab));
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // Keeps the tab in the same place in the tab order
+    public void renameTab(String oldName, String newName) {
+        writeLock();
+        try {
+            ArrayList<Task> tasks = tasksOf(oldName);
+            Map<String, ArrayList<Task>> renamed = new LinkedHashMap<>();
+            for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+                renamed.put(entry.getKey().equals(oldName) ? newName : entry.getKey(), entry.getValue());
+            }
+            tabTasks.clear();
+            tabTasks.putAll(renamed);
+            dueDates.renameTab(oldName, tasks, newName);
+            versions.put(newName, versions.remove(oldName));
+            // Recorded steps name tabs; tab changes aren't undoable
+            history.clear();
+            storage.renameTab(oldName, newName);
+            fire(TaskEvent.tabRenamed(oldName, newName));
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    public void deleteTab(String tab) {
+        writeLock();
+        try {
+            ArrayList<Task> tasks = tabTasks.remove(tab);
+            if (tasks != null) {
+                dueDates.removeTab(tasks);
+                for (Task task : tasks) {
+                    unindex(task);
+                }
+            }
+            versions.remove(tab);
+            history.clear();
+            storage.deleteTab(tab);
+            fire(TaskEvent.tabDeleted(tab));
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // ----- tasks in a tab -----
+
+    public void addTask(String tab, Task task) {
+        writeLock();
+        try {
+            insertTask(tab, tasksOf(tab).size(), task);
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    public void insertTask(String tab, int index, Task task) {
+        writeLock();
+        try {
+            ArrayList<Task> tasks = tasksOf(tab);
+            tasks.add(index, task);
+            versions.put(tab, versions.get(tab).insert(index, task));
+            dueDates.put(tab, task);
+            index(task);
+            history.record(() -> deleteTask(tab, index, task), () -> insertTask(tab, index, task));
+            storage.insertTask(tab, index, task);
+            fire(TaskEvent.added(tab, index, task));
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // Call after changing the task's fields (single-threaded callers; not
+    // undoable, since the old values are already gone)
+    public void updateTask(Task task) {
+        writeLock();
+        try {
+            stored(task, EnumSet.allOf(TaskEvent.Field.class));
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // Changes the task's fields under the lock, so readers never see half an edit
+    public void updateTask(Task task, Consumer<Task> edit) {
+        writeLock();
+        try {
+            Task.Fields before = task.getFields();
+            edit.accept(task);
+            Task.Fields after = task.getFields();
+            Set<TaskEvent.Field> changed = after.changedFrom(before);
+            if (changed.isEmpty()) return;
+            history.record(() -> updateTask(task, t -> t.setFields(before)),
+                    () -> updateTask(task, t -> t.setFields(after)));
+            stored(task, changed);
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    public void setCompleted(Task task, boolean completed) {
+        writeLock();
+        try {
+            boolean was = task.isCompleted();
+            if (was == completed) return;
+            task.setCompleted(completed);
+            history.record(() -> setCompleted(task, was), () -> setCompleted(task, completed));
+            stored(task, EnumSet.of(TaskEvent.Field.COMPLETED));
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // Indexes, storage and listeners after the task's fields changed
+    private void stored(Task task, Set<TaskEvent.Field> changed) {
+        dueDates.refile(task);
+        searchChanges++;
+        if (searchIndex != null) {
+            searchIndex.update(task);
+        }
+        storage.updateTask(task);
+        fire(TaskEvent.updated(dueDates.tabOf(task), task, changed));
+    }
+
+    public boolean deleteTask(String tab, Task task) {
+        writeLock();
+        try {
+            int index = tasksOf(tab).indexOf(task);
+            return index >= 0 && deleteTask(tab, index, task);
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // index is where the caller last saw the task (e.g. its list row), which
+    // saves searching the tab; falls back to a search if it has moved since
+    public boolean deleteTask(String tab, int index, Task task) {
+        writeLock();
+        try {
+            ArrayList<Task> tasks = tasksOf(tab);
+            if (index < 0 || index >= tasks.size() || tasks.get(index) != task) {
+                return deleteTask(tab, task);
+            }
+            tasks.remove(index);
+            versions.put(tab, versions.get(tab).remove(index));
+            dueDates.remove(task);
+            unindex(task);
+            history.record(() -> insertTask(tab, index, task), () -> deleteTask(tab, index, task));
+            storage.deleteTask(task);
+            fire(TaskEvent.removed(tab, index, task));
+            return true;
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    public void moveTask(Task task, String fromTab, String toTab, int toIndex) {
+        writeLock();
+        try {
+            ArrayList<Task> from = tasksOf(fromTab);
+            ArrayList<Task> to = tasksOf(toTab);
+            int fromIndex = from.indexOf(task);
+            if (fromIndex < 0) return;
+            from.remove(fromIndex);
+            versions.put(fromTab, versions.get(fromTab).remove(fromIndex));
+            int index = Math.min(toIndex, to.size());
+            to.add(index, task);
+            versions.put(toTab, versions.get(toTab).insert(index, task));
+            dueDates.put(toTab, task);
+            history.record(() -> moveTask(task, toTab, fromTab, fromIndex), () -> moveTask(task, fromTab, toTab, index));
+            storage.moveTask(task, toTab, index);
+            fire(TaskEvent.moved(fromTab, fromIndex, toTab, index, task));
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // ----- agenda: open tasks by due date across all tabs -----
+
+    // Tasks due in [from, to], earliest first; O(log n + k) once every tab is loaded
+    public List<Task> findDueBetween(LocalDate from, LocalDate to) {
+        return findDueBetweenDays((int) from.toEpochDay(), (int) to.toEpochDay());
+    }
+
+    public List<Task> findOverdue() {
+        return findDueBetweenDays(DueDates.FIRST_DAY, (int) LocalDate.now().toEpochDay() - 1);
+    }
+
+    public List<Task> findDueToday() {
+        LocalDate today = LocalDate.now();
+        return findDueBetween(today, today);
+    }
+
+    // Tomorrow through the next 6 days
+    public List<Task> findDueThisWeek() {
+        LocalDate today = LocalDate.now();
+        return findDueBetween(today.plusDays(1), today.plusDays(6));
+    }
+
+    // Like findDueBetween() but only in tabs already loaded, which are all
+    // the UI can be showing; doesn't load the rest
+    public List<Task> findLoadedDueBetween(int fromDay, int toDay) {
+        readLock();
+        try {
+            return dueDates.range(fromDay, toDay);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    private List<Task> findDueBetweenDays(int fromDay, int toDay) {
+        loadAllTabs();
+        readLock();
+        try {
+            return dueDates.range(fromDay, toDay);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Open and completed tasks due on each day from fromDay on, across all
+    // tabs: open[i] and done[i] for day fromDay + i. Read from counters that
+    // every change keeps up to date, so this doesn't scan tasks.
+    public void countDueDays(int fromDay, int[] open, int[] done) {
+        loadAllTabs();
+        countLoadedDueDays(fromDay, open, done);
+    }
+
+    // Like countDueDays() but only in tabs already loaded; doesn't load the rest
+    public void countLoadedDueDays(int fromDay, int[] open, int[] done) {
+        readLock();
+        try {
+            dueDates.countDays(fromDay, open, done);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Tab of any loaded task, null if it isn't in one
+    public String getTabOf(Task task) {
+        readLock();
+        try {
+            return dueDates.tabOf(task);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // ----- queries: filter and sort across tabs (see TaskQuery) -----
+
+    public List<Task> query(TaskQuery query) {
+        loadAllTabs();
+        readLock();
+        try {
+            List<String> tabs = query.getTabs() != null ? query.getTabs() : new ArrayList<>(tabTasks.keySet());
+            List<ArrayList<Task>> lists = new ArrayList<>();
+            int total = 0;
+            for (String tab : tabs) {
+                ArrayList<Task> tasks = tabTasks.get(tab);
+                if (tasks != null) {
+                    lists.add(tasks);
+                    total += tasks.size();
+                }
+            }
+            // Small tabs aren't worth the fork-join overhead; an ordered parallel
+            // stream still keeps tab order for ties and for skip/limit. Workers
+            // only read, and this thread holds the read lock until they finish.
+            Stream<Task> stream = lists.stream().flatMap(List::stream);
+            if (total >= PARALLEL_QUERY_THRESHOLD) {
+                stream = stream.parallel();
+            }
+            stream = stream.filter(query.toPredicate());
+            if (query.isSorted()) {
+                Map<String, Integer> tabOrder = new HashMap<>();
+                for (String tab : tabTasks.keySet()) {
+                    tabOrder.put(tab, tabOrder.size());
+                }
+                stream = stream.sorted(query.toComparator(t -> tabOrder.getOrDefault(dueDates.tabOf(t), Integer.MAX_VALUE)));
+            }
+            return stream.skip(query.getOffset()).limit(query.getLimit()).collect(Collectors.toList());
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // ----- search: titles and descriptions across all tabs -----
+
+    // Best matches first; the last word may be partial (search-as-you-type)
+    public List<Task> search(String query, int limit) {
+        if (!hasSearchIndex()) {
+            rebuildSearchIndex();
+        }
+        readLock();
+        try {
+            return searchIndex.search(query, limit);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // False until the first search or rebuildSearchIndex(); the UI builds it
+    // off the event thread before searching
+    public boolean hasSearchIndex() {
+        readLock();
+        try {
+            return searchIndex != null;
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Loads every tab and indexes it from scratch, in parallel. The index is
+    // built without the lock from the tabs' immutable versions, so other
+    // threads aren't held up for the build; if a change came in meanwhile,
+    // it is built again under the write lock.
+    public void rebuildSearchIndex() {
+        loadAllTabs();
+        List<Task> all = new ArrayList<>();
+        long seen;
+        readLock();
+        try {
+            for (PersistentList<Task> version : versions.values()) {
+                all.addAll(version.asList());
+            }
+            seen = searchChanges;
+        } finally {
+            readUnlock();
+        }
+        SearchIndex built = SearchIndex.build(all);
+        writeLock();
+        try {
+            if (searchChanges != seen || hasUnloadedTabs()) {
+                loadAllTabs();
+                all.clear();
+                for (ArrayList<Task> tasks : tabTasks.values()) {
+                    all.addAll(tasks);
+                }
+                built = SearchIndex.build(all);
+            }
+            searchIndex = built;
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // Callers hold the write lock
+    private void index(Task task) {
+        searchChanges++;
+        if (searchIndex != null) {
+            searchIndex.add(task);
+        }
+    }
+
+    private void unindex(Task task) {
+        searchChanges++;
+        if (searchIndex != null) {
+            searchIndex.remove(task);
+        }
+    }
+
+    // Live list, loading the tab first if it was deferred; callers hold the write lock
+    private ArrayList<Task> tasksOf(String tab) {
+        ArrayList<Task> tasks = tabTasks.get(tab);
+        if (tasks == null) {
+            tasks = tabTasks.containsKey(tab) ? storage.loadTab(tab) : new ArrayList<>();
+            tabTasks.put(tab, tasks);
+            versions.put(tab, PersistentList.of(tasks));
+            dueDates.putAll(tab, tasks);
+            for (Task task : tasks) {
+                index(task);
+            }
+        }
+        return tasks;
+    }
+
+    // True while some tab is deferred, i.e. cross-tab queries would read the file
+    public boolean hasUnloadedTabs() {
+        readLock();
+        try {
+            return tabTasks.containsValue(null);
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // Reads every deferred tab. The write lock is taken a tab at a time, so
+    // other threads wait for one tab's read at most; the UI calls this off the
+    // event thread before showing anything cross-tab.
+    public void loadAllTabs() {
+        while (true) {
+            List<String> unloaded = new ArrayList<>();
+            readLock();
+            try {
+                for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+                    if (entry.getValue() == null) unloaded.add(entry.getKey());
+                }
+            } finally {
+                readUnlock();
+            }
+            if (unloaded.isEmpty()) return;
+            for (String tab : unloaded) {
+                writeLock();
+                try {
+                    // Renamed or deleted in the meantime: the next pass sees the new name
+                    if (tabTasks.containsKey(tab) && tabTasks.get(tab) == null) {
+                        tasksOf(tab);
+                    }
+                } finally {
+                    writeUnlock();
+                }
+            }
+        }
+    }
+
+    // ----- atomic groups of changes -----
+
+    // Runs the changes as one unit: other threads see all of them or none,
+    // and storage writes them together
+    public void atomically(Runnable changes) {
+        beginBatch();
+        try {
+            changes.run();
+        } finally {
+            endBatch();
+        }
+    }
+
+    // Holds the write lock until the matching endBatch() on the same thread
+    public void beginBatch() {
+        writeLock();
+        history.beginGroup();
+        storage.beginBatch();
+    }
+
+    public void endBatch() {
+        try {
+            history.endGroup();
+            storage.endBatch();
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    // ----- undo / redo -----
+
+    public boolean canUndo() {
+        readLock();
+        try {
+            return history.canUndo();
+        } finally {
+            readUnlock();
+        }
+    }
+
+    public boolean canRedo() {
+        readLock();
+        try {
+            return history.canRedo();
+        } finally {
+            readUnlock();
+        }
+    }
+
+    // False when there was nothing to undo
+    public boolean undo() {
+        beginBatch();
+        try {
+            return history.undo();
+        } finally {
+            endBatch();
+        }
+    }
+
+    public boolean redo() {
+        beginBatch();
+        try {
+            return history.redo();
+        } finally {
+            endBatch();
+        }
+    }
+
+    // ----- change events -----
+
+    public void addTaskListener(TaskEvent.Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeTaskListener(TaskEvent.Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Caller holds the write lock
+    private void fire(TaskEvent event) {
+        if (!listeners.isEmpty()) {
+            pendingEvents.add(event);
+        }
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public void close() {
+        writeLock();
+        try {
+            storage.close();
+        } finally {
+            writeUnlock();
+        }
+    }
+
+    private void readLock() {
+        lock.readLock().lock();
+    }
+
+    private void readUnlock() {
+        lock.readLock().unlock();
+    }
+
+    private void writeLock() {
+        lock.writeLock().lock();
+    }
+
+    // Delivers the events queued under the lock once the outermost hold is
+    // released, so listeners see the finished change (or the whole batch)
+    private void writeUnlock() {
+        List<TaskEvent> events = null;
+        if (lock.getWriteHoldCount() == 1 && !pendingEvents.isEmpty()) {
+            events = pendingEvents;
+            pendingEvents = new ArrayList<>();
+        }
+        lock.writeLock().unlock();
+        if (events != null) {
+            for (TaskEvent event : events) {
+                for (TaskEvent.Listener listener : listeners) {
+                    listener.taskChanged(event);
+                }
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package flowstate;
+
+import java.util.*;
+
+// Where each task id currently sits (tab and position), kept in step with the
+// Storage change calls. Backends whose formats are positional use it to turn
+// an id back into an index, including for tasks the model already dropped.
+//
+// Ids are kept as plain ints: a million tasks would otherwise cost an Integer
+// per list slot and another per map key. Each tab is an IdSequence, so
+// finding, inserting and removing an id are O(log n) in the tab's size.
+class TaskPositions {
+    private final Map<String, IdSequence> idsByTab = new HashMap<>();
+    // Values are the idsByTab keys, so each tab name is stored once
+    private final IntMap<String> tabOf = new IntMap<>();
+
+    void loadTab(String tab, List<Task> tasks) {
+        int[] ids = new int[tasks.size()];
+        int count = 0;
+        for (Task task : tasks) {
+            ids[count++] = task.getId();
+            tabOf.put(task.getId(), tab);
+        }
+        idsByTab.put(tab, IdSequence.of(ids, count));
+    }
+
+    void loadAll(Map<String, ArrayList<Task>> tabTasks) {
+        for (Map.Entry<String, ArrayList<Task>> entry : tabTasks.entrySet()) {
+            if (entry.getValue() != null) {
+                loadTab(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    int size(String tab) {
+        IdSequence ids = idsByTab.get(tab);
+        return ids == null ? 0 : ids.size();
+    }
+
+    void insert(String tab, int index, int id) {
+        IdSequence ids = idsByTab.computeIfAbsent(tab, k -> new IdSequence());
+        ids.insert(Math.min(index, ids.size()), id);
+        tabOf.put(id, tab);
+    }
+
+    // null for ids this storage never saw
+    String tabOf(int id) {
+        return tabOf.get(id);
+    }
+
+    int indexOf(int id) {
+        String tab = tabOf.get(id);
+        return tab == null ? -1 : idsByTab.get(tab).indexOf(id);
+    }
+
+    // Returns the old position, or -1
+    int remove(int id) {
+        String tab = tabOf.remove(id);
+        if (tab == null) return -1;
+        return idsByTab.get(tab).remove(id);
+    }
+
+    void renameTab(String oldName, String newName) {
+        IdSequence ids = idsByTab.remove(oldName);
+        if (ids == null) return;
+        idsByTab.put(newName, ids);
+        for (int id : ids.toArray()) {
+            tabOf.put(id, newName);
+        }
+    }
+
+    void deleteTab(String tab) {
+        IdSequence ids = idsByTab.remove(tab);
+        if (ids == null) return;
+        for (int id : ids.toArray()) {
+            tabOf.remove(id);
+        }
+    }
+}
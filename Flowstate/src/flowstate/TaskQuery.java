@@ -0,0 +1,196 @@
+package flowstate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// A filter + sort over tasks, run by TaskManager.query(). Every condition
+// left unset matches everything; calls chain, e.g.
+//
+//   new TaskQuery().withPriority(Priority.HIGH).dueWithinDays(7).sortBy(TaskQuery.SortKey.DUE_DATE)
+//
+// Tasks come out in tab order, then their order in the tab, unless sorted.
+public class TaskQuery {
+    public enum SortKey { DUE_DATE, PRIORITY, TITLE, TAB, COMPLETED }
+
+    private List<String> tabs;
+    private EnumSet<Priority> priorities;
+    private Boolean completed;
+    // Epoch days, inclusive; relative ones count from today when the query runs
+    private boolean hasDueRange;
+    private boolean dueRelative;
+    private long dueFrom;
+    private long dueTo;
+    private List<String> words;
+    private final List<SortKey> sortKeys = new ArrayList<>();
+    private final List<Boolean> sortDescending = new ArrayList<>();
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    public TaskQuery inTabs(String... tabs) {
+        this.tabs = Arrays.asList(tabs);
+        return this;
+    }
+
+    public TaskQuery withPriority(Priority... priorities) {
+        this.priorities = EnumSet.copyOf(Arrays.asList(priorities));
+        return this;
+    }
+
+    public TaskQuery completed(boolean completed) {
+        this.completed = completed;
+        return this;
+    }
+
+    // Only tasks with a due date in [from, to]
+    public TaskQuery dueBetween(LocalDate from, LocalDate to) {
+        hasDueRange = true;
+        dueRelative = false;
+        dueFrom = from.toEpochDay();
+        dueTo = to.toEpochDay();
+        return this;
+    }
+
+    // Due from today through today + days - 1, evaluated when the query runs
+    public TaskQuery dueWithinDays(int days) {
+        return dueRelative(0, days - 1);
+    }
+
+    // Due before today, evaluated when the query runs
+    public TaskQuery overdue() {
+        return dueRelative(Integer.MIN_VALUE, -1);
+    }
+
+    private TaskQuery dueRelative(long fromOffset, long toOffset) {
+        hasDueRange = true;
+        dueRelative = true;
+        dueFrom = fromOffset;
+        dueTo = toOffset;
+        return this;
+    }
+
+    // Every word has to start a word of the title or description
+    public TaskQuery matching(String text) {
+        words = SearchIndex.words(text);
+        return this;
+    }
+
+    // Keys apply in the order given; ties keep tab order
+    public TaskQuery sortBy(SortKey key) {
+        return sortBy(key, false);
+    }
+
+    public TaskQuery sortBy(SortKey key, boolean descending) {
+        sortKeys.add(key);
+        sortDescending.add(descending);
+        return this;
+    }
+
+    public TaskQuery offset(int offset) {
+        this.offset = Math.max(0, offset);
+        return this;
+    }
+
+    public TaskQuery limit(int limit) {
+        this.limit = Math.max(0, limit);
+        return this;
+    }
+
+    // ----- used by TaskManager -----
+
+    // null means every tab
+    List<String> getTabs() {
+        return tabs;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    boolean isSorted() {
+        return !sortKeys.isEmpty();
+    }
+
+    Predicate<Task> toPredicate() {
+        Predicate<Task> p = t -> true;
+        if (priorities != null) {
+            EnumSet<Priority> wanted = priorities;
+            p = p.and(t -> wanted.contains(t.getPriorityLevel()));
+        }
+        if (completed != null) {
+            boolean wanted = completed;
+            p = p.and(t -> t.isCompleted() == wanted);
+        }
+        if (hasDueRange) {
+            long today = LocalDate.now().toEpochDay();
+            long from = dueRelative ? (dueFrom == Integer.MIN_VALUE ? Long.MIN_VALUE : today + dueFrom) : dueFrom;
+            long to = dueRelative ? today + dueTo : dueTo;
+            p = p.and(t -> t.hasDueDate() && t.getDueDay() >= from && t.getDueDay() <= to);
+        }
+        if (words != null && !words.isEmpty()) {
+            List<String> wanted = words;
+            p = p.and(t -> SearchIndex.matchesAll(t, wanted));
+        }
+        return p;
+    }
+
+    // tabPosition gives a task's tab's place in the tab order, for SortKey.TAB
+    Comparator<Task> toComparator(Function<Task, Integer> tabPosition) {
+        Comparator<Task> c = null;
+        for (int i = 0; i < sortKeys.size(); i++) {
+            Comparator<Task> key = comparatorFor(sortKeys.get(i), sortDescending.get(i), tabPosition);
+            c = c == null ? key : c.thenComparing(key);
+        }
+        return c;
+    }
+
+    private static Comparator<Task> comparatorFor(SortKey key, boolean descending, Function<Task, Integer> tabPosition) {
+        Comparator<Task> ascending;
+        switch (key) {
+            case DUE_DATE:
+                // Undated tasks last either way, so only the dates are reversed
+                return (a, b) -> {
+                    if (a.hasDueDate() != b.hasDueDate()) return a.hasDueDate() ? -1 : 1;
+                    if (!a.hasDueDate()) return 0;
+                    return descending ? Integer.compare(b.getDueDay(), a.getDueDay())
+                            : Integer.compare(a.getDueDay(), b.getDueDay());
+                };
+            case PRIORITY:
+                // Most urgent first
+                ascending = Comparator.comparingInt(t -> -t.getPriorityLevel().ordinal());
+                break;
+            case TITLE:
+                ascending = Comparator.comparing(Task::getTitle, String.CASE_INSENSITIVE_ORDER);
+                break;
+            case TAB:
+                ascending = Comparator.comparing(tabPosition);
+                break;
+            default:
+                // Open before done
+                ascending = Comparator.comparing(Task::isCompleted);
+        }
+        return descending ? ascending.reversed() : ascending;
+    }
+
+    // ----- saved views -----
+
+    // Views the GUI and CLI offer by name, in menu order. New instances each
+    // call, since queries are mutable.
+    public static Map<String, TaskQuery> savedViews() {
+        Map<String, TaskQuery> views = new LinkedHashMap<>();
+        views.put("High priority, due within 7 days", new TaskQuery().completed(false)
+                .withPriority(Priority.HIGH).dueWithinDays(7).sortBy(SortKey.DUE_DATE));
+        views.put("Overdue", new TaskQuery().completed(false).overdue()
+                .sortBy(SortKey.DUE_DATE).sortBy(SortKey.PRIORITY));
+        views.put("All open tasks by priority", new TaskQuery().completed(false)
+                .sortBy(SortKey.PRIORITY).sortBy(SortKey.DUE_DATE));
+        views.put("Completed, latest due first", new TaskQuery().completed(true)
+                .sortBy(SortKey.DUE_DATE, true).limit(50));
+        return views;
+    }
+}
@@ -0,0 +1,282 @@
+package flowstate;
+
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.function.Function;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import javax.swing.UIManager;
+
+// Paints a TaskListModel row straight from the task's fields: title, priority
+// badge and date, no HTML and no child labels. Fonts, colors and font metrics
+// are worked out once and date text is cached per day, so painting a row
+// allocates nothing once the caches are warm.
+//
+// getListCellRendererComponent only records what to paint; paintComponent
+// does the work when JList stamps the row.
+class TaskRenderer extends JComponent implements ListCellRenderer<Object> {
+    private static final DateTimeFormatter SHORT_DATE = DateTimeFormatter.ofPattern("MMM d");
+    private static final int PAD_X = 12;
+
+    private static final Color BACKGROUND = Color.white;
+    private static final Color SELECTED = new Color(240, 244, 248);
+    private static final Color RULE = new Color(220, 220, 220);
+    private static final Color HEADER_BACKGROUND = new Color(248, 248, 248);
+    private static final Color HEADER_RULE = new Color(200, 200, 200);
+    private static final Color HEADER_TEXT = new Color(120, 120, 120);
+    private static final Color TEXT = Color.decode("#1F2937");
+    private static final Color OVERDUE = Color.decode("#EF4444");
+    private static final Color DUE_TODAY = Color.decode("#F59E0B");
+    private static final Color DONE = Color.decode("#999999");
+    private static final Color DETAIL = Color.decode("#6B7280");
+
+    private static final String TODAY = "Today [NOW]";
+    private static final String OVERDUE_SUFFIX = " [OVERDUE]";
+    private static final String DONE_SUFFIX = " [done]";
+    private static final String TAB_SEPARATOR = " - ";
+
+    private final Font titleFont = Resources.font("Segoe UI", Font.BOLD, 13);
+    private final Font badgeFont = Resources.font("Segoe UI", Font.PLAIN, 13);
+    private final Font detailFont = Resources.font("Segoe UI", Font.PLAIN, 11);
+    private final Font headerFont = Resources.font("Segoe UI", Font.BOLD, 12);
+    private final Color labelText;
+    private final Map<?, ?> textHints;
+
+    private final TaskListModel model;
+    // Tab name for agenda and search rows
+    private final Function<Task, String> tabOf;
+
+    // Measured on the first paint
+    private FontMetrics titleMetrics;
+    private FontMetrics badgeMetrics;
+    private FontMetrics detailMetrics;
+    private FontMetrics headerMetrics;
+    private int spaceWidth;
+
+    // "MMM d" text per epoch day
+    private final IntMap<String> shortDates = new IntMap<>();
+    private int today;
+    private long nextDayMillis;
+    // The completed header's count, formatted when it changes
+    private int headerCount = -1;
+    private String headerCountText;
+
+    // The row being painted
+    private Object value;
+    private boolean selected;
+    // Right-hand text, drawn left to right in one color
+    private final String[] parts = new String[4];
+    private int partCount;
+    private Color partColor;
+
+    TaskRenderer(TaskListModel model, Function<Task, String> tabOf) {
+        this.model = model;
+        this.tabOf = tabOf;
+        Color foreground = UIManager.getColor("Label.foreground");
+        labelText = foreground != null ? foreground : TEXT;
+        textHints = (Map<?, ?>) Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+        setPreferredSize(new Dimension(300, 45));
+        setOpaque(true);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Object> list, Object value, int index,
+            boolean isSelected, boolean cellHasFocus) {
+        this.value = value;
+        this.selected = isSelected;
+        return this;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        if (textHints != null) {
+            g2.addRenderingHints(textHints);
+        }
+        if (titleMetrics == null) {
+            measure(g2);
+        }
+        int width = getWidth();
+        int height = getHeight();
+        if (value == TaskListModel.COMPLETED_HEADER) {
+            paintHeader(g2, width, height);
+            return;
+        }
+
+        g2.setColor(selected && value instanceof Task ? SELECTED : BACKGROUND);
+        g2.fillRect(0, 0, width, height);
+        int titleBaseline = baseline(titleMetrics, height);
+        int detailBaseline = baseline(detailMetrics, height);
+        if (value instanceof TaskListModel.Label) {
+            TaskListModel.Label label = (TaskListModel.Label) value;
+            if (label.text.startsWith("(empty)")) {
+                g2.setFont(badgeFont);
+                g2.setColor(labelText);
+                g2.drawString(label.text, PAD_X, titleBaseline);
+            } else {
+                // Agenda section
+                g2.setFont(titleFont);
+                g2.setColor(DETAIL);
+                g2.drawString(label.text, PAD_X, titleBaseline);
+                g2.setFont(detailFont);
+                g2.drawString(label.detail, width - PAD_X - detailMetrics.stringWidth(label.detail), detailBaseline);
+            }
+        } else if (value instanceof Task) {
+            paintTask(g2, (Task) value, width, titleBaseline, detailBaseline);
+        }
+        g2.setColor(RULE);
+        g2.drawLine(0, height - 1, width, height - 1);
+    }
+
+    private void paintTask(Graphics2D g2, Task task, int width, int titleBaseline, int detailBaseline) {
+        int day = today();
+        int dueDay = task.getDueDay();
+        boolean dated = task.hasDueDate();
+        boolean completed = task.isCompleted();
+        Color color;
+        if (completed) {
+            color = DONE;
+        } else if (model.getMode() == TaskListModel.Mode.RESULTS) {
+            color = TEXT;
+        } else if (dated && dueDay < day) {
+            color = OVERDUE;
+        } else if (dated && dueDay == day) {
+            color = DUE_TODAY;
+        } else {
+            color = TEXT;
+        }
+
+        // Title and priority badge
+        Priority priority = task.getPriorityLevel();
+        g2.setFont(titleFont);
+        g2.setColor(color);
+        g2.drawString(task.getTitle(), PAD_X, titleBaseline);
+        int x = PAD_X + titleMetrics.stringWidth(task.getTitle()) + spaceWidth;
+        g2.setFont(badgeFont);
+        g2.setColor(priority.getColor());
+        g2.drawString(priority.getIcon(), x, titleBaseline);
+
+        // Date (and tab, outside the tab view) on the right
+        partCount = 0;
+        if (model.getMode() != TaskListModel.Mode.TAB) {
+            partColor = DETAIL;
+            String tab = tabOf.apply(task);
+            part(tab != null ? tab : "");
+            if (dated) {
+                part(TAB_SEPARATOR);
+                part(shortDate(dueDay));
+            }
+            if (completed) part(DONE_SUFFIX);
+        } else if (completed) {
+            partColor = DONE;
+            if (dated) part(shortDate(dueDay));
+            part(DONE_SUFFIX);
+        } else if (dated) {
+            partColor = color;
+            if (dueDay == day) {
+                part(TODAY);
+            } else {
+                part(shortDate(dueDay));
+                if (dueDay < day) part(OVERDUE_SUFFIX);
+            }
+        }
+        if (partCount == 0) return;
+        int rightWidth = 0;
+        for (int i = 0; i < partCount; i++) {
+            rightWidth += detailMetrics.stringWidth(parts[i]);
+        }
+        int rightX = width - PAD_X - rightWidth;
+        // Covers a title long enough to run under the date
+        g2.setColor(selected ? SELECTED : BACKGROUND);
+        g2.fillRect(rightX - PAD_X, 0, width - rightX + PAD_X, getHeight() - 1);
+        g2.setFont(detailFont);
+        g2.setColor(partColor);
+        for (int i = 0; i < partCount; i++) {
+            g2.drawString(parts[i], rightX, detailBaseline);
+            rightX += detailMetrics.stringWidth(parts[i]);
+        }
+    }
+
+    private void paintHeader(Graphics2D g2, int width, int height) {
+        g2.setColor(HEADER_BACKGROUND);
+        g2.fillRect(0, 0, width, height);
+        g2.setColor(HEADER_RULE);
+        g2.drawLine(0, 0, width, 0);
+        g2.drawLine(0, height - 1, width, height - 1);
+        g2.setFont(headerFont);
+        g2.setColor(HEADER_TEXT);
+        // Padded 12 above and 8 below, like the rest of the list's sections
+        int baseline = baseline(headerMetrics, height) + 2;
+        g2.drawString(TaskListModel.COMPLETED_HEADER.text, PAD_X, baseline);
+        if (model.getCompletedCount() != headerCount) {
+            headerCount = model.getCompletedCount();
+            headerCountText = String.format("%,d", headerCount);
+        }
+        g2.drawString(headerCountText, width - PAD_X - headerMetrics.stringWidth(headerCountText), baseline);
+    }
+
+    private void part(String text) {
+        parts[partCount++] = text;
+    }
+
+    private void measure(Graphics2D g2) {
+        titleMetrics = g2.getFontMetrics(titleFont);
+        badgeMetrics = g2.getFontMetrics(badgeFont);
+        detailMetrics = g2.getFontMetrics(detailFont);
+        headerMetrics = g2.getFontMetrics(headerFont);
+        spaceWidth = badgeMetrics.charWidth(' ');
+    }
+
+    private static int baseline(FontMetrics metrics, int height) {
+        return (height - metrics.getHeight()) / 2 + metrics.getAscent();
+    }
+
+    private String shortDate(int epochDay) {
+        String text = shortDates.get(epochDay);
+        if (text == null) {
+            text = LocalDate.ofEpochDay(epochDay).format(SHORT_DATE);
+            shortDates.put(epochDay, text);
+        }
+        return text;
+    }
+
+    // The date moved some other way than by passing midnight (the clock or
+    // time zone changed); the next paint looks it up again
+    void dateChanged() {
+        nextDayMillis = 0;
+    }
+
+    // Today's epoch day, only recomputed once the day is over
+    private int today() {
+        long now = System.currentTimeMillis();
+        if (now >= nextDayMillis) {
+            LocalDate date = LocalDate.now();
+            today = (int) date.toEpochDay();
+            nextDayMillis = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        return today;
+    }
+
+    // JList stamps the component once per row; skip the usual repaint bookkeeping
+    @Override
+    public void invalidate() {}
+
+    @Override
+    public void validate() {}
+
+    @Override
+    public void revalidate() {}
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {}
+
+    @Override
+    public void repaint(Rectangle r) {}
+
+    @Override
+    public void repaint() {}
+}
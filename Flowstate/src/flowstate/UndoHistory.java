@@ -0,0 +1,121 @@
+package flowstate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Bounded undo/redo stacks for TaskManager. Each step is a pair of actions
+// that reverse and replay one change through TaskManager's own methods, so
+// storage and the indexes follow along; a step holds only what that change
+// touched, so memory grows with the number of edits, not with the task count.
+//
+// Changes made between beginGroup() and endGroup() (a batch) undo as one step.
+class UndoHistory {
+    interface Step {
+        void undo();
+
+        void redo();
+    }
+
+    private final int limit;
+    private final Deque<Step> undoSteps = new ArrayDeque<>();
+    private final Deque<Step> redoSteps = new ArrayDeque<>();
+    private List<Step> group;
+    private int groupDepth;
+    // Set while a step is replayed, so its own changes aren't recorded again
+    private boolean replaying;
+
+    UndoHistory(int limit) {
+        this.limit = limit;
+    }
+
+    void record(Runnable undo, Runnable redo) {
+        if (replaying) return;
+        Step step = new Step() {
+            public void undo() { undo.run(); }
+            public void redo() { redo.run(); }
+        };
+        if (group != null) {
+            group.add(step);
+            return;
+        }
+        push(step);
+    }
+
+    void beginGroup() {
+        if (groupDepth++ == 0) {
+            group = new ArrayList<>();
+        }
+    }
+
+    void endGroup() {
+        if (groupDepth == 0 || --groupDepth > 0) return;
+        List<Step> steps = group;
+        group = null;
+        if (steps.isEmpty()) return;
+        if (steps.size() == 1) {
+            push(steps.get(0));
+            return;
+        }
+        push(new Step() {
+            public void undo() {
+                for (int i = steps.size() - 1; i >= 0; i--) {
+                    steps.get(i).undo();
+                }
+            }
+
+            public void redo() {
+                for (Step step : steps) {
+                    step.redo();
+                }
+            }
+        });
+    }
+
+    boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+
+    boolean canRedo() {
+        return !redoSteps.isEmpty();
+    }
+
+    boolean undo() {
+        Step step = undoSteps.pollFirst();
+        if (step == null) return false;
+        replay(step::undo);
+        redoSteps.push(step);
+        return true;
+    }
+
+    boolean redo() {
+        Step step = redoSteps.pollFirst();
+        if (step == null) return false;
+        replay(step::redo);
+        undoSteps.push(step);
+        return true;
+    }
+
+    void clear() {
+        undoSteps.clear();
+        redoSteps.clear();
+    }
+
+    private void push(Step step) {
+        undoSteps.push(step);
+        if (undoSteps.size() > limit) {
+            undoSteps.removeLast();
+        }
+        redoSteps.clear();
+    }
+
+    private void replay(Runnable action) {
+        replaying = true;
+        try {
+            action.run();
+        } finally {
+            replaying = false;
+        }
+    }
+}
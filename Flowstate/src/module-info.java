@@ -6,4 +6,5 @@
  */
 module Flowstate {
 	requires java.desktop;
+	requires java.management;
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+// tasks.bin round trips, migration from tasks.txt, and files that can't be
+// read: the load fails and the file is never written over
+public class BinaryStorageTest {
+    public static void main(String[] args) throws Exception {
+        migratesAndRoundTrips();
+        unreadableFileFailsTheLoad();
+        System.out.println("BinaryStorageTest ok");
+    }
+
+    private static void migratesAndRoundTrips() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        tabTasks.get("General").add(new Task("a|b,c\\d", "two\nlines", "10/18/2026", "High"));
+        tabTasks.get("General").add(new Task("raw date", "", "next week", "Custom"));
+        tabTasks.get("Work").add(task("done"));
+        tabTasks.get("Work").get(0).setCompleted(true);
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, tabTasks, 0);
+
+        checkEquals(contents(tabTasks), contents(new BinaryStorage().loadDataByTabs()), "migrated");
+        check(new File(BinaryStorage.FILE_NAME).exists(), "tasks.bin written");
+
+        // Unlike tasks.txt, empty tabs are kept
+        tabTasks.put("Empty", new ArrayList<>());
+        new BinaryStorage().saveDataByTabs(tabTasks);
+        checkEquals(contents(tabTasks), contents(new BinaryStorage().loadDataByTabs()), "reloaded");
+    }
+
+    private static void unreadableFileFailsTheLoad() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        tabTasks.put("General", tasks("a", "b"));
+        new BinaryStorage().saveDataByTabs(tabTasks);
+        byte[] good = read(BinaryStorage.FILE_NAME);
+
+        byte[] newer = good.clone();
+        ByteBuffer.wrap(newer).putShort(4, (short) 2);
+        byte[] truncated = Arrays.copyOf(good, good.length - 3);
+        byte[] badMagic = good.clone();
+        badMagic[0] = 'X';
+        for (byte[] bytes : Arrays.asList(newer, truncated, badMagic)) {
+            write(BinaryStorage.FILE_NAME, bytes);
+            BinaryStorage storage = new BinaryStorage();
+            checkThrows(UncheckedIOException.class, storage::loadDataByTabs, "load");
+            // An edit as TaskManager would report it, then the CLI's save
+            storage.insertTask("General", 0, task("c"));
+            storage.flush();
+            checkThrows(UncheckedIOException.class, () -> storage.saveData(tasks("c")), "CLI save");
+            check(Arrays.equals(bytes, read(BinaryStorage.FILE_NAME)), "file untouched");
+        }
+    }
+
+    private static void reset() {
+        for (String name : new File(".").list()) {
+            if (name.startsWith("tasks.")) new File(name).delete();
+        }
+    }
+}
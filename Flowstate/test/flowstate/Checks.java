@@ -0,0 +1,89 @@
+package flowstate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// The few assertions the tests need, so they build and run without a test
+// framework (see run-tests.sh). A failed check throws out of the test's main.
+final class Checks {
+    private Checks() {}
+
+    static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+
+    static void checkEquals(Object expected, Object actual, String what) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(what + ": expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+
+    static <T extends Throwable> T checkThrows(Class<T> type, Action action, String what) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return type.cast(e);
+            }
+            throw new AssertionError(what + ": expected " + type.getSimpleName() + " but got " + e, e);
+        }
+        throw new AssertionError(what + ": expected " + type.getSimpleName());
+    }
+
+    // Every field of every task, per tab in order, for comparing whole models
+    static Map<String, List<String>> contents(Map<String, ? extends List<Task>> tabTasks) {
+        Map<String, List<String>> contents = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends List<Task>> entry : tabTasks.entrySet()) {
+            List<String> rows = new ArrayList<>();
+            if (entry.getValue() != null) {
+                for (Task task : entry.getValue()) {
+                    rows.add(row(task));
+                }
+            }
+            contents.put(entry.getKey(), rows);
+        }
+        return contents;
+    }
+
+    static String row(Task task) {
+        return "[" + task.getTitle() + "][" + task.getDescription() + "][" + task.getDueDate() + "]["
+                + task.getPriority() + "][" + task.isCompleted() + "]";
+    }
+
+    static Task task(String title) {
+        return new Task(title, "about " + title, "", "Medium");
+    }
+
+    static ArrayList<Task> tasks(String... titles) {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (String title : titles) {
+            tasks.add(task(title));
+        }
+        return tasks;
+    }
+
+    static void write(String file, String text) throws IOException {
+        Files.write(Paths.get(file), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void write(String file, byte[] bytes) throws IOException {
+        Files.write(Paths.get(file), bytes);
+    }
+
+    static byte[] read(String file) throws IOException {
+        return Files.readAllBytes(Paths.get(file));
+    }
+}
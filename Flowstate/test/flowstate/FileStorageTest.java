@@ -0,0 +1,129 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// tasks.txt round trips: files from before the journal and escaping existed,
+// and the current format through full and lazy (tab index) loads
+public class FileStorageTest {
+    // As the original saveDataByTabs() wrote it: no header, nothing escaped
+    private static final String LEGACY = String.join(System.lineSeparator(),
+            "Personal|Read C:\\notes\\new,see \\n and \\| and \\\\ here,2024-03-01,High,false",
+            "Work|a|b,tab\\t,,Low,true",
+            "General|plain,text,,Medium,false",
+            "");
+
+    public static void main(String[] args) throws Exception {
+        legacyFileLoadsAndSavesVerbatim();
+        legacyUntabbedRowsLoadVerbatim();
+        currentFormatRoundTrips();
+        deferredTabsCountOnceLoaded();
+        System.out.println("FileStorageTest ok");
+    }
+
+    private static void legacyFileLoadsAndSavesVerbatim() throws Exception {
+        write(FileStorage.FILE_NAME, LEGACY);
+        Map<String, List<String>> expected = new LinkedHashMap<>();
+        expected.put("Personal", List.of("[Read C:\\notes\\new][see \\n and \\| and \\\\ here][2024-03-01][High][false]"));
+        expected.put("Work", List.of("[a|b][tab\\t][][Low][true]"));
+        expected.put("General", List.of("[plain][text][][Medium][false]"));
+
+        FileStorage storage = new FileStorage();
+        Map<String, ArrayList<Task>> loaded = storage.loadDataByTabs();
+        checkEquals(expected, contents(loaded), "legacy rows read verbatim");
+
+        // Saved in the current format, every byte of every field comes back
+        storage.saveDataByTabs(loaded);
+        String saved = new String(read(FileStorage.FILE_NAME), StandardCharsets.UTF_8);
+        check(saved.startsWith("#generation "), "saved with a header: " + saved);
+        checkEquals(expected, contents(new FileStorage().loadDataByTabs()), "legacy rows after save");
+        FileStorage journaled = new FileStorage(true);
+        checkEquals(expected, contents(journaled.loadDataByTabs()), "legacy rows after save, journaled");
+        journaled.close();
+        reset();
+    }
+
+    private static void legacyUntabbedRowsLoadVerbatim() throws Exception {
+        // The CLI's original format: one row per line, no tab
+        write(FileStorage.FILE_NAME, "C:\\a\\b,x\\,y,,Low,false\nsecond,,,High,true\n");
+        List<String> rows = new ArrayList<>();
+        for (Task task : new FileStorage().loadData()) {
+            rows.add(row(task));
+        }
+        checkEquals(List.of("[C:\\a\\b][x\\,y][][Low][false]", "[second][][][High][true]"), rows, "untabbed rows");
+        reset();
+    }
+
+    private static void currentFormatRoundTrips() throws Exception {
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        tabTasks.get("General").add(new Task("a|b,c\\d\\|", "two\nlines\r\nand \\n", "2026-10-18", "High"));
+        tabTasks.get("General").add(task("plain"));
+        tabTasks.put("Odd | tab, name\\", tasks("x", "y"));
+        tabTasks.get("Work").add(new Task("#generation 9", "", "", "Custom"));
+        tabTasks.get("Work").get(0).setCompleted(true);
+        Map<String, List<String>> expected = contents(tabTasks);
+
+        FileStorage storage = new FileStorage(true);
+        storage.loadDataByTabs();
+        storage.saveDataByTabs(tabTasks);
+        storage.close();
+
+        FileStorage full = new FileStorage();
+        checkEquals(expected, contents(full.loadDataByTabs()), "full load");
+
+        // Lazy: only General is read, the rest come from their byte ranges
+        FileStorage lazy = new FileStorage(true);
+        Map<String, ArrayList<Task>> loaded = lazy.loadDataByTabs("General");
+        checkEquals(expected.get("General"), contents(Map.of("General", loaded.get("General"))).get("General"),
+                "visible tab");
+        check(loaded.get("Work") == null, "Work deferred");
+        checkEquals(1, lazy.getUnloadedCompletedCount("Work"), "completed count from the index");
+        for (Map.Entry<String, ArrayList<Task>> entry : loaded.entrySet()) {
+            if (entry.getValue() == null) {
+                entry.setValue(lazy.loadTab(entry.getKey()));
+            }
+        }
+        checkEquals(expected, contents(loaded), "lazy load");
+        lazy.close();
+        reset();
+    }
+
+    // The calendar counts loaded tabs right away and the rest once
+    // loadAllTabs() has read them in the background
+    private static void deferredTabsCountOnceLoaded() throws Exception {
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        tabTasks.get("General").add(new Task("visible", "", "10/18/2026", "Low"));
+        tabTasks.get("Work").add(new Task("deferred", "", "10/18/2026", "Low"));
+        tabTasks.get("Work").add(new Task("deferred, done", "", "10/18/2026", "Low"));
+        tabTasks.get("Work").get(1).setCompleted(true);
+        FileStorage storage = new FileStorage(true);
+        storage.loadDataByTabs();
+        storage.saveDataByTabs(tabTasks);
+        storage.close();
+
+        TaskManager manager = new TaskManager(new FileStorage(true), "General");
+        int day = DueDates.parse("10/18/2026");
+        int[] open = new int[1];
+        int[] done = new int[1];
+        check(manager.hasUnloadedTabs(), "Work deferred");
+        manager.countLoadedDueDays(day, open, done);
+        checkEquals(List.of(1, 0), List.of(open[0], done[0]), "loaded tabs only");
+        manager.loadAllTabs();
+        check(!manager.hasUnloadedTabs(), "all loaded");
+        manager.countLoadedDueDays(day, open, done);
+        checkEquals(List.of(2, 1), List.of(open[0], done[0]), "every tab");
+        manager.close();
+        reset();
+    }
+
+    private static void reset() {
+        for (String name : new java.io.File(".").list()) {
+            if (name.startsWith("tasks.")) new java.io.File(name).delete();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Random inserts, block inserts and removes against an ArrayList, checking
+// positions both ways
+public class IdSequenceTest {
+    public static void main(String[] args) {
+        matchesArrayList();
+        edgeCases();
+        System.out.println("IdSequenceTest ok");
+    }
+
+    private static void matchesArrayList() {
+        Random random = new Random(17);
+        int[] initial = new int[500];
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < initial.length; i++) {
+            initial[i] = i + 1;
+            expected.add(i + 1);
+        }
+        IdSequence sequence = IdSequence.of(initial, initial.length);
+        int nextId = initial.length + 1;
+
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(10);
+            if (op < 4 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, nextId);
+                sequence.insert(index, nextId++);
+            } else if (op < 5) {
+                int index = random.nextInt(expected.size() + 1);
+                int[] block = new int[random.nextInt(20)];
+                for (int i = 0; i < block.length; i++) {
+                    block[i] = nextId++;
+                    expected.add(index + i, block[i]);
+                }
+                sequence.insertAll(index, block, block.length);
+            } else {
+                int index = random.nextInt(expected.size());
+                int id = expected.remove(index);
+                checkEquals(index, sequence.remove(id), "remove returns the position");
+            }
+            if (step % 97 == 0) {
+                checkAll(expected, sequence);
+            }
+        }
+        checkAll(expected, sequence);
+    }
+
+    private static void edgeCases() {
+        IdSequence sequence = new IdSequence();
+        checkEquals(-1, sequence.indexOf(5), "empty");
+        checkEquals(-1, sequence.remove(5), "remove from empty");
+        sequence.add(5);
+        sequence.add(6);
+        sequence.insert(0, 4);
+        checkEquals(List.of(4, 5, 6), toList(sequence.toArray()), "adds");
+        checkThrows(IndexOutOfBoundsException.class, () -> sequence.insert(4, 9), "insert past the end");
+        checkThrows(IndexOutOfBoundsException.class, () -> sequence.get(3), "get past the end");
+        sequence.remove(5);
+        sequence.remove(4);
+        sequence.remove(6);
+        checkEquals(0, sequence.size(), "emptied");
+        sequence.insertAll(0, new int[] {1, 2, 3}, 2);
+        checkEquals(List.of(1, 2), toList(sequence.toArray()), "count limits the block");
+        sequence.clear();
+        checkEquals(-1, sequence.indexOf(1), "cleared");
+        sequence.add(1);
+        checkEquals(0, sequence.indexOf(1), "reused after clear");
+    }
+
+    private static void checkAll(List<Integer> expected, IdSequence sequence) {
+        checkEquals(expected.size(), sequence.size(), "size");
+        checkEquals(expected, toList(sequence.toArray()), "order");
+        for (int i = 0; i < expected.size(); i++) {
+            checkEquals(i, sequence.indexOf(expected.get(i)), "indexOf " + expected.get(i));
+            checkEquals(expected.get(i), sequence.get(i), "get(" + i + ")");
+        }
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> list = new ArrayList<>();
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
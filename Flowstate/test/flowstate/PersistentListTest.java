@@ -0,0 +1,68 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Random edits against an ArrayList, with every older version kept and
+// checked again at the end: a change must never show through in them
+public class PersistentListTest {
+    public static void main(String[] args) {
+        matchesArrayList();
+        indexesAreChecked();
+        System.out.println("PersistentListTest ok");
+    }
+
+    private static void matchesArrayList() {
+        Random random = new Random(16);
+        List<Integer> initial = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            initial.add(i);
+        }
+        PersistentList<Integer> list = PersistentList.of(initial);
+        List<Integer> expected = new ArrayList<>(initial);
+        List<PersistentList<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> snapshots = new ArrayList<>();
+
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(3);
+            if (op == 0 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                expected.add(index, 1000 + step);
+                list = list.insert(index, 1000 + step);
+            } else if (op == 1) {
+                int index = random.nextInt(expected.size());
+                expected.remove(index);
+                list = list.remove(index);
+            } else {
+                int index = random.nextInt(expected.size());
+                expected.set(index, -step);
+                list = list.set(index, -step);
+            }
+            if (step % 50 == 0) {
+                versions.add(list);
+                snapshots.add(new ArrayList<>(expected));
+            }
+        }
+        checkEquals(expected, list.asList(), "final version");
+        checkEquals(expected.size(), list.size(), "size");
+        for (int i = 0; i < expected.size(); i += 7) {
+            checkEquals(expected.get(i), list.get(i), "get(" + i + ")");
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            checkEquals(snapshots.get(i), versions.get(i).asList(), "version " + i);
+        }
+        checkEquals(List.of("x"), PersistentList.<String>empty().add("x").asList(), "add to empty");
+        checkEquals(0, PersistentList.empty().size(), "empty untouched");
+    }
+
+    private static void indexesAreChecked() {
+        PersistentList<String> list = PersistentList.of(List.of("a", "b"));
+        checkThrows(IndexOutOfBoundsException.class, () -> list.get(2), "get past the end");
+        checkThrows(IndexOutOfBoundsException.class, () -> list.remove(-1), "remove before the start");
+        checkThrows(IndexOutOfBoundsException.class, () -> list.insert(3, "c"), "insert past the end");
+        checkEquals(List.of("a", "b", "c"), list.insert(2, "c").asList(), "insert at the end");
+    }
+}
@@ -0,0 +1,95 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Candidate selection (complete words plus the prefix being typed), ranking,
+// and keeping the index current through edits
+public class SearchIndexTest {
+    public static void main(String[] args) {
+        prefixIsCheckedBeforeAnyCap();
+        prefixOnlyQueries();
+        ranking();
+        incrementalUpdates();
+        System.out.println("SearchIndexTest ok");
+    }
+
+    private static void prefixIsCheckedBeforeAnyCap() {
+        // Thousands of older tasks share the complete word; the one that also
+        // matches the prefix is the newest
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            tasks.add(new Task("weekly report " + i, "", "", "Low"));
+        }
+        tasks.add(new Task("weekly report zebra", "", "", "Low"));
+        SearchIndex index = SearchIndex.build(tasks);
+
+        checkEquals(List.of("weekly report zebra"), titles(index.search("report zeb", 10)), "prefix after a common word");
+        checkEquals(List.of("weekly report zebra"), titles(index.search("zebra weekly", 10)), "rare word first");
+        checkEquals(List.of(), titles(index.search("report zebu", 10)), "no match");
+
+        // Over a hundred words start with "29", so their union is built instead of probed
+        List<String> found = titles(index.search("weekly 29", 200));
+        checkEquals(111, found.size(), "29, 290-299 and 2900-2999");
+        check(found.contains("weekly report 2950"), "2950 in " + found);
+    }
+
+    private static void prefixOnlyQueries() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task("car wash", "", "", "Low"));
+        tasks.add(new Task("carpet", "car", "", "Low"));
+        tasks.add(new Task("card for mum", "", "", "Low"));
+        tasks.add(new Task("scar", "", "", "Low"));
+        SearchIndex index = SearchIndex.build(tasks);
+
+        List<String> found = titles(index.search("car", 10));
+        checkEquals(3, found.size(), "prefix matches: " + found);
+        checkEquals("car wash", found.get(0), "whole title word first");
+        checkEquals(List.of("car wash", "carpet"), titles(index.search("car ", 10)), "complete word");
+
+        // One letter is only a whole word, not every word starting with it
+        index.add(new Task("c drive backup", "", "", "Low"));
+        checkEquals(List.of("c drive backup"), titles(index.search("c", 10)), "single letter");
+        checkEquals(3, index.search("ca", 10).size(), "two letters are a prefix");
+    }
+
+    private static void ranking() {
+        Task inDescription = new Task("groceries", "buy milk", "", "Low");
+        Task done = new Task("milk", "", "", "Low");
+        done.setCompleted(true);
+        Task inTitle = new Task("fetch milk", "", "", "Low");
+        Task startsTitle = new Task("milk run", "", "", "Low");
+        SearchIndex index = SearchIndex.build(List.of(inDescription, done, inTitle, startsTitle));
+
+        checkEquals(List.of("milk run", "fetch milk", "groceries", "milk"), titles(index.search("milk ", 10)),
+                "title start, title, description, then done");
+        checkEquals(2, index.search("milk ", 2).size(), "limit");
+    }
+
+    private static void incrementalUpdates() {
+        Task a = new Task("alpha", "", "", "Low");
+        Task b = new Task("beta", "", "", "Low");
+        SearchIndex index = SearchIndex.build(List.of(a));
+        index.add(b);
+        checkEquals(List.of("beta"), titles(index.search("bet", 10)), "added");
+
+        a.setTitle("gamma");
+        index.update(a);
+        checkEquals(List.of(), titles(index.search("alpha ", 10)), "old words gone");
+        checkEquals(List.of("gamma"), titles(index.search("gam", 10)), "new words found");
+
+        index.remove(b);
+        checkEquals(List.of(), titles(index.search("beta", 10)), "removed");
+        checkEquals(1, index.size(), "size");
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,127 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// tasks/ shards: migration from tasks.txt, incremental saves, and a failed
+// shard read that must not cost any tabs
+public class ShardedStorageTest {
+    private static final String DIRECTORY = ShardedStorage.DIRECTORY;
+
+    public static void main(String[] args) throws Exception {
+        migratesAndRoundTrips();
+        unreadableShardFailsTheLoad();
+        tabsAreOnlyRemovedByDeleteOrFullSave();
+        System.out.println("ShardedStorageTest ok");
+    }
+
+    private static void migratesAndRoundTrips() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        tabTasks.get("General").add(new Task("a|b,c\\d", "two\nlines", "2026-10-18", "High"));
+        tabTasks.put("Odd | tab", tasks("x", "y"));
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, tabTasks, 0);
+        Map<String, List<String>> expected = contents(tabTasks);
+
+        ShardedStorage storage = new ShardedStorage();
+        Map<String, ArrayList<Task>> loaded = storage.loadDataByTabs();
+        checkEquals(expected, contents(loaded), "migrated");
+        check(new File(DIRECTORY, "manifest.txt").exists(), "manifest written");
+
+        // Changes as TaskManager reports them
+        Task added = task("z");
+        loaded.get("Work").add(added);
+        storage.insertTask("Work", 0, added);
+        Task moved = loaded.get("Odd | tab").remove(0);
+        loaded.get("General").add(0, moved);
+        storage.moveTask(moved, "General", 0);
+        moved.setTitle("x2");
+        storage.updateTask(moved);
+        storage.renameTab("Personal", "Home");
+        loaded.put("Home", loaded.remove("Personal"));
+        storage.flush();
+
+        Map<String, List<String>> reloaded = contents(new ShardedStorage().loadDataByTabs());
+        checkEquals(contents(loaded).keySet().size(), reloaded.size(), "tab count");
+        for (Map.Entry<String, List<String>> entry : contents(loaded).entrySet()) {
+            checkEquals(entry.getValue(), reloaded.get(entry.getKey()), "tab " + entry.getKey());
+        }
+    }
+
+    private static void unreadableShardFailsTheLoad() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        tabTasks.put("General", tasks("a", "b"));
+        tabTasks.put("Work", tasks("c"));
+        new ShardedStorage().saveDataByTabs(tabTasks);
+        File manifest = new File(DIRECTORY, "manifest.txt");
+        byte[] manifestBytes = read(manifest.getPath());
+
+        // Replace one shard with something that can't be read as a file
+        File[] shards = new File(DIRECTORY).listFiles((dir, name) -> name.startsWith("shard-"));
+        checkEquals(tabTasks.size(), shards.length, "one shard per tab");
+        File broken = shards[0];
+        check(broken.delete() && broken.mkdir(), "shard replaced by a directory");
+
+        ShardedStorage storage = new ShardedStorage();
+        checkThrows(UncheckedIOException.class, storage::loadDataByTabs, "load with an unreadable shard");
+        // Nothing was loaded, so nothing may be written or pruned
+        storage.flush();
+        checkThrows(UncheckedIOException.class, () -> storage.saveData(tasks("x")), "CLI save after the failure");
+        check(Arrays.equals(manifestBytes, read(manifest.getPath())), "manifest untouched");
+        for (File shard : shards) {
+            check(shard.exists(), shard.getName() + " kept");
+        }
+    }
+
+    private static void tabsAreOnlyRemovedByDeleteOrFullSave() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> tabTasks = FileStorage.defaultTabs();
+        tabTasks.put("Work", tasks("c"));
+        ShardedStorage storage = new ShardedStorage();
+        storage.saveDataByTabs(tabTasks);
+
+        // A tab missing from the model is not a delete
+        Map<String, ArrayList<Task>> loaded = storage.loadDataByTabs();
+        loaded.remove("Work");
+        Task added = task("g");
+        loaded.get("General").add(added);
+        storage.insertTask("General", 0, added);
+        checkEquals(List.of("[c][about c][][Medium][false]"), contents(new ShardedStorage().loadDataByTabs()).get("Work"),
+                "Work kept");
+
+        storage.deleteTab("Personal");
+        check(!new ShardedStorage().loadDataByTabs().containsKey("Personal"), "deleteTab removes the tab");
+
+        Map<String, ArrayList<Task>> replacement = FileStorage.defaultTabs();
+        replacement.remove("Work");
+        storage.saveDataByTabs(replacement);
+        Map<String, ArrayList<Task>> saved = new ShardedStorage().loadDataByTabs();
+        checkEquals(replacement.keySet(), saved.keySet(), "full save replaces the tab list");
+        int shardCount = new File(DIRECTORY).list((dir, name) -> name.startsWith("shard-")).length;
+        checkEquals(replacement.size(), shardCount, "deleted tabs' shards removed");
+    }
+
+    private static void reset() {
+        delete(new File(DIRECTORY));
+        for (String name : new File(".").list()) {
+            if (name.startsWith("tasks.")) new File(name).delete();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
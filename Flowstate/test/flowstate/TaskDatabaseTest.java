@@ -0,0 +1,167 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// tasks.db: row order through inserts and moves (including renumbering a
+// tab), reopening, and recovery from a torn tail or a damaged record
+public class TaskDatabaseTest {
+    private static final String FILE = "tasks.db";
+
+    public static void main(String[] args) throws Exception {
+        orderMatchesAListModel();
+        tornTailIsDropped();
+        damagedRecordFailsTheOpen();
+        cliSaveKeepsGeneralInPlace();
+        System.out.println("TaskDatabaseTest ok");
+    }
+
+    private static void orderMatchesAListModel() throws Exception {
+        reset();
+        List<String> a = new ArrayList<>();
+        List<String> b = new ArrayList<>();
+        Random random = new Random(7);
+        try (TaskDatabase db = new TaskDatabase(FILE)) {
+            for (int i = 0; i < 40; i++) {
+                a.add("a" + i);
+                db.insert("A", task("a" + i));
+            }
+            // Always between the same two rows, past the point where the
+            // midpoints run out and the tab has to be renumbered
+            for (int i = 0; i < 80; i++) {
+                a.add(1, "m" + i);
+                db.insert("A", 1, task("m" + i));
+            }
+            for (int i = 0; i < 300; i++) {
+                int op = random.nextInt(4);
+                if (op == 0) {
+                    int index = random.nextInt(a.size() + 1);
+                    a.add(index, "n" + i);
+                    db.insert("A", index, task("n" + i));
+                } else if (op == 1 && !a.isEmpty()) {
+                    int from = random.nextInt(a.size());
+                    long id = db.rowIdAt("A", from);
+                    String title = a.remove(from);
+                    int to = random.nextInt(a.size() + 1);
+                    a.add(to, title);
+                    db.move(id, "A", to);
+                } else if (op == 2 && !a.isEmpty()) {
+                    int from = random.nextInt(a.size());
+                    long id = db.rowIdAt("A", from);
+                    int to = random.nextInt(b.size() + 1);
+                    b.add(to, a.remove(from));
+                    db.move(id, "B", to);
+                } else if (!a.isEmpty()) {
+                    int index = random.nextInt(a.size());
+                    Task updated = task(a.get(index) + "'");
+                    a.set(index, updated.getTitle());
+                    db.update(db.rowIdAt("A", index), updated);
+                }
+            }
+            checkEquals(a, titles(db.loadTab("A")), "tab A");
+            checkEquals(b, titles(db.loadTab("B")), "tab B");
+        }
+        try (TaskDatabase db = new TaskDatabase(FILE)) {
+            checkEquals(a, titles(db.loadTab("A")), "tab A reopened");
+            checkEquals(b, titles(db.loadTab("B")), "tab B reopened");
+            db.compact();
+            checkEquals(a, titles(db.loadTab("A")), "tab A compacted");
+        }
+    }
+
+    private static void tornTailIsDropped() throws Exception {
+        reset();
+        try (TaskDatabase db = new TaskDatabase(FILE)) {
+            db.insert("General", task("a"));
+            db.insert("General", task("b"));
+        }
+        long good = new File(FILE).length();
+        try (RandomAccessFile file = new RandomAccessFile(FILE, "rw")) {
+            // Header of a row whose body never made it to disk
+            file.seek(good);
+            file.writeInt(100);
+            file.writeByte(1);
+            file.writeLong(3);
+        }
+        try (TaskDatabase db = new TaskDatabase(FILE)) {
+            checkEquals(List.of("a", "b"), titles(db.loadTab("General")), "rows before the torn record");
+            checkEquals(good, new File(FILE).length(), "torn record truncated");
+            db.insert("General", task("c"));
+        }
+        try (TaskDatabase db = new TaskDatabase(FILE)) {
+            checkEquals(List.of("a", "b", "c"), titles(db.loadTab("General")), "rows after reopening");
+        }
+    }
+
+    private static void damagedRecordFailsTheOpen() throws Exception {
+        reset();
+        try (TaskDatabase db = new TaskDatabase(FILE)) {
+            db.insert("General", task("a"));
+            db.insert("General", task("b"));
+            db.insert("General", task("c"));
+        }
+        // The first record is the General tab; the type byte of the row after it
+        long second;
+        try (RandomAccessFile file = new RandomAccessFile(FILE, "rw")) {
+            second = 5 + file.readInt();
+            file.seek(second + 4);
+            file.writeByte(9);
+        }
+        byte[] damaged = read(FILE);
+        checkThrows(IOException.class, () -> new TaskDatabase(FILE), "open with an unknown record type");
+        check(Arrays.equals(damaged, read(FILE)), "damaged file untouched");
+
+        try (RandomAccessFile file = new RandomAccessFile(FILE, "rw")) {
+            file.seek(second + 4);
+            file.writeByte(1);
+            file.seek(second);
+            file.writeInt(-5);
+        }
+        damaged = read(FILE);
+        checkThrows(IOException.class, () -> new TaskDatabase(FILE), "open with a negative length");
+        check(Arrays.equals(damaged, read(FILE)), "damaged file untouched");
+    }
+
+    private static void cliSaveKeepsGeneralInPlace() throws Exception {
+        reset();
+        DatabaseStorage storage = new DatabaseStorage(FILE, FileStorage.FILE_NAME);
+        storage.createTab("General");
+        storage.createTab("Work");
+        storage.saveData(tasks("a", "b", "c"));
+        storage.saveData(tasks("x"));
+        checkEquals(List.of("x"), titles(storage.loadData()), "shrunk");
+        ArrayList<Task> grown = tasks("p", "q", "r");
+        grown.get(2).setDueDate(LocalDate.now().minusDays(1).format(DueDates.FORMAT));
+        storage.saveData(grown);
+        storage.close();
+
+        try (TaskDatabase db = new TaskDatabase(FILE)) {
+            checkEquals(List.of("General", "Work"), db.getTabNames(), "tab order");
+            checkEquals(List.of("p", "q", "r"), titles(db.loadTab("General")), "grown");
+            checkEquals(List.of("r"), titles(db.findOverdue("General", (int) LocalDate.now().toEpochDay())),
+                    "overdue");
+        }
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+
+    private static void reset() {
+        for (String name : new File(".").list()) {
+            if (name.startsWith("tasks.")) new File(name).delete();
+        }
+    }
+}
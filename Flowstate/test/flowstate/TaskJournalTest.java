@@ -0,0 +1,199 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+// Journal records replayed over the snapshot, compaction, and recovery from a
+// torn or corrupt journal
+public class TaskJournalTest {
+    public static void main(String[] args) throws Exception {
+        recordsReplayOverSnapshot();
+        compactionFoldsJournals();
+        tornLastRecordIsSkipped();
+        tornRecordThatParsesIsSkipped();
+        corruptRecordFailsTheLoad();
+        rowsAreOnlyStreamedWithoutPendingRecords();
+        System.out.println("TaskJournalTest ok");
+    }
+
+    private static void recordsReplayOverSnapshot() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> expected = FileStorage.defaultTabs();
+        expected.put("General", tasks("a", "b", "c"));
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, expected, 0);
+
+        TaskJournal journal = new TaskJournal(FileStorage.FILE_NAME, 1, null);
+        journal.open(0, FileStorage.readTextFile(FileStorage.FILE_NAME), null);
+        Task tricky = new Task("a|b,c\\d", "line\nbreak", "2026-01-02", "High");
+        expected.get("General").add(1, tricky);
+        journal.recordInsert("General", 1, tricky);
+        Task appended = task("d");
+        expected.get("Work").add(appended);
+        journal.recordAdd("Work", appended);
+        expected.get("General").get(0).setTitle("a2");
+        journal.recordUpdate("General", 0, expected.get("General").get(0));
+        expected.get("General").get(2).setCompleted(true);
+        journal.recordUpdate("General", 2, expected.get("General").get(2));
+        expected.get("General").remove(3);
+        journal.recordDelete("General", 3);
+        expected.get("Work").add(0, expected.get("General").remove(0));
+        journal.recordMove("General", 0, "Work", 0);
+        expected.put("New, tab", new ArrayList<>());
+        journal.recordCreateTab("New, tab");
+        expected.put("Renamed", expected.remove("Personal"));
+        journal.recordRenameTab("Personal", "Renamed");
+        expected.remove("New, tab");
+        journal.recordDeleteTab("New, tab");
+        journal.close();
+
+        checkEquals(contents(expected), contents(FileStorage.readTextFile(FileStorage.FILE_NAME)), "replayed model");
+    }
+
+    private static void compactionFoldsJournals() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> expected = FileStorage.defaultTabs();
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, expected, 0);
+        TaskJournal journal = new TaskJournal(FileStorage.FILE_NAME, 1, null);
+        journal.open(0, FileStorage.readTextFile(FileStorage.FILE_NAME), null);
+        // Past MAX_RECORDS, so at least one journal is rotated and compacted
+        for (int i = 0; i < 1200; i++) {
+            Task task = task("t" + i);
+            expected.get("General").add(task);
+            journal.recordAdd("General", task);
+            if (i % 3 == 0) {
+                expected.get("General").remove(0);
+                journal.recordDelete("General", 0);
+            }
+        }
+        journal.close();
+
+        checkEquals(contents(expected), contents(FileStorage.readTextFile(FileStorage.FILE_NAME)), "compacted model");
+        check(journals().size() <= 2, "compacted journals deleted: " + journals());
+    }
+
+    private static void tornLastRecordIsSkipped() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> snapshot = FileStorage.defaultTabs();
+        snapshot.put("General", tasks("a"));
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, snapshot, 0);
+        write("tasks.journal.0", "A|General|b,,,Low,false\nI|General|0|hal");
+
+        Map<String, ArrayList<Task>> loaded = FileStorage.readTextFile(FileStorage.FILE_NAME);
+        checkEquals(List.of("a", "b"), titles(loaded.get("General")), "rows before the torn line");
+
+        // New records must not land on the torn line
+        TaskJournal journal = new TaskJournal(FileStorage.FILE_NAME, 1, null);
+        journal.open(0, loaded, null);
+        journal.recordAdd("General", task("c"));
+        journal.close();
+        checkEquals(List.of("a", "b", "c"), titles(FileStorage.readTextFile(FileStorage.FILE_NAME).get("General")),
+                "rows after reopening");
+    }
+
+    private static void tornRecordThatParsesIsSkipped() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> snapshot = FileStorage.defaultTabs();
+        snapshot.put("Work", tasks("a", "b", "c"));
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, snapshot, 0);
+        // "C|Work|1|true" and "D|Work|12" cut short, both still valid records
+        write("tasks.journal.0", "C|Work|1|true\nC|Work|1|tr");
+        checkEquals(List.of(false, true, false), completed(FileStorage.readTextFile(FileStorage.FILE_NAME).get("Work")),
+                "cut completion skipped");
+        write("tasks.journal.0", "D|Work|2\nD|Work|1");
+
+        checkEquals(List.of("a", "b"), titles(FileStorage.readTextFile(FileStorage.FILE_NAME).get("Work")),
+                "cut delete skipped");
+        Map<String, ArrayList<Task>> loaded = FileStorage.defaultTabs();
+        FileStorage.readSnapshot(FileStorage.FILE_NAME, loaded);
+        TaskJournal journal = new TaskJournal(FileStorage.FILE_NAME, 1, null);
+        journal.open(0, loaded, null);
+        checkEquals(List.of("a", "b"), titles(loaded.get("Work")), "replayed on open");
+        checkEquals("D|Work|2\n", new String(read("tasks.journal.0"), StandardCharsets.UTF_8), "torn tail truncated");
+        journal.recordDelete("Work", 0);
+        journal.close();
+        checkEquals(List.of("b"), titles(FileStorage.readTextFile(FileStorage.FILE_NAME).get("Work")),
+                "next record on its own line");
+
+        // A complete record that doesn't apply is corruption, not a tear
+        write("tasks.journal.0", "D|Work|0\nD|Work|9\n");
+        checkThrows(UncheckedIOException.class, () -> FileStorage.readTextFile(FileStorage.FILE_NAME),
+                "bad complete last record");
+    }
+
+    private static List<Boolean> completed(List<Task> tasks) {
+        List<Boolean> completed = new ArrayList<>();
+        for (Task task : tasks) {
+            completed.add(task.isCompleted());
+        }
+        return completed;
+    }
+
+    private static void corruptRecordFailsTheLoad() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> snapshot = FileStorage.defaultTabs();
+        snapshot.put("General", tasks("a", "b"));
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, snapshot, 0);
+        write("tasks.journal.0", "A|General|c,,,Low,false\nD|General|9\nD|General|0\n");
+        byte[] snapshotBytes = read(FileStorage.FILE_NAME);
+        byte[] journalBytes = read("tasks.journal.0");
+
+        FileStorage storage = new FileStorage(true);
+        checkThrows(UncheckedIOException.class, storage::loadDataByTabs, "load with a corrupt journal");
+        checkThrows(UncheckedIOException.class, () -> FileStorage.readTextFile(FileStorage.FILE_NAME),
+                "read-only load with a corrupt journal");
+        check(Arrays.equals(snapshotBytes, read(FileStorage.FILE_NAME)), "snapshot untouched");
+        check(Arrays.equals(journalBytes, read("tasks.journal.0")), "journal untouched");
+    }
+
+    private static void rowsAreOnlyStreamedWithoutPendingRecords() throws Exception {
+        reset();
+        Map<String, ArrayList<Task>> snapshot = FileStorage.defaultTabs();
+        snapshot.put("General", tasks("a", "b"));
+        FileStorage.writeSnapshot(FileStorage.FILE_NAME, snapshot, 0);
+        List<String> streamed = new ArrayList<>();
+        Storage.LoadListener progress = (tab, tasks) -> streamed.addAll(titles(tasks));
+
+        FileStorage storage = new FileStorage(true);
+        storage.loadDataByTabs("General", progress);
+        storage.close();
+        checkEquals(List.of("a", "b"), streamed, "rows streamed with no journal");
+
+        // Replay deletes "a", which must never be shown
+        streamed.clear();
+        write("tasks.journal.0", "D|General|0\n");
+        storage = new FileStorage(true);
+        Map<String, ArrayList<Task>> loaded = storage.loadDataByTabs("General", progress);
+        storage.close();
+        checkEquals(List.of(), streamed, "rows held back for replay");
+        checkEquals(List.of("b"), titles(loaded.get("General")), "replayed rows");
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+
+    private static List<String> journals() {
+        List<String> names = new ArrayList<>();
+        for (String name : new File(".").list()) {
+            if (name.startsWith("tasks.journal.")) names.add(name);
+        }
+        return names;
+    }
+
+    private static void reset() {
+        for (String name : new File(".").list()) {
+            if (name.startsWith("tasks.")) new File(name).delete();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.util.Random;
+
+// Escaping round trips, and verbatim reading of files from before escaping
+public class TaskLineTokenizerTest {
+    public static void main(String[] args) throws Exception {
+        escapedFieldsRoundTrip();
+        unknownEscapesAreKept();
+        verbatimModeKeepsBackslashesAndLaterBars();
+        fieldHelpers();
+        System.out.println("TaskLineTokenizerTest ok");
+    }
+
+    private static void escapedFieldsRoundTrip() throws Exception {
+        Random random = new Random(5);
+        String alphabet = "ab|,\\\n\r t";
+        for (int round = 0; round < 2000; round++) {
+            String[] values = new String[1 + random.nextInt(6)];
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                StringBuilder value = new StringBuilder();
+                int length = random.nextInt(8);
+                for (int k = 0; k < length; k++) {
+                    value.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                values[i] = value.toString();
+                if (i > 0) line.append(i == 1 ? '|' : ',');
+                TaskLineTokenizer.appendEscaped(line, values[i]);
+            }
+            TaskLineTokenizer tokenizer = TaskLineTokenizer.of(line + "\n");
+            boolean blank = values.length == 1 && values[0].isEmpty();
+            checkEquals(!blank, tokenizer.next(), "line read: " + line);
+            if (blank) continue;
+            checkEquals(values.length, tokenizer.fieldCount(), "field count of " + line);
+            for (int i = 0; i < values.length; i++) {
+                checkEquals(values[i], tokenizer.field(i), "field " + i + " of " + line);
+            }
+            check(!tokenizer.next(), "one physical line per row: " + line);
+        }
+    }
+
+    private static void unknownEscapesAreKept() throws Exception {
+        TaskLineTokenizer tokenizer = TaskLineTokenizer.of("C:\\temp\\x|a\\,b\n");
+        check(tokenizer.next(), "line read");
+        checkEquals("C:\\temp\\x", tokenizer.field(0), "unknown escapes");
+        checkEquals("a,b", tokenizer.field(1), "known escape");
+    }
+
+    private static void verbatimModeKeepsBackslashesAndLaterBars() throws Exception {
+        TaskLineTokenizer tokenizer = TaskLineTokenizer.of("#generation 3\nWork|C:\\notes\\new|x,a\\,b,,Low,false\n");
+        tokenizer.setEscaped(false);
+        check(tokenizer.next(), "header read");
+        checkEquals("#generation 3", tokenizer.field(0), "header");
+        check(tokenizer.next(), "row read");
+        checkEquals("Work", tokenizer.field(0), "tab");
+        checkEquals("C:\\notes\\new|x", tokenizer.field(1), "title with backslashes and a bar");
+        checkEquals("a\\", tokenizer.field(2), "a backslash doesn't escape the comma");
+    }
+
+    private static void fieldHelpers() throws Exception {
+        TaskLineTokenizer tokenizer = TaskLineTokenizer.of("-42|x,High,TRUE\r\n\r\n17\n");
+        check(tokenizer.next(), "first line");
+        checkEquals(-42, tokenizer.fieldAsInt(0), "negative int");
+        checkEquals("x,High", tokenizer.join(1, 3), "join keeps separators");
+        check(tokenizer.field(2, "Low", "High") == "High", "known value shared, not copied");
+        check(tokenizer.fieldIsIgnoreCase(3, "true"), "case-insensitive match");
+        check(tokenizer.next(), "blank CRLF line skipped");
+        checkEquals(17, tokenizer.fieldAsInt(0), "after blank line");
+        TaskLineTokenizer bad = TaskLineTokenizer.of("1x\n");
+        check(bad.next(), "bad line read");
+        checkThrows(NumberFormatException.class, () -> bad.fieldAsInt(0), "not a number");
+    }
+}
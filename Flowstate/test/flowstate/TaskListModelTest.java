@@ -0,0 +1,115 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// TAB mode under random adds, removes and completion changes, applied the way
+// FlowStateGUI applies TaskEvents (a false return means reload the tab).
+// After each change every row must be where rowOf() and tabIndexOf() say.
+public class TaskListModelTest {
+    public static void main(String[] args) {
+        incrementalChangesKeepRowsInStep();
+        streamedLoadMatchesShowTab();
+        System.out.println("TaskListModelTest ok");
+    }
+
+    private static void incrementalChangesKeepRowsInStep() {
+        Random random = new Random(18);
+        List<Task> tab = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            Task task = task("t" + i);
+            task.setCompleted(i % 3 == 0);
+            tab.add(task);
+        }
+        TaskListModel model = new TaskListModel();
+        model.showTab(tab, "empty");
+        checkModel(model, tab);
+
+        for (int step = 0; step < 1500; step++) {
+            int op = random.nextInt(7);
+            boolean applied;
+            if (op < 3 || tab.size() < 2) {
+                Task task = task("n" + step);
+                task.setCompleted(random.nextInt(3) == 0);
+                int index = random.nextInt(tab.size() + 1);
+                tab.add(index, task);
+                applied = model.taskAdded(task, index);
+            } else if (op < 5) {
+                Task task = tab.remove(random.nextInt(tab.size()));
+                applied = model.taskRemoved(task);
+            } else if (op < 6) {
+                Task task = tab.get(random.nextInt(tab.size()));
+                task.setCompleted(!task.isCompleted());
+                applied = model.completionChanged(task);
+            } else {
+                model.showMoreCompleted(tab);
+                applied = true;
+            }
+            if (!applied) {
+                model.showTab(tab, "empty");
+            }
+            checkModel(model, tab);
+        }
+    }
+
+    private static void streamedLoadMatchesShowTab() {
+        List<Task> tab = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Task task = task("t" + i);
+            task.setCompleted(i % 4 == 1);
+            tab.add(task);
+        }
+        TaskListModel streamed = new TaskListModel();
+        streamed.showTab(List.of(), "Loading tasks...");
+        for (int from = 0; from < tab.size(); from += 64) {
+            streamed.appendTab(tab.subList(from, Math.min(tab.size(), from + 64)));
+        }
+        for (Task task : tab) {
+            if (!task.isCompleted()) {
+                checkEquals(tab.indexOf(task), streamed.tabIndexOf(task), "streamed tab index");
+            }
+        }
+        // The final showTab() lays out the completed section
+        streamed.showTab(tab, "empty");
+        checkModel(streamed, tab);
+    }
+
+    private static void checkModel(TaskListModel model, List<Task> tab) {
+        List<Task> open = new ArrayList<>();
+        List<Task> completed = new ArrayList<>();
+        for (Task task : tab) {
+            (task.isCompleted() ? completed : open).add(task);
+        }
+        checkEquals(completed.size(), model.getCompletedCount(), "completed count");
+        if (tab.isEmpty()) return;
+
+        for (int row = 0; row < open.size(); row++) {
+            check(model.taskAt(row) == open.get(row), "open row " + row);
+        }
+        int row = open.size();
+        if (!completed.isEmpty()) {
+            check(model.isCompletedHeader(row), "header at " + row);
+            row++;
+            // Newest first, with no gaps
+            for (int k = completed.size() - 1; row < model.getSize(); k--, row++) {
+                check(model.taskAt(row) == completed.get(k), "completed row " + row);
+            }
+        }
+        checkEquals(model.getSize(), row, "row count");
+
+        for (int i = 0; i < tab.size(); i++) {
+            Task task = tab.get(i);
+            int at = model.rowOf(task);
+            if (at >= 0) {
+                check(model.taskAt(at) == task, "rowOf " + task.getTitle());
+                checkEquals(i, model.tabIndexOf(task), "tabIndexOf " + task.getTitle());
+            } else {
+                check(task.isCompleted(), "open task " + task.getTitle() + " shown");
+                checkEquals(-1, model.tabIndexOf(task), "hidden task's tab index");
+            }
+        }
+    }
+}
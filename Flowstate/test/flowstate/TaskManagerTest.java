@@ -0,0 +1,197 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+// Writer threads (atomic add and delete pairs, edits, cross-tab moves)
+// against snapshot, query and search readers, on every backend. Readers must
+// never see half a pair or half an edit, and a reload from disk must match
+// the final snapshot.
+public class TaskManagerTest {
+    private static final String[] TABS = {"Personal", "Work", "General"};
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int STEPS = 150;
+
+    public static void main(String[] args) throws Exception {
+        concurrentWritersAndReaders("text", () -> new FileStorage(true));
+        concurrentWritersAndReaders("binary", BinaryStorage::new);
+        concurrentWritersAndReaders("db", DatabaseStorage::new);
+        concurrentWritersAndReaders("sharded", ShardedStorage::new);
+        System.out.println("TaskManagerTest ok");
+    }
+
+    private static void concurrentWritersAndReaders(String backend, Supplier<Storage> storage) throws Exception {
+        reset();
+        TaskManager manager = new TaskManager(storage.get());
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(thread(failures, start, () -> write(manager, writer)));
+        }
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            readers.add(thread(failures, start, () -> {
+                Random random = new Random(reader);
+                while (writing.get()) {
+                    read(manager, random);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError(backend + ": " + failures.peek());
+            error.initCause(failures.peek());
+            throw error;
+        }
+
+        Map<String, List<Task>> last = manager.snapshot();
+        checkPairs(backend + " final snapshot", tasksOf(last));
+        manager.close();
+        TaskManager reloaded = new TaskManager(storage.get());
+        checkEquals(contents(last), contents(reloaded.snapshot()), backend + " reloaded from disk");
+        reloaded.close();
+    }
+
+    // Each writer owns its tasks, so it knows where they are without reading
+    private static void write(TaskManager manager, int writer) {
+        Random random = new Random(100 + writer);
+        Task edited = new Task("edit w" + writer, "v0", "", "Low");
+        Task mover = task("mover w" + writer);
+        String firstTab = TABS[writer % TABS.length];
+        manager.atomically(() -> {
+            manager.addTask(TABS[(writer + 1) % TABS.length], edited);
+            manager.addTask(firstTab, mover);
+        });
+        String moverTab = firstTab;
+        List<Task[]> pairs = new ArrayList<>();
+        List<String[]> pairTabs = new ArrayList<>();
+
+        for (int step = 0; step < STEPS; step++) {
+            int op = random.nextInt(4);
+            if (op == 0 || pairs.isEmpty()) {
+                // Both halves in different tabs, so a reader has to see two tabs change at once
+                String key = "w" + writer + "n" + step;
+                Task a = task("pair " + key + " a");
+                Task b = task("pair " + key + " b");
+                String tabA = TABS[random.nextInt(TABS.length)];
+                String tabB = TABS[random.nextInt(TABS.length)];
+                manager.atomically(() -> {
+                    manager.addTask(tabA, a);
+                    manager.insertTask(tabB, 0, b);
+                });
+                pairs.add(new Task[] {a, b});
+                pairTabs.add(new String[] {tabA, tabB});
+            } else if (op == 1) {
+                int i = random.nextInt(pairs.size());
+                Task[] pair = pairs.remove(i);
+                String[] tabs = pairTabs.remove(i);
+                manager.atomically(() -> {
+                    check(manager.deleteTask(tabs[0], pair[0]), "delete a");
+                    check(manager.deleteTask(tabs[1], pair[1]), "delete b");
+                });
+            } else if (op == 2) {
+                String version = "v" + step;
+                manager.updateTask(edited, task -> {
+                    task.setTitle("edit w" + writer + " " + version);
+                    task.setDescription(version);
+                });
+            } else {
+                String toTab = TABS[random.nextInt(TABS.length)];
+                manager.moveTask(mover, moverTab, toTab, random.nextInt(5));
+                moverTab = toTab;
+            }
+        }
+    }
+
+    private static void read(TaskManager manager, Random random) {
+        List<Task> all = tasksOf(manager.snapshot());
+        checkPairs("snapshot", all);
+        checkPairs("query", manager.query(new TaskQuery()));
+
+        // One pair found through the search index: both halves or neither
+        String key = "w" + random.nextInt(WRITERS) + "n" + random.nextInt(STEPS);
+        int found = manager.search("pair " + key + " ", 10).size();
+        check(found == 0 || found == 2, "search for " + key + " found " + found);
+    }
+
+    // Every pair whole, every edit whole, every mover in exactly one place
+    private static void checkPairs(String what, List<Task> tasks) {
+        Map<String, Integer> halves = new HashMap<>();
+        Map<String, Integer> movers = new HashMap<>();
+        for (Task task : tasks) {
+            String title = task.getTitle();
+            if (title.startsWith("pair ")) {
+                halves.merge(title.substring(0, title.lastIndexOf(' ')), 1, Integer::sum);
+            } else if (title.startsWith("edit ")) {
+                String version = title.indexOf(' ', 5) < 0 ? "v0" : title.substring(title.lastIndexOf(' ') + 1);
+                checkEquals(version, task.getDescription(), what + ": half an edit of " + title);
+            } else if (title.startsWith("mover ")) {
+                movers.merge(title, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : halves.entrySet()) {
+            checkEquals(2, entry.getValue(), what + ": halves of " + entry.getKey());
+        }
+        for (Map.Entry<String, Integer> entry : movers.entrySet()) {
+            checkEquals(1, entry.getValue(), what + ": copies of " + entry.getKey());
+        }
+    }
+
+    private static List<Task> tasksOf(Map<String, List<Task>> tabs) {
+        List<Task> all = new ArrayList<>();
+        for (List<Task> tasks : tabs.values()) {
+            all.addAll(tasks);
+        }
+        return all;
+    }
+
+    private static Thread thread(ConcurrentLinkedQueue<Throwable> failures, CountDownLatch start, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+                body.run();
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    // Every backend's files, including the sharded backend's directory
+    private static void reset() {
+        File[] shards = new File(ShardedStorage.DIRECTORY).listFiles();
+        if (shards != null) {
+            for (File shard : shards) {
+                shard.delete();
+            }
+        }
+        new File(ShardedStorage.DIRECTORY).delete();
+        for (String name : new File(".").list()) {
+            if (name.startsWith("tasks.")) new File(name).delete();
+        }
+    }
+}
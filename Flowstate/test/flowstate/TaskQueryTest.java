@@ -0,0 +1,47 @@
+package flowstate;
+
+import static flowstate.Checks.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Sorting: descending keys and where undated tasks go
+public class TaskQueryTest {
+    public static void main(String[] args) {
+        undatedTasksSortLastBothWays();
+        System.out.println("TaskQueryTest ok");
+    }
+
+    private static void undatedTasksSortLastBothWays() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Task("undated", "", "", "Low"));
+        tasks.add(new Task("october", "", "10/18/2026", "Low"));
+        tasks.add(new Task("typed text", "", "someday", "Low"));
+        tasks.add(new Task("december", "", "12/01/2026", "Low"));
+        tasks.add(new Task("january", "", "01/05/2026", "Low"));
+
+        checkEquals(List.of("january", "october", "december", "undated", "typed text"),
+                titles(sorted(tasks, new TaskQuery().sortBy(TaskQuery.SortKey.DUE_DATE))), "earliest first");
+        checkEquals(List.of("december", "october", "january", "undated", "typed text"),
+                titles(sorted(tasks, new TaskQuery().sortBy(TaskQuery.SortKey.DUE_DATE, true))), "latest first");
+
+        // A later key still breaks ties among the undated ones
+        checkEquals(List.of("december", "october", "january", "typed text", "undated"),
+                titles(sorted(tasks, new TaskQuery().sortBy(TaskQuery.SortKey.DUE_DATE, true)
+                        .sortBy(TaskQuery.SortKey.TITLE))), "then by title");
+    }
+
+    private static List<Task> sorted(List<Task> tasks, TaskQuery query) {
+        List<Task> copy = new ArrayList<>(tasks);
+        copy.sort(query.toComparator(t -> 0));
+        return copy;
+    }
+
+    private static List<String> titles(List<Task> tasks) {
+        List<String> titles = new ArrayList<>();
+        for (Task task : tasks) {
+            titles.add(task.getTitle());
+        }
+        return titles;
+    }
+}